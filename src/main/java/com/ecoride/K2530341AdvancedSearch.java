@@ -18,10 +18,13 @@ public class K2530341AdvancedSearch {
             String category, double maxPrice, LocalDate startDate, LocalDate endDate,
             String availabilityStatus, String modelKeyword) {
 
-        List<K2530341Vehicle> allVehicles = rentalSystem.getAllVehicles();
+        // Model keyword filter: resolved through the trigram index
+        boolean hasKeyword = modelKeyword != null && !modelKeyword.isEmpty();
+        List<K2530341Vehicle> candidates = hasKeyword
+            ? rentalSystem.searchVehiclesByModel(modelKeyword) : rentalSystem.getAllVehicles();
         List<K2530341Vehicle> results = new ArrayList<>();
 
-        for (K2530341Vehicle vehicle : allVehicles) {
+        for (K2530341Vehicle vehicle : candidates) {
             // Category filter
             if (category != null && !category.isEmpty() &&
                 !vehicle.getCategory().toLowerCase().contains(category.toLowerCase())) {
@@ -39,12 +42,6 @@ public class K2530341AdvancedSearch {
                 continue;
             }
 
-            // Model keyword filter
-            if (modelKeyword != null && !modelKeyword.isEmpty() &&
-                !vehicle.getModel().toLowerCase().contains(modelKeyword.toLowerCase())) {
-                continue;
-            }
-
             // Date availability check (if dates provided)
             if (startDate != null && endDate != null) {
                 if (!isVehicleAvailableForDates(rentalSystem, vehicle, startDate, endDate)) {
@@ -65,36 +62,26 @@ public class K2530341AdvancedSearch {
             String customerName, String vehicleModel, LocalDate startDate, LocalDate endDate,
             String bookingId, String status) {
 
-        List<K2530341Booking> allBookings = rentalSystem.getAllBookings();
+        // Resolve the text and date filters through the indexes, then intersect the matches
+        List<List<K2530341Booking>> matches = new ArrayList<>();
+        if (customerName != null && !customerName.isEmpty()) {
+            matches.add(rentalSystem.searchBookingsByName(customerName));
+        }
+        if (vehicleModel != null && !vehicleModel.isEmpty()) {
+            matches.add(rentalSystem.searchBookingsByModel(vehicleModel));
+        }
+        if (bookingId != null && !bookingId.isEmpty()) {
+            matches.add(rentalSystem.searchBookingsById(bookingId));
+        }
+        if (startDate != null || endDate != null) {
+            matches.add(rentalSystem.getBookingsWithin(startDate, endDate));
+        } else if ("active".equalsIgnoreCase(status)) {
+            matches.add(rentalSystem.searchBookingsByDate(LocalDate.now()));
+        }
+        List<K2530341Booking> candidates = matches.isEmpty() ? rentalSystem.getAllBookings() : intersect(matches);
         List<K2530341Booking> results = new ArrayList<>();
 
-        for (K2530341Booking booking : allBookings) {
-            // Customer name filter
-            if (customerName != null && !customerName.isEmpty() &&
-                !booking.getCustomer().getName().toLowerCase().contains(customerName.toLowerCase())) {
-                continue;
-            }
-
-            // Vehicle model filter
-            if (vehicleModel != null && !vehicleModel.isEmpty() &&
-                !booking.getVehicle().getModel().toLowerCase().contains(vehicleModel.toLowerCase())) {
-                continue;
-            }
-
-            // Date range filter
-            if (startDate != null && booking.getStartDate().isBefore(startDate)) {
-                continue;
-            }
-            if (endDate != null && booking.getEndDate().isAfter(endDate)) {
-                continue;
-            }
-
-            // Booking ID filter
-            if (bookingId != null && !bookingId.isEmpty() &&
-                !booking.getBookingId().toLowerCase().contains(bookingId.toLowerCase())) {
-                continue;
-            }
-
+        for (K2530341Booking booking : candidates) {
             // Status filter (based on dates relative to today)
             if (status != null && !status.isEmpty()) {
                 LocalDate today = LocalDate.now();
@@ -125,6 +112,31 @@ public class K2530341AdvancedSearch {
         return results;
     }
 
+    /**
+     * Bookings present in every list, in the order of the shortest list
+     */
+    private static List<K2530341Booking> intersect(List<List<K2530341Booking>> lists) {
+        lists.sort((a, b) -> Integer.compare(a.size(), b.size()));
+        List<K2530341Booking> shortest = lists.get(0);
+        if (lists.size() == 1) return shortest;
+
+        List<java.util.Set<K2530341Booking>> others = new ArrayList<>();
+        for (int i = 1; i < lists.size(); i++) {
+            java.util.Set<K2530341Booking> set = java.util.Collections.newSetFromMap(new java.util.IdentityHashMap<>());
+            set.addAll(lists.get(i));
+            others.add(set);
+        }
+        List<K2530341Booking> result = new ArrayList<>();
+        for (K2530341Booking booking : shortest) {
+            boolean inAll = true;
+            for (java.util.Set<K2530341Booking> set : others) {
+                if (!set.contains(booking)) { inAll = false; break; }
+            }
+            if (inAll) result.add(booking);
+        }
+        return result;
+    }
+
     /**
      * Find best available vehicles for a date range and budget
      */
@@ -141,7 +153,13 @@ public class K2530341AdvancedSearch {
             }
         }
 
-        // Sort by preference: category match, then price
+        // Price each vehicle once, with the same engine and tariff the invoice will use
+        java.util.Map<K2530341Vehicle, Double> estimates = new java.util.IdentityHashMap<>();
+        for (K2530341Vehicle vehicle : availableVehicles) {
+            estimates.put(vehicle, K2530341PricingEngine.quote(vehicle.getCategoryType(), days, 0).getTotal());
+        }
+
+        // Sort by preference: category match, then estimated cost
         availableVehicles.sort((v1, v2) -> {
             // First priority: preferred category
             boolean v1Preferred = preferredCategory != null &&
@@ -152,26 +170,15 @@ public class K2530341AdvancedSearch {
             if (v1Preferred && !v2Preferred) return -1;
             if (!v1Preferred && v2Preferred) return 1;
 
-            // Second priority: price (lower first)
-            double v1Total = v1.getDailyRentalPrice() * days;
-            double v2Total = v2.getDailyRentalPrice() * days;
-
-            // Apply discount for 7+ days
-            if (days >= 7) {
-                v1Total *= 0.9;
-                v2Total *= 0.9;
-            }
-
-            return Double.compare(v1Total, v2Total);
+            // Second priority: estimated cost (lower first), then the vehicle's listed daily price
+            int byCost = Double.compare(estimates.get(v1), estimates.get(v2));
+            return byCost != 0 ? byCost : Double.compare(v1.getDailyRentalPrice(), v2.getDailyRentalPrice());
         });
 
         // Filter by budget
         List<K2530341Vehicle> budgetMatches = new ArrayList<>();
         for (K2530341Vehicle vehicle : availableVehicles) {
-            double estimatedCost = K2530341FeeCalculator.calculateEstimatedFee(
-                new K2530341Booking("TEMP", null, vehicle, startDate, endDate, 0));
-
-            if (estimatedCost <= maxBudget) {
+            if (estimates.get(vehicle) <= maxBudget) {
                 budgetMatches.add(vehicle);
             }
         }
@@ -190,19 +197,8 @@ public class K2530341AdvancedSearch {
             return false;
         }
 
-        // Check for conflicting bookings
-        List<K2530341Booking> bookings = rentalSystem.getAllBookings();
-        for (K2530341Booking booking : bookings) {
-            if (booking.getVehicle().getCarId().equals(vehicle.getCarId())) {
-                // Check for date overlap
-                if (!(endDate.isBefore(booking.getStartDate()) ||
-                      startDate.isAfter(booking.getEndDate()))) {
-                    return false; // Overlap found
-                }
-            }
-        }
-
-        return true;
+        // Check for conflicting bookings (indexed lookup of this vehicle's bookings near the dates)
+        return !rentalSystem.hasConflictingBooking(vehicle.getCarId(), startDate, endDate);
     }
 
     /**
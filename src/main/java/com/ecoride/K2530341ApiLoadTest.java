@@ -0,0 +1,149 @@
+package com.ecoride;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Load driver for K2530341ApiServer.
+ * Client threads send a read-only mix of API requests (vehicle list and search, single vehicle,
+ * availability, bookings by date, the user's bookings) and the driver reports requests/sec
+ * and the p50/p99/max latency.
+ * Without a URL it starts an embedded server on a free port with a temporary admin session.
+ */
+public class K2530341ApiLoadTest {
+
+    private static final String[] MODELS = {"Toyota", "Nissan", "BMW", "Honda", "Tesla", "Audi"};
+    private static final int WARM_UP_REQUESTS = 500;
+
+    public static void runEmbedded(K2530341RentalSystem system, int threads, int requestsPerThread) {
+        K2530341ApiServer server;
+        try {
+            server = new K2530341ApiServer(system, 0);
+        } catch (IOException e) {
+            System.err.println("Could not start API server: " + e.getMessage());
+            return;
+        }
+        server.start();
+        // In-memory admin for the test; it is not saved to users.csv
+        K2530341User admin = new K2530341User("api-load-test", Long.toString(System.nanoTime()), "Admin", "");
+        String token = system.getAuthSystem().getSessionManager().createSession(admin);
+        System.out.println("Embedded API server on port " + server.getPort()
+            + (server.usesVirtualThreads() ? " (virtual threads)" : " (cached thread pool)"));
+        try {
+            run(system.getAllVehicles(), "http://localhost:" + server.getPort(), token, threads, requestsPerThread);
+        } finally {
+            system.logoutSession(token);
+            server.stop();
+        }
+    }
+
+    public static void run(List<K2530341Vehicle> vehicles, String baseUrl, String token, int threads, int requestsPerThread) {
+        System.out.println("=== Starting API Load Test ===");
+        System.out.println(threads + " client threads, " + requestsPerThread + " requests each, against " + baseUrl);
+        String[] carIds = vehicles.stream().map(K2530341Vehicle::getCarId).toArray(String[]::new);
+        if (carIds.length == 0) carIds = new String[]{"V0000"};
+        HttpClient client = HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1)
+            .connectTimeout(Duration.ofSeconds(5)).build();
+
+        // Warm up the JIT and the connection pool before measuring
+        Random warmUp = new Random(-1);
+        for (int i = 0; i < WARM_UP_REQUESTS; i++) {
+            send(client, nextRequest(baseUrl, token, carIds, warmUp));
+        }
+
+        long[][] latencies = new long[threads][requestsPerThread];
+        AtomicInteger errors = new AtomicInteger();
+        CountDownLatch startSignal = new CountDownLatch(1);
+        Thread[] workers = new Thread[threads];
+        String[] ids = carIds;
+        for (int t = 0; t < threads; t++) {
+            int thread = t;
+            workers[t] = new Thread(() -> {
+                Random random = new Random(thread);
+                try {
+                    startSignal.await();
+                } catch (InterruptedException e) {
+                    return;
+                }
+                for (int i = 0; i < requestsPerThread; i++) {
+                    HttpRequest request = nextRequest(baseUrl, token, ids, random);
+                    long start = System.nanoTime();
+                    int status = send(client, request);
+                    latencies[thread][i] = System.nanoTime() - start;
+                    if (status < 0 || status >= 500) errors.incrementAndGet(); // 4xx answers still count as served
+                }
+            });
+            workers[t].start();
+        }
+
+        long startTime = System.nanoTime();
+        startSignal.countDown();
+        try {
+            for (Thread worker : workers) worker.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            System.err.println("API load test interrupted.");
+            return;
+        }
+        long elapsed = System.nanoTime() - startTime;
+
+        long[] all = new long[threads * requestsPerThread];
+        for (int t = 0; t < threads; t++) {
+            System.arraycopy(latencies[t], 0, all, t * requestsPerThread, requestsPerThread);
+        }
+        Arrays.sort(all);
+        System.out.println("\n=== API Load Test Results ===");
+        System.out.printf("%d requests in %.2f ms: %.0f requests/sec, %d failed\n",
+            all.length, elapsed / 1_000_000.0, all.length / (elapsed / 1_000_000_000.0), errors.get());
+        System.out.printf("Latency: p50 %.2f ms, p99 %.2f ms, max %.2f ms\n",
+            percentile(all, 0.50) / 1_000_000.0, percentile(all, 0.99) / 1_000_000.0,
+            (all.length == 0 ? 0 : all[all.length - 1]) / 1_000_000.0);
+        System.out.println("=== API Load Test Completed ===");
+    }
+
+    private static HttpRequest nextRequest(String baseUrl, String token, String[] carIds, Random random) {
+        LocalDate start = LocalDate.now().plusDays(3 + random.nextInt(30));
+        String path;
+        switch (random.nextInt(6)) {
+            case 0: path = "/api/vehicles"; break;
+            case 1: path = "/api/vehicles?model=" + MODELS[random.nextInt(MODELS.length)]; break;
+            case 2: path = "/api/vehicles/" + carIds[random.nextInt(carIds.length)]; break;
+            case 3: path = "/api/availability?carId=" + carIds[random.nextInt(carIds.length)]
+                + "&start=" + start + "&end=" + start.plusDays(1 + random.nextInt(7)); break;
+            case 4: path = "/api/bookings?date=" + start; break;
+            default: path = "/api/me/bookings"; break;
+        }
+        HttpRequest.Builder builder = HttpRequest.newBuilder(URI.create(baseUrl + path)).timeout(Duration.ofSeconds(30)).GET();
+        if (token != null) builder.header("Authorization", "Bearer " + token);
+        return builder.build();
+    }
+
+    // Status code of the response, or -1 if the request failed
+    private static int send(HttpClient client, HttpRequest request) {
+        try {
+            return client.send(request, HttpResponse.BodyHandlers.discarding()).statusCode();
+        } catch (IOException e) {
+            return -1;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return -1;
+        }
+    }
+
+    // Nearest-rank percentile of sorted values
+    private static long percentile(long[] sorted, double p) {
+        if (sorted.length == 0) return 0;
+        int rank = (int) Math.ceil(p * sorted.length);
+        return sorted[Math.max(0, rank - 1)];
+    }
+}
@@ -0,0 +1,454 @@
+package com.ecoride;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Headless HTTP/JSON front end for the EcoRide Car Rental System, built on the JDK's HttpServer.
+ * Every request runs on its own virtual thread when the JVM has them (Java 21+) and on a
+ * cached thread pool otherwise; K2530341RentalSystem is thread-safe, so handlers call it directly.
+ *
+ * Endpoints (dates are yyyy-MM-dd; POST parameters may be sent in the query or as a form body):
+ *   POST   /api/login             username, password -> {"token": ...}
+ *   POST   /api/logout            (session)
+ *   GET    /api/me                (session) the logged-in user
+ *   GET    /api/me/bookings       (session) the customer's bookings
+ *   GET    /api/vehicles          [model]
+ *   GET    /api/vehicles/{carId}
+ *   GET    /api/availability      carId, start, end
+ *   GET    /api/customers         [name]        (admin)
+ *   GET    /api/customers/{nic}                 (admin)
+ *   GET    /api/bookings          [date | name | model | id]  (admin)
+ *   GET    /api/bookings/{id}                   (owner or admin)
+ *   GET    /api/bookings/{id}/invoice           (owner or admin)
+ *   POST   /api/bookings          bookingId, carId, start, end, km [, nic for admins]  (session)
+ *   DELETE /api/bookings/{id}                   (owner or admin)
+ *   GET    /api/reports/{summary | utilization | revenue?from&to | customer?nic}  (admin)
+ *   POST   /api/admin/nightly-batch  [date, force]  (admin) invoices for rentals ending on the date (default today)
+ * The session token is sent as "Authorization: Bearer <token>".
+ */
+public class K2530341ApiServer {
+
+    // A request that cannot be served; turned into a JSON error response
+    private static class ApiException extends RuntimeException {
+        private static final long serialVersionUID = 1L;
+
+        final int status;
+
+        ApiException(int status, String message) {
+            super(message);
+            this.status = status;
+        }
+    }
+
+    private final K2530341RentalSystem system;
+    private final HttpServer server;
+    private final ExecutorService executor;
+    private final boolean virtualThreads;
+
+    public K2530341ApiServer(K2530341RentalSystem system, int port) throws IOException {
+        this.system = system;
+        this.server = HttpServer.create(new InetSocketAddress(port), 1024);
+        ExecutorService virtual = newVirtualThreadExecutor();
+        this.virtualThreads = virtual != null;
+        this.executor = virtual != null ? virtual : Executors.newCachedThreadPool();
+        server.setExecutor(executor);
+
+        route("/api/login", this::login);
+        route("/api/logout", this::logout);
+        route("/api/me", this::me);
+        route("/api/vehicles", this::vehicles);
+        route("/api/availability", this::availability);
+        route("/api/customers", this::customers);
+        route("/api/bookings", this::bookings);
+        route("/api/reports", this::reports);
+        route("/api/admin", this::admin);
+    }
+
+    // Executors.newVirtualThreadPerTaskExecutor() if this JVM has it; the project still compiles for Java 11
+    private static ExecutorService newVirtualThreadExecutor() {
+        try {
+            return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+        } catch (ReflectiveOperationException e) {
+            return null;
+        }
+    }
+
+    public void start() {
+        server.start();
+    }
+
+    public void stop() {
+        server.stop(1);
+        executor.shutdown();
+        try {
+            executor.awaitTermination(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    // The bound port; differs from the requested one when that was 0
+    public int getPort() {
+        return server.getAddress().getPort();
+    }
+
+    public boolean usesVirtualThreads() {
+        return virtualThreads;
+    }
+
+    // ------------ Routing ------------
+    private interface Route {
+        String handle(HttpExchange exchange, String subPath, Map<String, String> params) throws IOException;
+    }
+
+    private void route(String prefix, Route route) {
+        server.createContext(prefix, exchange -> respond(exchange, prefix, route));
+    }
+
+    private void respond(HttpExchange exchange, String prefix, Route route) throws IOException {
+        int status = 200;
+        String body;
+        try {
+            String path = exchange.getRequestURI().getPath();
+            if (path.length() > prefix.length() && path.charAt(prefix.length()) != '/') {
+                throw new ApiException(404, "Not found");
+            }
+            String subPath = path.length() > prefix.length() ? path.substring(prefix.length() + 1) : "";
+            Map<String, String> params = parseParams(exchange);
+            body = route.handle(exchange, subPath, params);
+        } catch (ApiException e) {
+            status = e.status;
+            body = error(e.getMessage());
+        } catch (RuntimeException e) {
+            System.err.println("API request " + exchange.getRequestURI() + " failed: " + e);
+            status = 500;
+            body = error("Internal error");
+        }
+        byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", "application/json; charset=utf-8");
+        exchange.sendResponseHeaders(status, bytes.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(bytes);
+        }
+    }
+
+    // Query parameters, plus form parameters from the body of POST requests
+    private static Map<String, String> parseParams(HttpExchange exchange) throws IOException {
+        Map<String, String> params = new HashMap<>();
+        parseForm(exchange.getRequestURI().getRawQuery(), params);
+        if ("POST".equals(exchange.getRequestMethod())) {
+            try (InputStream in = exchange.getRequestBody()) {
+                parseForm(new String(in.readAllBytes(), StandardCharsets.UTF_8), params);
+            }
+        }
+        return params;
+    }
+
+    private static void parseForm(String form, Map<String, String> params) {
+        if (form == null || form.isEmpty()) return;
+        for (String pair : form.split("&")) {
+            int eq = pair.indexOf('=');
+            String key = eq < 0 ? pair : pair.substring(0, eq);
+            String value = eq < 0 ? "" : pair.substring(eq + 1);
+            try {
+                params.put(URLDecoder.decode(key, StandardCharsets.UTF_8), URLDecoder.decode(value, StandardCharsets.UTF_8));
+            } catch (IllegalArgumentException e) {
+                throw new ApiException(400, "Malformed parameter: " + key);
+            }
+        }
+    }
+
+    // ------------ Handlers ------------
+    private String login(HttpExchange exchange, String subPath, Map<String, String> params) {
+        requireMethod(exchange, "POST");
+        String token = system.loginSession(required(params, "username"), required(params, "password"));
+        if (token == null) throw new ApiException(401, "Invalid username or password");
+        return "{\"token\":" + quote(token) + "}";
+    }
+
+    private String logout(HttpExchange exchange, String subPath, Map<String, String> params) {
+        requireMethod(exchange, "POST");
+        return "{\"loggedOut\":" + system.logoutSession(bearerToken(exchange)) + "}";
+    }
+
+    private String me(HttpExchange exchange, String subPath, Map<String, String> params) {
+        requireMethod(exchange, "GET");
+        K2530341User user = requireUser(exchange);
+        if (subPath.isEmpty()) return userJson(user);
+        if (subPath.equals("bookings")) return bookingsJson(system.getMyBookings(bearerToken(exchange)));
+        throw new ApiException(404, "Not found");
+    }
+
+    private String vehicles(HttpExchange exchange, String subPath, Map<String, String> params) {
+        requireMethod(exchange, "GET");
+        if (!subPath.isEmpty()) {
+            K2530341Vehicle vehicle = system.getVehicle(subPath);
+            if (vehicle == null) throw new ApiException(404, "Vehicle not found: " + subPath);
+            return vehicleJson(vehicle);
+        }
+        String model = params.get("model");
+        List<K2530341Vehicle> vehicles = model != null ? system.searchVehiclesByModel(model) : system.getAllVehicles();
+        StringBuilder sb = new StringBuilder("[");
+        for (K2530341Vehicle v : vehicles) {
+            if (sb.length() > 1) sb.append(',');
+            sb.append(vehicleJson(v));
+        }
+        return sb.append(']').toString();
+    }
+
+    private String availability(HttpExchange exchange, String subPath, Map<String, String> params) {
+        requireMethod(exchange, "GET");
+        String carId = required(params, "carId");
+        LocalDate start = date(params, "start");
+        LocalDate end = date(params, "end");
+        K2530341Vehicle vehicle = system.getVehicle(carId);
+        if (vehicle == null) throw new ApiException(404, "Vehicle not found: " + carId);
+        boolean free = vehicle.isAvailable() && !system.hasConflictingBooking(carId, start, end);
+        return "{\"carId\":" + quote(carId) + ",\"start\":" + quote(start.toString()) + ",\"end\":"
+            + quote(end.toString()) + ",\"available\":" + free + "}";
+    }
+
+    private String customers(HttpExchange exchange, String subPath, Map<String, String> params) {
+        requireMethod(exchange, "GET");
+        requireAdmin(exchange);
+        if (!subPath.isEmpty()) {
+            K2530341Customer customer = system.getCustomer(subPath);
+            if (customer == null) throw new ApiException(404, "Customer not found: " + subPath);
+            return customerJson(customer);
+        }
+        String name = params.get("name");
+        List<K2530341Customer> customers = name != null ? system.searchCustomersByName(name) : system.getAllCustomers();
+        StringBuilder sb = new StringBuilder("[");
+        for (K2530341Customer c : customers) {
+            if (sb.length() > 1) sb.append(',');
+            sb.append(customerJson(c));
+        }
+        return sb.append(']').toString();
+    }
+
+    private String bookings(HttpExchange exchange, String subPath, Map<String, String> params) {
+        String method = exchange.getRequestMethod();
+        if (subPath.isEmpty()) {
+            if ("POST".equals(method)) return createBooking(exchange, params);
+            requireMethod(exchange, "GET");
+            requireAdmin(exchange);
+            List<K2530341Booking> bookings;
+            if (params.containsKey("date")) bookings = system.searchBookingsByDate(date(params, "date"));
+            else if (params.containsKey("name")) bookings = system.searchBookingsByName(params.get("name"));
+            else if (params.containsKey("model")) bookings = system.searchBookingsByModel(params.get("model"));
+            else if (params.containsKey("id")) bookings = system.searchBookingsById(params.get("id"));
+            else bookings = system.getAllBookings();
+            return bookingsJson(bookings);
+        }
+
+        String[] parts = subPath.split("/", 2);
+        K2530341Booking booking = system.getBooking(parts[0]);
+        if (booking == null) throw new ApiException(404, "Booking not found: " + parts[0]);
+        requireOwnerOrAdmin(exchange, booking);
+        if (parts.length == 2) {
+            if (!parts[1].equals("invoice")) throw new ApiException(404, "Not found");
+            requireMethod(exchange, "GET");
+            return invoiceJson(system.generateInvoice(booking));
+        }
+        if ("DELETE".equals(method)) {
+            // Customers must cancel at least 2 days ahead; admins may remove any booking
+            if (!requireUser(exchange).isAdmin() && !booking.canCancel()) {
+                throw new ApiException(409, "Booking can no longer be cancelled");
+            }
+            return "{\"deleted\":" + system.deleteBooking(booking.getBookingId()) + "}";
+        }
+        requireMethod(exchange, "GET");
+        return bookingJson(booking);
+    }
+
+    private String createBooking(HttpExchange exchange, Map<String, String> params) {
+        K2530341User user = requireUser(exchange);
+        String nic = user.isAdmin() ? required(params, "nic") : user.getNicOrPassport();
+        K2530341Customer customer = system.getCustomer(nic);
+        if (customer == null) throw new ApiException(404, "Customer not found: " + nic);
+        String carId = required(params, "carId");
+        K2530341Vehicle vehicle = system.getVehicle(carId);
+        if (vehicle == null) throw new ApiException(404, "Vehicle not found: " + carId);
+        String bookingId = required(params, "bookingId");
+        int km;
+        try {
+            km = Integer.parseInt(required(params, "km"));
+        } catch (NumberFormatException e) {
+            throw new ApiException(400, "km must be a whole number");
+        }
+
+        K2530341Booking booking = new K2530341Booking(bookingId, customer, vehicle, date(params, "start"), date(params, "end"), km);
+        // The ID is claimed in the same locked commit as the vehicle, so concurrent requests cannot both get it
+        K2530341RentalSystem.CommitResult result = system.placeBooking(booking);
+        if (result == K2530341RentalSystem.CommitResult.DUPLICATE_ID) {
+            throw new ApiException(409, "Booking ID already exists: " + bookingId);
+        }
+        if (result != K2530341RentalSystem.CommitResult.COMMITTED) {
+            throw new ApiException(409, "Vehicle is not available for these dates, or the booking starts less than 3 days ahead");
+        }
+        return bookingJson(booking);
+    }
+
+    private String reports(HttpExchange exchange, String subPath, Map<String, String> params) {
+        requireMethod(exchange, "GET");
+        requireAdmin(exchange);
+        String report;
+        switch (subPath) {
+            case "summary":
+                report = K2530341ReportGenerator.generateSystemSummary(system);
+                break;
+            case "utilization":
+                report = K2530341ReportGenerator.generateUtilizationReport(system);
+                break;
+            case "revenue":
+                report = K2530341ReportGenerator.generateRevenueReport(system, date(params, "from"), date(params, "to"));
+                break;
+            case "customer":
+                report = K2530341ReportGenerator.generateCustomerReport(system, required(params, "nic"));
+                break;
+            default:
+                throw new ApiException(404, "Unknown report: " + subPath);
+        }
+        return "{\"report\":" + quote(report) + "}";
+    }
+
+    // The nightly invoice job runs here, in the process that owns the data files and the outbox
+    private String admin(HttpExchange exchange, String subPath, Map<String, String> params) {
+        requireMethod(exchange, "POST");
+        requireAdmin(exchange);
+        if (!subPath.equals("nightly-batch")) throw new ApiException(404, "Unknown admin task: " + subPath);
+        LocalDate day = params.containsKey("date") ? date(params, "date") : LocalDate.now();
+        String report = K2530341NotificationService.runNightlyBatch(system, day, "true".equals(params.get("force")));
+        if (report == null) throw new ApiException(409, "Invoices for " + day + " were already sent; pass force=true to send them again");
+        return "{\"report\":" + quote(report) + "}";
+    }
+
+    // ------------ Checks ------------
+    private static void requireMethod(HttpExchange exchange, String method) {
+        if (!method.equals(exchange.getRequestMethod())) {
+            throw new ApiException(405, exchange.getRequestMethod() + " not allowed here");
+        }
+    }
+
+    private static String bearerToken(HttpExchange exchange) {
+        String header = exchange.getRequestHeaders().getFirst("Authorization");
+        return header != null && header.startsWith("Bearer ") ? header.substring(7).trim() : null;
+    }
+
+    private K2530341User requireUser(HttpExchange exchange) {
+        K2530341User user = system.getCurrentUser(bearerToken(exchange));
+        if (user == null) throw new ApiException(401, "Login required");
+        return user;
+    }
+
+    private void requireAdmin(HttpExchange exchange) {
+        if (!requireUser(exchange).isAdmin()) throw new ApiException(403, "Admin only");
+    }
+
+    private void requireOwnerOrAdmin(HttpExchange exchange, K2530341Booking booking) {
+        K2530341User user = requireUser(exchange);
+        if (user.isAdmin()) return;
+        K2530341Customer customer = booking.getCustomer();
+        if (customer == null || !customer.getNicOrPassport().equals(user.getNicOrPassport())) {
+            throw new ApiException(403, "Not your booking");
+        }
+    }
+
+    private static String required(Map<String, String> params, String name) {
+        String value = params.get(name);
+        if (value == null || value.isBlank()) throw new ApiException(400, "Missing parameter: " + name);
+        return value.trim();
+    }
+
+    private static LocalDate date(Map<String, String> params, String name) {
+        try {
+            return LocalDate.parse(required(params, name));
+        } catch (DateTimeParseException e) {
+            throw new ApiException(400, name + " must be a date in yyyy-MM-dd format");
+        }
+    }
+
+    // ------------ JSON ------------
+    private static String userJson(K2530341User user) {
+        return "{\"username\":" + quote(user.getUsername()) + ",\"role\":" + quote(user.getRole())
+            + ",\"nic\":" + quote(user.getNicOrPassport()) + "}";
+    }
+
+    private static String vehicleJson(K2530341Vehicle v) {
+        return "{\"carId\":" + quote(v.getCarId()) + ",\"model\":" + quote(v.getModel())
+            + ",\"category\":" + quote(v.getCategory()) + ",\"dailyRentalPrice\":" + v.getDailyRentalPrice()
+            + ",\"status\":" + quote(v.getAvailabilityStatus()) + "}";
+    }
+
+    private static String customerJson(K2530341Customer c) {
+        return "{\"nic\":" + quote(c.getNicOrPassport()) + ",\"name\":" + quote(c.getName())
+            + ",\"contact\":" + quote(c.getContactNumber()) + ",\"email\":" + quote(c.getEmail()) + "}";
+    }
+
+    private static String bookingJson(K2530341Booking b) {
+        K2530341Customer c = b.getCustomer();
+        return "{\"bookingId\":" + quote(b.getBookingId()) + ",\"nic\":" + quote(c == null ? null : c.getNicOrPassport())
+            + ",\"customerName\":" + quote(c == null ? null : c.getName()) + ",\"carId\":" + quote(b.getVehicle().getCarId())
+            + ",\"model\":" + quote(b.getVehicle().getModel()) + ",\"start\":" + quote(b.getStartDate().toString())
+            + ",\"end\":" + quote(b.getEndDate().toString()) + ",\"km\":" + b.getTotalKm()
+            + ",\"deposit\":" + b.getDeposit() + "}";
+    }
+
+    private static String bookingsJson(List<K2530341Booking> bookings) {
+        StringBuilder sb = new StringBuilder("[");
+        for (K2530341Booking b : bookings == null ? Collections.<K2530341Booking>emptyList() : bookings) {
+            if (sb.length() > 1) sb.append(',');
+            sb.append(bookingJson(b));
+        }
+        return sb.append(']').toString();
+    }
+
+    private static String invoiceJson(K2530341Invoice invoice) {
+        return String.format(Locale.ROOT, "{\"bookingId\":%s,\"basePrice\":%.2f,\"extraKmCharge\":%.2f,\"discount\":%.2f,"
+                + "\"tax\":%.2f,\"totalAmount\":%.2f}", quote(invoice.getBooking().getBookingId()),
+            invoice.getBasePrice(), invoice.getExtraKmCharge(), invoice.getDiscount(), invoice.getTax(),
+            invoice.getTotalAmount());
+    }
+
+    private static String error(String message) {
+        return "{\"error\":" + quote(message) + "}";
+    }
+
+    // A JSON string literal, or null
+    static String quote(String s) {
+        if (s == null) return "null";
+        StringBuilder sb = new StringBuilder(s.length() + 2).append('"');
+        for (int i = 0; i < s.length(); i++) {
+            char ch = s.charAt(i);
+            switch (ch) {
+                case '"': sb.append("\\\""); break;
+                case '\\': sb.append("\\\\"); break;
+                case '\n': sb.append("\\n"); break;
+                case '\r': sb.append("\\r"); break;
+                case '\t': sb.append("\\t"); break;
+                default:
+                    if (ch < 0x20) sb.append(String.format("\\u%04x", (int) ch));
+                    else sb.append(ch);
+            }
+        }
+        return sb.append('"').toString();
+    }
+}
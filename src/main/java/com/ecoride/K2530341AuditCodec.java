@@ -0,0 +1,381 @@
+package com.ecoride;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.UTFDataFormatException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Binary encoding of audit events, and their text form.
+ * A binary record is a varint length followed by: varint epoch millis, varint user code,
+ * varint action code, a flags byte (bits 0-1: the kind of reference - none, booking, vehicle,
+ * customer; bit 2: amount; bit 3: details), then the reference id, the amount in cents
+ * (zigzag varint) and the details, each only if flagged. Strings are a varint length and UTF-8.
+ * User and action names are codes into a terms file: an append-only list of names where a
+ * name's code is its position. A new name is written there before the first record using it.
+ * The text form is the classic audit.log line:
+ *   [yyyy-MM-dd HH:mm:ss] USER:alice ACTION:BOOKING_CREATE DETAILS:BookingID:B0001 Vehicle:V0001
+ * Thread-safe: interning is synchronized, lookups are lock-free.
+ * Demonstrates algorithms: varint and zigzag encoding; data structures: string interning.
+ */
+public class K2530341AuditCodec {
+    static final int REF_NONE = 0;
+    static final int REF_BOOKING = 1;
+    static final int REF_VEHICLE = 2;
+    static final int REF_CUSTOMER = 3;
+    static final long NO_AMOUNT = Long.MIN_VALUE;
+    private static final int REF_MASK = 3;
+    private static final int AMOUNT_FLAG = 4;
+    private static final int DETAILS_FLAG = 8;
+    private static final String[] REF_LABELS = {null, "BookingID:", "VehicleID:", "CustomerNIC:"};
+    private static final String AMOUNT_LABEL = "Amount:LKR ";
+    private static final int LENGTH_PREFIX = 5; // Room reserved for the record length varint
+    private static final DateTimeFormatter TIMESTAMP_FORMAT = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
+
+    /**
+     * An encoded record: bytes[start, end) including the length prefix. Reused between calls.
+     */
+    static final class Record {
+        byte[] bytes = new byte[256];
+        int start;
+        int end;
+        private int position; // Write position while encoding
+
+        int length() {
+            return end - start;
+        }
+    }
+
+    private final Path termsFile;
+    private final Map<String, Integer> codes = new ConcurrentHashMap<>();
+    private volatile String[] terms = new String[0];
+    private int termCount;
+    private FileChannel termsOut;
+
+    public K2530341AuditCodec(Path termsFile) throws IOException {
+        this.termsFile = termsFile;
+        loadTerms();
+    }
+
+    // ------------ Encoding ------------
+    /**
+     * Encode the event into the record, growing its array if needed.
+     */
+    void encode(K2530341AuditLogger.Event event, Record record) throws IOException {
+        int userCode = intern(event.user);
+        int actionCode = intern(event.action);
+        record.position = LENGTH_PREFIX;
+        putVarLong(record, event.timeMillis);
+        putVarLong(record, userCode);
+        putVarLong(record, actionCode);
+        int flags = event.refKind & REF_MASK;
+        if (event.amountCents != NO_AMOUNT) flags |= AMOUNT_FLAG;
+        if (event.details != null) flags |= DETAILS_FLAG;
+        ensure(record, 1);
+        record.bytes[record.position++] = (byte) flags;
+        if ((flags & REF_MASK) != REF_NONE) putString(record, event.refId);
+        if ((flags & AMOUNT_FLAG) != 0) putVarLong(record, (event.amountCents << 1) ^ (event.amountCents >> 63));
+        if ((flags & DETAILS_FLAG) != 0) putString(record, event.details);
+
+        // Write the length right before the payload
+        int length = record.position - LENGTH_PREFIX;
+        int start = LENGTH_PREFIX - varLongSize(length);
+        record.start = start;
+        record.end = record.position;
+        for (long value = length; ; value >>>= 7) {
+            if ((value & ~0x7FL) == 0) {
+                record.bytes[start] = (byte) value;
+                break;
+            }
+            record.bytes[start++] = (byte) ((value & 0x7F) | 0x80);
+        }
+    }
+
+    private static void putVarLong(Record record, long value) {
+        ensure(record, 10);
+        byte[] bytes = record.bytes;
+        int position = record.position;
+        while ((value & ~0x7FL) != 0) {
+            bytes[position++] = (byte) ((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        bytes[position++] = (byte) value;
+        record.position = position;
+    }
+
+    private static void putString(Record record, String value) {
+        // ASCII is copied directly; anything else goes through the JDK encoder
+        int length = value.length();
+        boolean ascii = true;
+        for (int i = 0; i < length && ascii; i++) ascii = value.charAt(i) < 0x80;
+        if (ascii) {
+            putVarLong(record, length);
+            ensure(record, length);
+            for (int i = 0; i < length; i++) record.bytes[record.position++] = (byte) value.charAt(i);
+        } else {
+            byte[] utf8 = value.getBytes(StandardCharsets.UTF_8);
+            putVarLong(record, utf8.length);
+            ensure(record, utf8.length);
+            System.arraycopy(utf8, 0, record.bytes, record.position, utf8.length);
+            record.position += utf8.length;
+        }
+    }
+
+    private static void ensure(Record record, int bytes) {
+        if (record.position + bytes > record.bytes.length) {
+            record.bytes = Arrays.copyOf(record.bytes, Math.max(record.position + bytes, record.bytes.length * 2));
+        }
+    }
+
+    private static int varLongSize(long value) {
+        int size = 1;
+        while ((value & ~0x7FL) != 0) {
+            value >>>= 7;
+            size++;
+        }
+        return size;
+    }
+
+    // ------------ Decoding ------------
+    /**
+     * Decode a record's payload, bytes[start, end) after its length prefix.
+     */
+    K2530341AuditLogger.Event decode(byte[] bytes, int start, int end) {
+        int[] position = {start};
+        K2530341AuditLogger.Event event = new K2530341AuditLogger.Event();
+        event.timeMillis = getVarLong(bytes, position, end);
+        event.user = term((int) getVarLong(bytes, position, end));
+        event.action = term((int) getVarLong(bytes, position, end));
+        int flags = position[0] < end ? bytes[position[0]++] : 0;
+        event.refKind = flags & REF_MASK;
+        if (event.refKind != REF_NONE) event.refId = getString(bytes, position, end);
+        if ((flags & AMOUNT_FLAG) != 0) {
+            long zigzag = getVarLong(bytes, position, end);
+            event.amountCents = (zigzag >>> 1) ^ -(zigzag & 1);
+        }
+        if ((flags & DETAILS_FLAG) != 0) event.details = getString(bytes, position, end);
+        return event;
+    }
+
+    // The event time of a record payload, without decoding the rest
+    long timeOf(byte[] bytes, int start, int end) {
+        return getVarLong(bytes, new int[]{start}, end);
+    }
+
+    // The user and action of a record payload: {user, action}
+    String[] userAndAction(byte[] bytes, int start, int end) {
+        int[] position = {start};
+        getVarLong(bytes, position, end);
+        String user = term((int) getVarLong(bytes, position, end));
+        return new String[]{user, term((int) getVarLong(bytes, position, end))};
+    }
+
+    /**
+     * Find the record starting at bytes[from]: returns its end, and stores the start of its payload
+     * in payloadStart[0]; -1 if the record does not end before limit.
+     */
+    static int recordEnd(byte[] bytes, int from, int limit, int[] payloadStart) {
+        long length = 0;
+        int shift = 0;
+        int position = from;
+        while (position < limit && shift < 35) {
+            int b = bytes[position++];
+            length |= (long) (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                if (length > limit - position) return -1;
+                payloadStart[0] = position;
+                return position + (int) length;
+            }
+            shift += 7;
+        }
+        return -1;
+    }
+
+    private static long getVarLong(byte[] bytes, int[] position, int end) {
+        long value = 0;
+        int shift = 0;
+        int i = position[0];
+        while (i < end && shift < 64) {
+            int b = bytes[i++];
+            value |= (long) (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) break;
+            shift += 7;
+        }
+        position[0] = i;
+        return value;
+    }
+
+    private static String getString(byte[] bytes, int[] position, int end) {
+        int length = (int) Math.min(getVarLong(bytes, position, end), end - position[0]);
+        String value = new String(bytes, position[0], length, StandardCharsets.UTF_8);
+        position[0] += length;
+        return value;
+    }
+
+    // ------------ Text form ------------
+    /**
+     * Append the text line of the event (without a newline); timestamp is its formatted time.
+     */
+    static void render(StringBuilder sb, String timestamp, K2530341AuditLogger.Event event) {
+        sb.append('[').append(timestamp).append("] USER:").append(event.user)
+            .append(" ACTION:").append(event.action).append(" DETAILS:");
+        if (event.refKind != REF_NONE) sb.append(REF_LABELS[event.refKind]).append(event.refId).append(' ');
+        if (event.amountCents != NO_AMOUNT) {
+            long cents = event.amountCents;
+            sb.append(AMOUNT_LABEL);
+            if (cents < 0) sb.append('-');
+            long absolute = Math.abs(cents);
+            sb.append(absolute / 100).append('.');
+            if (absolute % 100 < 10) sb.append('0');
+            sb.append(absolute % 100).append(' ');
+        }
+        sb.append(event.details);
+    }
+
+    static String render(K2530341AuditLogger.Event event) {
+        StringBuilder sb = new StringBuilder(96);
+        render(sb, formatTime(event.timeMillis), event);
+        return sb.toString();
+    }
+
+    static String formatTime(long millis) {
+        return LocalDateTime.ofInstant(Instant.ofEpochMilli(millis), ZoneId.systemDefault()).format(TIMESTAMP_FORMAT);
+    }
+
+    /**
+     * Parse a text line back into an event (to the second); null if it is not an audit line.
+     */
+    static K2530341AuditLogger.Event parse(String line) {
+        if (line.length() < 21 || line.charAt(0) != '[' || !line.startsWith("] USER:", 20)) return null;
+        int actionMark = line.indexOf(" ACTION:", 27);
+        int detailsMark = actionMark < 0 ? -1 : line.indexOf(" DETAILS:", actionMark + 8);
+        if (detailsMark < 0) return null;
+        K2530341AuditLogger.Event event = new K2530341AuditLogger.Event();
+        try {
+            event.timeMillis = LocalDateTime.parse(line.substring(1, 20), TIMESTAMP_FORMAT)
+                .atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+        } catch (DateTimeParseException e) {
+            return null;
+        }
+        event.user = line.substring(27, actionMark);
+        event.action = line.substring(actionMark + 8, detailsMark);
+        int position = detailsMark + 9;
+        for (int kind = REF_BOOKING; kind <= REF_CUSTOMER; kind++) {
+            if (!line.startsWith(REF_LABELS[kind], position)) continue;
+            int space = line.indexOf(' ', position + REF_LABELS[kind].length());
+            if (space > 0) {
+                event.refKind = kind;
+                event.refId = line.substring(position + REF_LABELS[kind].length(), space);
+                position = space + 1;
+            }
+            break;
+        }
+        int space = line.indexOf(' ', position + AMOUNT_LABEL.length());
+        if (line.startsWith(AMOUNT_LABEL, position) && space > 0) {
+            try {
+                event.amountCents = Math.round(Double.parseDouble(line.substring(position + AMOUNT_LABEL.length(), space)) * 100);
+                position = space + 1;
+            } catch (NumberFormatException e) {
+                // Free text that happens to start like an amount
+            }
+        }
+        event.details = line.substring(position);
+        return event;
+    }
+
+    // ------------ Terms ------------
+    // The code of a user or action name, adding it to the terms file if it is new
+    private int intern(String term) throws IOException {
+        if (term == null) term = "null";
+        Integer code = codes.get(term);
+        return code != null ? code : add(term);
+    }
+
+    private synchronized int add(String term) throws IOException {
+        Integer code = codes.get(term);
+        if (code != null) return code;
+        if (termsOut == null) {
+            termsOut = FileChannel.open(termsFile, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+        }
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try {
+            new DataOutputStream(bytes).writeUTF(term);
+        } catch (UTFDataFormatException e) {
+            return add(term.substring(0, 16 * 1024)); // Longer than the terms file allows; keep its start
+        }
+        ByteBuffer buffer = ByteBuffer.wrap(bytes.toByteArray());
+        while (buffer.hasRemaining()) termsOut.write(buffer);
+        String[] current = terms;
+        if (termCount == current.length) current = Arrays.copyOf(current, Math.max(16, current.length * 2));
+        current[termCount] = term;
+        terms = current; // Publish before the code can be used
+        codes.put(term, termCount);
+        return termCount++;
+    }
+
+    String term(int code) {
+        String[] current = terms;
+        String term = code >= 0 && code < current.length ? current[code] : null;
+        return term != null ? term : "?" + code;
+    }
+
+    // Read the terms file; a name cut off by a crash is removed so appends continue after the last whole one
+    private void loadTerms() throws IOException {
+        if (!Files.exists(termsFile)) return;
+        long valid = 0;
+        try (FileChannel in = FileChannel.open(termsFile, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            DataInputStream data = new DataInputStream(new BufferedInputStream(Channels.newInputStream(in)));
+            String[] loaded = new String[64];
+            try {
+                while (true) {
+                    String term = data.readUTF();
+                    if (termCount == loaded.length) loaded = Arrays.copyOf(loaded, loaded.length * 2);
+                    loaded[termCount] = term;
+                    codes.put(term, termCount++);
+                    valid += 2 + utfLength(term);
+                }
+            } catch (EOFException | UTFDataFormatException e) {
+                // End of the file, or a partly written last name
+            }
+            terms = loaded;
+            if (in.size() > valid) in.truncate(valid);
+        }
+    }
+
+    // Length of a name in the modified UTF-8 of DataOutputStream.writeUTF
+    private static int utfLength(String term) {
+        int length = 0;
+        for (int i = 0; i < term.length(); i++) {
+            char c = term.charAt(i);
+            length += c >= 0x01 && c < 0x80 ? 1 : c < 0x800 ? 2 : 3;
+        }
+        return length;
+    }
+
+    public synchronized void close() {
+        try {
+            if (termsOut != null) termsOut.close();
+        } catch (IOException e) {
+            System.err.println("Error closing audit terms file: " + e.getMessage());
+        }
+        termsOut = null;
+    }
+}
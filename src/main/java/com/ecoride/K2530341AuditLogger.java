@@ -1,32 +1,154 @@
 package com.ecoride;
 
 import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.*;
+import java.time.LocalDate;
 import java.time.LocalDateTime;
-import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+import java.util.stream.Stream;
 
 /**
  * Audit Logger for EcoRide Car Rental System.
  * Logs all system activities for security and debugging purposes.
+ * By default every entry is appended to the file on the caller's thread. In async mode
+ * (enableAsync(), or -Decoride.audit=async) log() only copies the event into a preallocated
+ * slot of a bounded lock-free ring buffer; a single writer thread formats the entries into a
+ * direct buffer and writes it out when the buffer reaches a size limit or the flush interval
+ * passes. When the ring is full the back-pressure policy decides whether callers wait (BLOCK),
+ * lose the event (DROP) or keep only every Nth event (SAMPLE).
+ * The file is split into rolled segments with sparse timestamp indexes (K2530341AuditSegments).
+ * Entries are structured events (see Event). They are written as text lines to audit.log, or
+ * with -Decoride.audit.format=binary as compact binary records (K2530341AuditCodec) to
+ * audit_events.bin; either way the query methods return the text lines.
  * Demonstrates OOP: Singleton pattern and file I/O operations.
  */
 public class K2530341AuditLogger {
     private static K2530341AuditLogger instance;
     private static final String LOG_FILE = "audit.log";
-    private static final DateTimeFormatter TIMESTAMP_FORMAT =
-        DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
+    private static final String BINARY_LOG_FILE = "audit_events.bin";
+    private final Path logFile;
+    private final K2530341AuditSegments segments; // Rolled segment files with sparse timestamp indexes
+    private final K2530341AuditCodec codec;       // Set when the segments hold binary records
 
-    private K2530341AuditLogger() { // Private constructor
+    /**
+     * What log() does when the async ring buffer is full.
+     * BLOCK: wait for the writer to free a slot. DROP: discard the event.
+     * SAMPLE: once the ring is three quarters full keep one event in sampleEvery, and drop when it is full.
+     */
+    public enum BackPressure { BLOCK, DROP, SAMPLE }
+
+    private static final int DEFAULT_CAPACITY = 8192;
+    private static final int DEFAULT_FLUSH_BYTES = 64 * 1024;
+    private static final long DEFAULT_FLUSH_INTERVAL_MILLIS = 100;
+    private static final int DEFAULT_SAMPLE_EVERY = 10;
+    private static final long IDLE_PARK_NANOS = TimeUnit.MILLISECONDS.toNanos(1);
+
+    /**
+     * One audit entry. The booking, vehicle or customer it concerns and an amount are typed fields
+     * next to the free-text details; the text form puts them at the start of DETAILS
+     * ("BookingID:B0001 Amount:LKR 1500.00 ...").
+     * In async mode instances are also the preallocated ring slots, written by the producer that
+     * claimed the slot and read by the writer thread.
+     */
+    public static final class Event {
+        long timeMillis;
+        String user;
+        String action;
+        int refKind;            // K2530341AuditCodec.REF_*
+        String refId;
+        long amountCents = K2530341AuditCodec.NO_AMOUNT;
+        String details;
+
+        Event() {
+        }
+
+        Event(long timeMillis, String user, String action, int refKind, String refId, long amountCents, String details) {
+            set(timeMillis, user, action, refKind, refId, amountCents, details);
+        }
+
+        void set(long timeMillis, String user, String action, int refKind, String refId, long amountCents, String details) {
+            this.timeMillis = timeMillis;
+            this.user = user;
+            this.action = action;
+            this.refKind = refKind;
+            this.refId = refId;
+            this.amountCents = amountCents;
+            this.details = details;
+        }
+
+        public long getTimeMillis() { return timeMillis; }
+        public String getUser() { return user; }
+        public String getAction() { return action; }
+        public String getBookingId() { return refKind == K2530341AuditCodec.REF_BOOKING ? refId : null; }
+        public String getVehicleId() { return refKind == K2530341AuditCodec.REF_VEHICLE ? refId : null; }
+        public String getCustomerNic() { return refKind == K2530341AuditCodec.REF_CUSTOMER ? refId : null; }
+        public boolean hasAmount() { return amountCents != K2530341AuditCodec.NO_AMOUNT; }
+        public double getAmount() { return hasAmount() ? amountCents / 100.0 : 0; }
+        public String getDetails() { return details; }
+
+        @Override
+        public String toString() {
+            return K2530341AuditCodec.render(this);
+        }
+    }
+
+    // Bounded multi-producer, single-consumer ring. A slot's sequence equals the claiming position
+    // when it is free and position + 1 once the event is published.
+    private Event[] slots;
+    private AtomicLongArray sequences;
+    private int mask;
+    private final AtomicLong claimed = new AtomicLong();  // Next position to claim
+    private final AtomicLong consumed = new AtomicLong(); // Next position the writer reads
+    private volatile long written;                        // Positions before this are in the file
+
+    private volatile boolean async;
+    private volatile BackPressure policy = BackPressure.BLOCK;
+    private volatile int sampleEvery = DEFAULT_SAMPLE_EVERY;
+    private int flushBytes = DEFAULT_FLUSH_BYTES;
+    private long flushIntervalNanos = TimeUnit.MILLISECONDS.toNanos(DEFAULT_FLUSH_INTERVAL_MILLIS);
+    private Thread writer;
+    private volatile boolean writerRunning;
+    private final AtomicInteger flushWaiters = new AtomicInteger();
+    private boolean shutdownHookRegistered;
+
+    // Statistics
+    private final LongAdder dropped = new LongAdder();
+    private final LongAdder sampledOut = new LongAdder();
+    private final AtomicLong sampleCounter = new AtomicLong();
+    private final LongAdder blockedCalls = new LongAdder();
+    private volatile long batchesWritten;
+    private volatile long bytesWritten;
+
+    private K2530341AuditLogger(boolean binary) { // Private constructor
+        this(Paths.get(binary ? BINARY_LOG_FILE : LOG_FILE), binary);
+    }
+
+    // A logger writing to another file; used by the benchmark so it does not fill the real audit log
+    K2530341AuditLogger(Path logPath, boolean binary) {
         // Initialize log file
+        logFile = logPath;
+        boolean created = !Files.exists(logPath);
+        K2530341AuditSegments opened = null;
         try {
-            Path logPath = Paths.get(LOG_FILE);
-            if (!Files.exists(logPath)) {
-                Files.createFile(logPath);
-                log("SYSTEM", "AUDIT_LOG_INITIALIZED", "Audit logging system started");
-            }
+            opened = new K2530341AuditSegments(logPath, binary);
         } catch (IOException e) {
             System.err.println("Failed to initialize audit log: " + e.getMessage());
         }
+        segments = opened;
+        codec = opened == null ? null : opened.getCodec();
+        if (created && segments != null) {
+            log("SYSTEM", "AUDIT_LOG_INITIALIZED", "Audit logging system started");
+        }
     }
 
     
@@ -34,7 +156,15 @@ public class K2530341AuditLogger {
      
     public static synchronized K2530341AuditLogger getInstance() {
         if (instance == null) {
-            instance = new K2530341AuditLogger();
+            instance = new K2530341AuditLogger(
+                "binary".equalsIgnoreCase(System.getProperty("ecoride.audit.format", "text")));
+            if ("async".equalsIgnoreCase(System.getProperty("ecoride.audit", "sync"))) {
+                BackPressure policy = BackPressure.valueOf(
+                    System.getProperty("ecoride.audit.policy", "block").toUpperCase());
+                instance.enableAsync(DEFAULT_CAPACITY, policy, DEFAULT_FLUSH_BYTES, DEFAULT_FLUSH_INTERVAL_MILLIS);
+            }
+            // Saves the active segment's postings so the next start does not rebuild them
+            Runtime.getRuntime().addShutdownHook(new Thread(instance::close, "audit-log-close"));
         }
         return instance;
     }
@@ -44,11 +174,34 @@ public class K2530341AuditLogger {
      * Log a system action
      */
     public void log(String user, String action, String details) {
-        String timestamp = LocalDateTime.now().format(TIMESTAMP_FORMAT);
-        String logEntry = String.format("[%s] USER:%s ACTION:%s DETAILS:%s",
-            timestamp, user, action, details);
+        log(user, action, K2530341AuditCodec.REF_NONE, null, K2530341AuditCodec.NO_AMOUNT, details);
+    }
 
-        writeToFile(logEntry);
+    private void log(String user, String action, int refKind, String refId, long amountCents, String details) {
+        long now = System.currentTimeMillis();
+        if (async) {
+            offer(now, user, action, refKind, refId, amountCents, details);
+        } else {
+            writeEntry(new Event(now, user, action, refKind, refId, amountCents, details));
+        }
+    }
+
+    private void writeEntry(Event event) {
+        if (segments == null) return;
+        try {
+            if (codec != null) {
+                K2530341AuditCodec.Record record = new K2530341AuditCodec.Record();
+                codec.encode(event, record);
+                segments.append(ByteBuffer.wrap(record.bytes, record.start, record.length()), event.timeMillis);
+            } else {
+                StringBuilder logEntry = new StringBuilder(96);
+                K2530341AuditCodec.render(logEntry, K2530341AuditCodec.formatTime(event.timeMillis), event);
+                logEntry.append('\n');
+                segments.append(ByteBuffer.wrap(logEntry.toString().getBytes(StandardCharsets.UTF_8)), event.timeMillis);
+            }
+        } catch (IOException e) {
+            System.err.println("Failed to write to audit log: " + e.getMessage());
+        }
     }
 
     /**
@@ -63,60 +216,320 @@ public class K2530341AuditLogger {
      * Log booking operations
      */
     public void logBookingOperation(String user, String operation, String bookingId, String details) {
-        log(user, "BOOKING_" + operation.toUpperCase(),
-            String.format("BookingID:%s %s", bookingId, details));
+        log(user, "BOOKING_" + operation.toUpperCase(), K2530341AuditCodec.REF_BOOKING, bookingId,
+            K2530341AuditCodec.NO_AMOUNT, details);
+    }
+
+    /**
+     * Log a payment or charge for a booking, with the amount in LKR
+     */
+    public void logPayment(String user, String action, String bookingId, double amount, String details) {
+        log(user, action, K2530341AuditCodec.REF_BOOKING, bookingId, Math.round(amount * 100), details);
+    }
+
+    /**
+     * Log a notification that was sent (or given up) by the outbox, for the booking if there is one
+     */
+    public void logNotification(String action, String bookingId, String details) {
+        log("SYSTEM", action, bookingId == null ? K2530341AuditCodec.REF_NONE : K2530341AuditCodec.REF_BOOKING,
+            bookingId, K2530341AuditCodec.NO_AMOUNT, details);
     }
 
     /**
      * Log vehicle operations
      */
     public void logVehicleOperation(String user, String operation, String vehicleId, String details) {
-        log(user, "VEHICLE_" + operation.toUpperCase(),
-            String.format("VehicleID:%s %s", vehicleId, details));
+        log(user, "VEHICLE_" + operation.toUpperCase(), K2530341AuditCodec.REF_VEHICLE, vehicleId,
+            K2530341AuditCodec.NO_AMOUNT, details);
     }
 
     /**
      * Log customer operations
      */
     public void logCustomerOperation(String user, String operation, String customerNic, String details) {
-        log(user, "CUSTOMER_" + operation.toUpperCase(),
-            String.format("CustomerNIC:%s %s", customerNic, details));
+        log(user, "CUSTOMER_" + operation.toUpperCase(), K2530341AuditCodec.REF_CUSTOMER, customerNic,
+            K2530341AuditCodec.NO_AMOUNT, details);
     }
 
     /**
      * Log security violations
      */
     public void logSecurityViolation(String user, String violation, String details) {
-        log(user, "SECURITY_VIOLATION", String.format("%s: %s", violation, details));
+        log(user, "SECURITY_VIOLATION", violation + ": " + details);
     }
 
     /**
      * Log system errors
      */
     public void logSystemError(String error, String details) {
-        log("SYSTEM", "ERROR", String.format("%s: %s", error, details));
+        log("SYSTEM", "ERROR", error + ": " + details);
+    }
+
+    // ------------ Async mode ------------
+    /**
+     * Switch to asynchronous logging through a ring buffer of the given capacity (rounded up to a
+     * power of two). The writer thread writes once flushBytes are buffered or flushIntervalMillis
+     * have passed since the last write.
+     */
+    public synchronized void enableAsync(int capacity, BackPressure policy, int flushBytes, long flushIntervalMillis) {
+        disableAsync();
+        if (segments == null) return; // Nowhere to write; stay synchronous
+        int size = Integer.highestOneBit(Math.max(2, capacity - 1)) << 1;
+        slots = new Event[size];
+        sequences = new AtomicLongArray(size);
+        for (int i = 0; i < size; i++) {
+            slots[i] = new Event();
+            sequences.set(i, i);
+        }
+        mask = size - 1;
+        claimed.set(0);
+        consumed.set(0);
+        written = 0;
+        this.policy = policy;
+        this.flushBytes = Math.max(1024, flushBytes);
+        this.flushIntervalNanos = TimeUnit.MILLISECONDS.toNanos(Math.max(1, flushIntervalMillis));
+
+        writerRunning = true;
+        async = true;
+        writer = new Thread(this::runWriter, "ecoride-audit-writer");
+        writer.setDaemon(true);
+        writer.start();
+        if (!shutdownHookRegistered) {
+            Runtime.getRuntime().addShutdownHook(new Thread(this::disableAsync, "ecoride-audit-shutdown"));
+            shutdownHookRegistered = true;
+        }
     }
 
     /**
-     * Write log entry to file
+     * Write out everything still in the ring buffer and go back to synchronous logging.
      */
-    private void writeToFile(String logEntry) {
+    public synchronized void disableAsync() {
+        if (writer == null) return;
+        async = false;
+        writerRunning = false;
+        LockSupport.unpark(writer);
         try {
-            Files.write(Paths.get(LOG_FILE), (logEntry + "\n").getBytes(),
-                StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+            writer.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        writer = null;
+    }
+
+    public void setBackPressure(BackPressure policy, int sampleEvery) {
+        this.policy = policy;
+        this.sampleEvery = Math.max(1, sampleEvery);
+    }
+
+    public boolean isAsync() {
+        return async;
+    }
+
+    /**
+     * Wait until every event logged so far has been written to the file.
+     */
+    public void flush() {
+        Thread w = writer;
+        if (!async || w == null) return;
+        long target = claimed.get();
+        flushWaiters.incrementAndGet();
+        try {
+            LockSupport.unpark(w);
+            while (written < target && w.isAlive()) {
+                LockSupport.parkNanos(TimeUnit.MICROSECONDS.toNanos(100));
+            }
+        } finally {
+            flushWaiters.decrementAndGet();
+        }
+    }
+
+    // Events discarded by the DROP policy or because the ring was full
+    public long getDroppedCount() {
+        return dropped.sum();
+    }
+
+    public String getStats() {
+        StringBuilder sb = new StringBuilder();
+        sb.append("=== AUDIT LOG STATS ===\n");
+        sb.append("Mode: ").append(async ? "ASYNC (" + policy + ")" : "SYNC").append("\n");
+        if (slots != null) {
+            long queued = claimed.get() - consumed.get();
+            sb.append(String.format("Ring buffer: %d slots, %d queued\n", slots.length, queued));
+        }
+        sb.append(String.format("Events: %d written, %d dropped, %d sampled out, %d callers blocked\n",
+            written, dropped.sum(), sampledOut.sum(), blockedCalls.sum()));
+        sb.append(String.format("Writes: %d batches, %d bytes\n", batchesWritten, bytesWritten));
+        if (segments != null) {
+            sb.append(String.format("Segments: %d, %d bytes in total\n", segments.getSegmentCount(), segments.getTotalBytes()));
+        }
+        return sb.toString();
+    }
+
+    // Copy the event into a ring slot, or drop it as the back-pressure policy says
+    private void offer(long timeMillis, String user, String action, int refKind, String refId, long amountCents,
+            String details) {
+        Thread w = writer;
+        if (w == null) { // Async mode was switched off meanwhile
+            writeEntry(new Event(timeMillis, user, action, refKind, refId, amountCents, details));
+            return;
+        }
+        Event[] ring = slots;
+        AtomicLongArray seqs = sequences;
+        if (policy == BackPressure.SAMPLE && claimed.get() - consumed.get() >= ring.length - (ring.length >> 2)
+                && sampleCounter.incrementAndGet() % sampleEvery != 0) {
+            sampledOut.increment();
+            return;
+        }
+        boolean counted = false;
+        int spins = 0;
+        while (true) {
+            long position = claimed.get();
+            int index = (int) position & mask;
+            long diff = seqs.get(index) - position;
+            if (diff == 0) {
+                if (claimed.compareAndSet(position, position + 1)) {
+                    ring[index].set(timeMillis, user, action, refKind, refId, amountCents, details);
+                    seqs.set(index, position + 1); // Publish to the writer
+                    return;
+                }
+            } else if (diff < 0) {
+                // Full: the writer has not yet freed the slot from the previous lap
+                if (policy != BackPressure.BLOCK || !w.isAlive()) {
+                    dropped.increment();
+                    return;
+                }
+                if (!counted) {
+                    blockedCalls.increment();
+                    counted = true;
+                }
+                if (++spins < 100) {
+                    Thread.onSpinWait();
+                } else if (spins < 200) {
+                    Thread.yield(); // Lets the writer run when the cores are busy
+                } else {
+                    LockSupport.parkNanos(TimeUnit.MICROSECONDS.toNanos(50));
+                }
+            }
+            // diff > 0: another producer claimed this position first; retry with the next one
+        }
+    }
+
+    private void runWriter() {
+        ByteBuffer buffer = ByteBuffer.allocateDirect(flushBytes + 4096);
+        K2530341AuditCodec.Record record = new K2530341AuditCodec.Record(); // The current entry's bytes
+        StringBuilder line = new StringBuilder(256);
+        long cachedSecond = Long.MIN_VALUE;
+        String cachedTimestamp = "";
+        long lastWrite = System.nanoTime();
+        long[] bufferStartMillis = {0}; // Time of the first entry in the buffer
+
+        try {
+            while (true) {
+                long position = consumed.get();
+                int index = (int) position & mask;
+                if (sequences.get(index) == position + 1) {
+                    Event event = slots[index];
+                    long timeMillis = event.timeMillis;
+                    if (codec != null) {
+                        codec.encode(event, record);
+                    } else {
+                        long second = Math.floorDiv(timeMillis, 1000);
+                        if (second != cachedSecond) {
+                            cachedSecond = second;
+                            cachedTimestamp = K2530341AuditCodec.formatTime(timeMillis);
+                        }
+                        line.setLength(0);
+                        K2530341AuditCodec.render(line, cachedTimestamp, event);
+                        line.append('\n');
+                        toUtf8(line, record);
+                    }
+                    event.user = event.action = event.refId = event.details = null;
+                    sequences.set(index, position + slots.length); // Free the slot for the next lap
+                    consumed.set(position + 1);
+
+                    if (buffer.position() == 0) bufferStartMillis[0] = timeMillis;
+                    put(record, timeMillis, buffer, bufferStartMillis);
+                    if (buffer.position() >= flushBytes) {
+                        writeBuffer(buffer, bufferStartMillis[0], position + 1);
+                        lastWrite = System.nanoTime();
+                    }
+                    continue;
+                }
+
+                // Nothing to read: write what is buffered if it is due, otherwise wait
+                long now = System.nanoTime();
+                if (buffer.position() > 0 && (flushWaiters.get() > 0 || !writerRunning
+                        || now - lastWrite >= flushIntervalNanos)) {
+                    writeBuffer(buffer, bufferStartMillis[0], position);
+                    lastWrite = now;
+                } else if (buffer.position() == 0) {
+                    written = position;
+                }
+                if (!writerRunning && claimed.get() == position) break;
+                if (flushWaiters.get() == 0) LockSupport.parkNanos(IDLE_PARK_NANOS);
+            }
         } catch (IOException e) {
-            System.err.println("Failed to write to audit log: " + e.getMessage());
+            System.err.println("Audit log writer failed: " + e.getMessage());
+            async = false;
+        }
+    }
+
+    // The line as UTF-8 in the record, copying ASCII characters directly
+    private static void toUtf8(StringBuilder line, K2530341AuditCodec.Record record) {
+        int length = line.length();
+        if (record.bytes.length < length) record.bytes = new byte[Math.max(length, record.bytes.length * 2)];
+        byte[] bytes = record.bytes;
+        record.start = 0;
+        for (int i = 0; i < length; i++) {
+            char ch = line.charAt(i);
+            if (ch >= 0x80) { // Rare: let the JDK encode the whole line
+                byte[] encoded = line.toString().getBytes(StandardCharsets.UTF_8);
+                if (bytes.length < encoded.length) record.bytes = encoded;
+                else System.arraycopy(encoded, 0, bytes, 0, encoded.length);
+                record.end = encoded.length;
+                return;
+            }
+            bytes[i] = (byte) ch;
         }
+        record.end = length;
+    }
+
+    // Add the entry to the buffer, writing the buffer out first if it does not fit
+    private void put(K2530341AuditCodec.Record record, long timeMillis, ByteBuffer buffer,
+            long[] bufferStartMillis) throws IOException {
+        int count = record.length();
+        if (buffer.remaining() < count) {
+            writeBuffer(buffer, bufferStartMillis[0], written);
+            bufferStartMillis[0] = timeMillis;
+        }
+        if (buffer.remaining() < count) { // Longer than the whole buffer
+            segments.append(ByteBuffer.wrap(record.bytes, record.start, count), timeMillis);
+            bytesWritten += count;
+        } else {
+            buffer.put(record.bytes, record.start, count);
+        }
+    }
+
+    // Write the buffered entries; everything before upTo is then in the file
+    private void writeBuffer(ByteBuffer buffer, long firstMillis, long upTo) throws IOException {
+        buffer.flip();
+        long bytes = buffer.remaining();
+        if (bytes > 0) segments.append(buffer, firstMillis);
+        buffer.clear();
+        batchesWritten++;
+        bytesWritten += bytes;
+        written = upTo;
     }
 
     /**
      * Get recent log entries
+     * Reads backwards from the end of the newest segment.
      */
     public String getRecentLogs(int lines) {
+        flush();
+        if (segments == null) return "Error reading log file: audit log is not open";
         try {
-            return Files.lines(Paths.get(LOG_FILE))
-                .skip(Math.max(0, Files.lines(Paths.get(LOG_FILE)).count() - lines))
-                .reduce("", (a, b) -> a + "\n" + b);
+            return joinLines(segments.tail(lines));
         } catch (IOException e) {
             return "Error reading log file: " + e.getMessage();
         }
@@ -124,30 +537,78 @@ public class K2530341AuditLogger {
 
     /**
      * Search logs for specific user actions
+     * Uses the user postings of each segment, so only that user's lines are read.
      */
     public String searchUserLogs(String username) {
-        try {
-            return Files.lines(Paths.get(LOG_FILE))
-                .filter(line -> line.contains("USER:" + username))
-                .reduce("", (a, b) -> a + "\n" + b);
-        } catch (IOException e) {
-            return "Error searching log file: " + e.getMessage();
+        StringBuilder result = new StringBuilder();
+        try (Stream<String> lines = search(username, null, null, null)) {
+            lines.forEach(line -> result.append('\n').append(line));
         }
+        return result.toString();
+    }
+
+    /**
+     * Entries matching every non-null criterion, oldest first, streamed from the segment files.
+     * user is matched exactly, actionPrefix against the start of the action ("BOOKING_" or
+     * "BOOKING_*"), and from/to bound the entry time inclusively.
+     * Close the stream (try-with-resources) when done with it.
+     */
+    public Stream<String> search(String user, String actionPrefix, LocalDateTime from, LocalDateTime to) {
+        flush();
+        if (segments == null) {
+            System.err.println("Error searching log file: audit log is not open");
+            return Stream.empty();
+        }
+        return segments.search(user, actionPrefix, from, to);
+    }
+
+    /**
+     * Like search(), as structured events with their typed fields (times to the second).
+     */
+    public Stream<Event> searchEvents(String user, String actionPrefix, LocalDateTime from, LocalDateTime to) {
+        return search(user, actionPrefix, from, to).map(K2530341AuditCodec::parse).filter(Objects::nonNull);
+    }
+
+    // The active segment file: audit.log, or audit_events.bin in binary mode
+    public Path getLogFile() {
+        return logFile;
     }
 
     /**
      * Get logs within date range
+     * Only the segments and index blocks overlapping the range are read.
      */
     public String getLogsByDateRange(String startDate, String endDate) {
+        flush();
+        if (segments == null) return "Error filtering log file: audit log is not open";
         try {
-            return Files.lines(Paths.get(LOG_FILE))
-                .filter(line -> {
-                    String date = line.substring(1, 11); // Extract date from [yyyy-MM-dd
-                    return date.compareTo(startDate) >= 0 && date.compareTo(endDate) <= 0;
-                })
-                .reduce("", (a, b) -> a + "\n" + b);
+            return joinLines(segments.linesBetween(LocalDate.parse(startDate), LocalDate.parse(endDate)));
+        } catch (DateTimeParseException e) {
+            return "Error filtering log file: dates must be in yyyy-MM-dd format";
         } catch (IOException e) {
             return "Error filtering log file: " + e.getMessage();
         }
     }
+
+    /**
+     * Write out pending events and close the segment files; later entries are not logged.
+     */
+    public void close() {
+        disableAsync();
+        if (segments != null) segments.close();
+    }
+
+    // Roll the active audit.log segment once it reaches this size (entries of a new day always start a new one)
+    public void setSegmentSize(long bytes) {
+        if (segments != null) segments.setMaxSegmentBytes(bytes);
+    }
+
+    // Every line preceded by a newline, as the results have always been shaped
+    private static String joinLines(List<String> lines) {
+        StringBuilder sb = new StringBuilder();
+        for (String line : lines) {
+            sb.append('\n').append(line);
+        }
+        return sb.toString();
+    }
 }
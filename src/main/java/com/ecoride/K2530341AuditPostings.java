@@ -0,0 +1,329 @@
+package com.ecoride;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Inverted index of one audit log segment: for every user and every action, the byte offsets
+ * of the lines that mention it, in file order.
+ * The active segment's postings are built in memory as entries are appended; when the segment is
+ * rolled (or the log closed) they are written to a .post file next to it:
+ *   int magic, long bytes covered, int dictionary length, then the dictionary: int term count and
+ *   per term: byte kind ('U' user, 'A' action), UTF term, long data position, int postings count;
+ *   then the postings of each term as variable-length deltas between offsets.
+ * Readers load the term dictionary and only the postings lists a query needs.
+ * Not thread-safe: K2530341AuditSegments guards the in-memory postings with its lock.
+ * Demonstrates data structures: inverted index; algorithms: delta + varint encoding.
+ */
+public class K2530341AuditPostings {
+    private static final int MAGIC = 0x41505354; // "APST"
+    static final byte USER = 'U';
+    static final byte ACTION = 'A';
+    private static final byte[] USER_MARK = "] USER:".getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] ACTION_MARK = " ACTION:".getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] DETAILS_MARK = " DETAILS:".getBytes(StandardCharsets.US_ASCII);
+    private static final int USER_MARK_AT = 20; // "[yyyy-MM-dd HH:mm:ss" precedes it
+
+    // Growable list of ascending offsets
+    private static final class Offsets {
+        long[] values = new long[8];
+        int count;
+
+        void add(long offset) {
+            if (count == values.length) values = Arrays.copyOf(values, count * 2);
+            values[count++] = offset;
+        }
+    }
+
+    private final Map<String, Offsets> users = new HashMap<>();
+    private final Map<String, Offsets> actions = new HashMap<>();
+
+    /**
+     * Index one line: bytes[start, end) without the newline, starting at the given offset of the segment.
+     * Lines that do not have the "[timestamp] USER:... ACTION:... DETAILS:" shape are skipped.
+     */
+    public void addLine(byte[] bytes, int start, int end, long offset) {
+        int userStart = start + USER_MARK_AT;
+        if (!matchesAt(bytes, userStart, end, USER_MARK)) return;
+        userStart += USER_MARK.length;
+        int actionMark = indexOf(bytes, userStart, end, ACTION_MARK);
+        if (actionMark < 0) return;
+        int actionStart = actionMark + ACTION_MARK.length;
+        int detailsMark = indexOf(bytes, actionStart, end, DETAILS_MARK);
+        if (detailsMark < 0) return;
+        add(new String(bytes, userStart, actionMark - userStart, StandardCharsets.UTF_8),
+            new String(bytes, actionStart, detailsMark - actionStart, StandardCharsets.UTF_8), offset);
+    }
+
+    /**
+     * Index one entry by its user and action.
+     */
+    public void add(String user, String action, long offset) {
+        add(users, user, offset);
+        add(actions, action, offset);
+    }
+
+    private static void add(Map<String, Offsets> terms, String term, long offset) {
+        terms.computeIfAbsent(term, t -> new Offsets()).add(offset);
+    }
+
+    public void clear() {
+        users.clear();
+        actions.clear();
+    }
+
+    /**
+     * Offsets of the user's lines, as a copy.
+     */
+    public long[] user(String user) {
+        Offsets offsets = users.get(user);
+        return offsets == null ? new long[0] : Arrays.copyOf(offsets.values, offsets.count);
+    }
+
+    /**
+     * Offsets of the lines whose action starts with the prefix, ascending and without duplicates.
+     */
+    public long[] actionPrefix(String prefix) {
+        List<long[]> lists = new ArrayList<>();
+        for (Map.Entry<String, Offsets> entry : actions.entrySet()) {
+            if (entry.getKey().startsWith(prefix)) {
+                lists.add(Arrays.copyOf(entry.getValue().values, entry.getValue().count));
+            }
+        }
+        return union(lists);
+    }
+
+    /**
+     * Write the postings to the file, replacing it; coveredBytes is the segment size they describe.
+     */
+    public void write(Path file, long coveredBytes) throws IOException {
+        // Encode the postings first, so the dictionary can record where each list starts
+        TreeMap<String, Offsets> sortedUsers = new TreeMap<>(users);
+        TreeMap<String, Offsets> sortedActions = new TreeMap<>(actions);
+        ByteArrayOutputStream data = new ByteArrayOutputStream();
+        List<Object[]> dictionary = new ArrayList<>();
+        for (Map.Entry<String, Offsets> entry : sortedUsers.entrySet()) {
+            dictionary.add(new Object[]{USER, entry.getKey(), (long) data.size(), entry.getValue().count});
+            writeDeltas(data, entry.getValue());
+        }
+        for (Map.Entry<String, Offsets> entry : sortedActions.entrySet()) {
+            dictionary.add(new Object[]{ACTION, entry.getKey(), (long) data.size(), entry.getValue().count});
+            writeDeltas(data, entry.getValue());
+        }
+
+        ByteArrayOutputStream header = new ByteArrayOutputStream();
+        DataOutputStream dict = new DataOutputStream(header);
+        dict.writeInt(dictionary.size());
+        for (Object[] term : dictionary) {
+            dict.writeByte((Byte) term[0]);
+            dict.writeUTF((String) term[1]);
+            dict.writeLong((Long) term[2]);
+            dict.writeInt((Integer) term[3]);
+        }
+
+        Path temp = file.resolveSibling(file.getFileName() + ".tmp");
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(temp), 64 * 1024))) {
+            out.writeInt(MAGIC);
+            out.writeLong(coveredBytes);
+            out.writeInt(header.size());
+            header.writeTo(out);
+            data.writeTo(out);
+        }
+        Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    private static void writeDeltas(OutputStream out, Offsets offsets) throws IOException {
+        long previous = 0;
+        for (int i = 0; i < offsets.count; i++) {
+            long delta = offsets.values[i] - previous;
+            previous = offsets.values[i];
+            while ((delta & ~0x7FL) != 0) {
+                out.write((int) (delta & 0x7F) | 0x80);
+                delta >>>= 7;
+            }
+            out.write((int) delta);
+        }
+    }
+
+    /**
+     * Load a postings file completely, to continue appending to it. Returns null if the file is
+     * missing, unreadable or does not cover exactly expectedBytes of the segment.
+     */
+    public static K2530341AuditPostings load(Path file, long expectedBytes) {
+        Reader reader = Reader.open(file);
+        if (reader == null || reader.coveredBytes != expectedBytes) return null;
+        K2530341AuditPostings postings = new K2530341AuditPostings();
+        try {
+            for (int i = 0; i < reader.terms.length; i++) {
+                long[] values = reader.read(i);
+                Offsets offsets = new Offsets();
+                offsets.values = values.length > 0 ? values : new long[8];
+                offsets.count = values.length;
+                (reader.kinds[i] == USER ? postings.users : postings.actions).put(reader.terms[i], offsets);
+            }
+        } catch (IOException e) {
+            return null;
+        }
+        return postings;
+    }
+
+    // ------------ Reading ------------
+    /**
+     * The dictionary of a postings file; postings lists are read on demand.
+     */
+    public static final class Reader {
+        final Path file;
+        final long coveredBytes;
+        final byte[] kinds;
+        final String[] terms;
+        final long[] positions;
+        final int[] counts;
+        final long dataStart;
+
+        private Reader(Path file, long coveredBytes, byte[] kinds, String[] terms, long[] positions, int[] counts,
+                long dataStart) {
+            this.file = file;
+            this.coveredBytes = coveredBytes;
+            this.kinds = kinds;
+            this.terms = terms;
+            this.positions = positions;
+            this.counts = counts;
+            this.dataStart = dataStart;
+        }
+
+        // The dictionary of the file, or null if it is missing or not a postings file
+        public static Reader open(Path file) {
+            if (!Files.exists(file)) return null;
+            try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+                DataInputStream in = new DataInputStream(new BufferedInputStream(Channels.newInputStream(channel)));
+                if (in.readInt() != MAGIC) return null;
+                long covered = in.readLong();
+                long dataStart = 16L + in.readInt();
+                int count = in.readInt();
+                byte[] kinds = new byte[count];
+                String[] terms = new String[count];
+                long[] positions = new long[count];
+                int[] counts = new int[count];
+                for (int i = 0; i < count; i++) {
+                    kinds[i] = in.readByte();
+                    terms[i] = in.readUTF();
+                    positions[i] = in.readLong();
+                    counts[i] = in.readInt();
+                }
+                return new Reader(file, covered, kinds, terms, positions, counts, dataStart);
+            } catch (IOException e) {
+                return null;
+            }
+        }
+
+        public long[] user(String user) throws IOException {
+            for (int i = 0; i < terms.length; i++) {
+                if (kinds[i] == USER && terms[i].equals(user)) return read(i);
+            }
+            return new long[0];
+        }
+
+        public long[] actionPrefix(String prefix) throws IOException {
+            List<long[]> lists = new ArrayList<>();
+            for (int i = 0; i < terms.length; i++) {
+                if (kinds[i] == ACTION && terms[i].startsWith(prefix)) lists.add(read(i));
+            }
+            return union(lists);
+        }
+
+        // Decode the postings list of dictionary entry i
+        long[] read(int i) throws IOException {
+            long[] values = new long[counts[i]];
+            try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+                channel.position(dataStart + positions[i]);
+                InputStream in = new BufferedInputStream(Channels.newInputStream(channel), 16 * 1024);
+                long previous = 0;
+                for (int n = 0; n < values.length; n++) {
+                    long delta = 0;
+                    int shift = 0;
+                    int b;
+                    do {
+                        b = in.read();
+                        if (b < 0) throw new IOException("Truncated postings file " + file);
+                        delta |= (long) (b & 0x7F) << shift;
+                        shift += 7;
+                    } while ((b & 0x80) != 0);
+                    previous += delta;
+                    values[n] = previous;
+                }
+            }
+            return values;
+        }
+    }
+
+    // ------------ Sorted offset lists ------------
+    // Merge ascending lists into one ascending list without duplicates
+    static long[] union(List<long[]> lists) {
+        if (lists.isEmpty()) return new long[0];
+        if (lists.size() == 1) return lists.get(0);
+        int total = 0;
+        for (long[] list : lists) total += list.length;
+        long[] all = new long[total];
+        int n = 0;
+        for (long[] list : lists) {
+            System.arraycopy(list, 0, all, n, list.length);
+            n += list.length;
+        }
+        Arrays.sort(all);
+        int distinct = 0;
+        for (int i = 0; i < all.length; i++) {
+            if (i == 0 || all[i] != all[i - 1]) all[distinct++] = all[i];
+        }
+        return Arrays.copyOf(all, distinct);
+    }
+
+    // Offsets present in both ascending lists
+    static long[] intersect(long[] a, long[] b) {
+        long[] result = new long[Math.min(a.length, b.length)];
+        int i = 0, j = 0, n = 0;
+        while (i < a.length && j < b.length) {
+            if (a[i] < b[j]) i++;
+            else if (a[i] > b[j]) j++;
+            else {
+                result[n++] = a[i];
+                i++;
+                j++;
+            }
+        }
+        return Arrays.copyOf(result, n);
+    }
+
+    private static boolean matchesAt(byte[] bytes, int at, int end, byte[] pattern) {
+        if (at < 0 || at + pattern.length > end) return false;
+        for (int i = 0; i < pattern.length; i++) {
+            if (bytes[at + i] != pattern[i]) return false;
+        }
+        return true;
+    }
+
+    private static int indexOf(byte[] bytes, int from, int end, byte[] pattern) {
+        for (int i = from; i + pattern.length <= end; i++) {
+            if (matchesAt(bytes, i, end, pattern)) return i;
+        }
+        return -1;
+    }
+}
@@ -0,0 +1,805 @@
+package com.ecoride;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * The audit log as a series of segment files: the active segment (audit.log) and rolled
+ * segments audit.000001.log, audit.000002.log, ... (oldest first). Segments hold text lines, or
+ * binary records (K2530341AuditCodec) when opened in binary mode; readers always get text lines.
+ * The active segment is rolled
+ * when it reaches the size limit or when the first entry of a new day arrives.
+ * Each segment has a sparse sidecar index (audit.log.idx, audit.000001.idx) holding one
+ * (timestamp, byte offset) pair per 64 KB block, so a date range query opens only the segments
+ * that overlap the range and seeks to the block before its start, and the last N lines are read
+ * backwards from the end of the newest segment.
+ * Index entries are binary: the epoch millis of the first entry of a block, then its offset.
+ * A missing or inconsistent index is rebuilt from the segment's entries.
+ * Each segment also has a postings file (audit.log.post, audit.000001.post; see
+ * K2530341AuditPostings) so searches by user or action read only the matching lines.
+ * Thread-safe: appends and rolls are synchronized; readers work on a copy of the segment list.
+ * Demonstrates algorithms: binary search over a sparse index; file I/O: positioned and backward reads.
+ */
+public class K2530341AuditSegments {
+    static final int INDEX_BLOCK_BYTES = 64 * 1024;
+    private static final long DEFAULT_MAX_SEGMENT_BYTES = 64L * 1024 * 1024;
+    private static final int TAIL_CHUNK_BYTES = 16 * 1024;
+    private static final DateTimeFormatter LINE_TIMESTAMP = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
+
+    /**
+     * Visits one entry of a segment: bytes[start, end) is the line without its newline, or the
+     * record without its length prefix; offset is where the entry starts in the file.
+     */
+    interface LineVisitor {
+        void visit(byte[] bytes, int start, int end, long offset);
+    }
+
+    // One segment file with its index files and the time of its first entry (Long.MAX_VALUE while empty)
+    private static final class Segment {
+        final Path log;
+        final Path index;
+        final Path postings;
+        final long firstMillis;
+
+        Segment(Path log, Path index, Path postings, long firstMillis) {
+            this.log = log;
+            this.index = index;
+            this.postings = postings;
+            this.firstMillis = firstMillis;
+        }
+    }
+
+    private final Path activeLog;
+    private final Path activeIndex;
+    private final Path activePostingsFile;
+    private final String baseName;  // File name of the active segment without its extension
+    private final String extension; // ".log", or ".bin" for binary records
+    private final K2530341AuditCodec codec; // Null for text segments
+    private final LineVisitor indexer = this::indexEntry;
+    private final ZoneId zone = ZoneId.systemDefault();
+    private final List<Segment> rolled = new ArrayList<>();
+    private int nextSequence = 1;
+    private long maxSegmentBytes = DEFAULT_MAX_SEGMENT_BYTES;
+
+    // Active segment state
+    private FileChannel channel;
+    private FileChannel indexChannel;
+    private long size;
+    private long lastIndexedOffset = -1;
+    private long firstMillis = Long.MAX_VALUE;
+    private long dayEndMillis = Long.MAX_VALUE; // Start of the day after the active segment's first entry
+    private final ByteBuffer indexEntry = ByteBuffer.allocate(16);
+    private K2530341AuditPostings postings;
+    private byte[] scratch = new byte[0]; // Heap copy of appended data that is not array-backed
+
+    public K2530341AuditSegments(Path activeLog, boolean binary) throws IOException {
+        this.activeLog = activeLog.toAbsolutePath();
+        this.activeIndex = this.activeLog.resolveSibling(this.activeLog.getFileName() + ".idx");
+        this.activePostingsFile = this.activeLog.resolveSibling(this.activeLog.getFileName() + ".post");
+        String name = this.activeLog.getFileName().toString();
+        int dot = name.lastIndexOf('.');
+        this.baseName = dot > 0 ? name.substring(0, dot) : name;
+        this.extension = dot > 0 ? name.substring(dot) : "";
+        this.codec = binary ? new K2530341AuditCodec(this.activeLog.resolveSibling(baseName + ".terms")) : null;
+        loadRolledSegments();
+        openActive();
+    }
+
+    public synchronized void setMaxSegmentBytes(long maxSegmentBytes) {
+        this.maxSegmentBytes = Math.max(INDEX_BLOCK_BYTES, maxSegmentBytes);
+    }
+
+    /**
+     * Append whole lines. firstMillis is the timestamp of the first line; it decides whether the
+     * active segment is rolled first and is recorded if the write starts a new index block.
+     */
+    public synchronized void append(ByteBuffer data, long firstMillis) throws IOException {
+        if (channel == null) throw new IOException("audit log is closed");
+        if (size > 0 && (size >= maxSegmentBytes || firstMillis >= dayEndMillis)) {
+            roll();
+        }
+        if (lastIndexedOffset < 0 || size - lastIndexedOffset >= INDEX_BLOCK_BYTES) {
+            writeIndexEntry(firstMillis, size);
+        }
+        indexLines(data);
+        while (data.hasRemaining()) {
+            size += channel.write(data);
+        }
+    }
+
+    public synchronized void close() {
+        try {
+            if (channel != null) {
+                postings.write(activePostingsFile, size); // Saves rebuilding them from the text on the next start
+                channel.close();
+            }
+            if (indexChannel != null) indexChannel.close();
+            if (codec != null) codec.close();
+        } catch (IOException e) {
+            System.err.println("Error closing audit log: " + e.getMessage());
+        }
+        channel = null;
+        indexChannel = null;
+    }
+
+    // The codec of binary segments, or null for text
+    K2530341AuditCodec getCodec() {
+        return codec;
+    }
+
+    public synchronized int getSegmentCount() {
+        return rolled.size() + 1;
+    }
+
+    /**
+     * Total size of all segments in bytes.
+     */
+    public synchronized long getTotalBytes() {
+        long total = size;
+        for (Segment segment : rolled) {
+            try {
+                total += Files.size(segment.log);
+            } catch (IOException e) {
+                // Removed by hand; nothing to count
+            }
+        }
+        return total;
+    }
+
+    /**
+     * The segment files, oldest first.
+     */
+    public List<Path> segmentFiles() {
+        List<Path> files = new ArrayList<>();
+        for (Segment segment : snapshot()) files.add(segment.log);
+        return files;
+    }
+
+    /**
+     * Lines whose date (yyyy-MM-dd) is within [from, to], oldest first.
+     */
+    public List<String> linesBetween(LocalDate from, LocalDate to) throws IOException {
+        if (from.isAfter(to)) return new ArrayList<>();
+        try (Stream<String> lines = search(null, null, from.atStartOfDay(), to.atTime(LocalTime.MAX))) {
+            return lines.collect(Collectors.toList());
+        }
+    }
+
+    /**
+     * The last count lines, oldest first, read backwards from the newest segment.
+     */
+    public List<String> tail(int count) throws IOException {
+        List<String> newestFirst = new ArrayList<>();
+        List<Segment> segments = snapshot();
+        for (int i = segments.size() - 1; i >= 0 && newestFirst.size() < count; i--) {
+            if (codec == null) {
+                readLastLines(segments.get(i).log, count - newestFirst.size(), newestFirst);
+            } else {
+                readLastRecords(segments.get(i), count - newestFirst.size(), newestFirst);
+            }
+        }
+        Collections.reverse(newestFirst);
+        return newestFirst;
+    }
+
+    /**
+     * Lines matching all given criteria, oldest first, read lazily as the stream is consumed.
+     * user must equal the entry's user; actionPrefix matches actions starting with it (a trailing
+     * '*' as in "BOOKING_*" is ignored); from and to bound the entry time, inclusive.
+     * Null criteria match everything. Close the stream to release the open segment file.
+     */
+    public Stream<String> search(String user, String actionPrefix, LocalDateTime from, LocalDateTime to) {
+        String prefix = actionPrefix != null && actionPrefix.endsWith("*")
+            ? actionPrefix.substring(0, actionPrefix.length() - 1) : actionPrefix;
+        SearchIterator iterator = new SearchIterator(user, prefix, from, to, snapshot().size());
+        return StreamSupport.stream(Spliterators.spliteratorUnknownSize(iterator,
+            Spliterator.ORDERED | Spliterator.NONNULL), false).onClose(iterator::close);
+    }
+
+    // Walks the segments of a search one at a time: candidate offsets from the postings, limited to
+    // the blocks of the time range, then each candidate line read and checked
+    private final class SearchIterator implements Iterator<String> {
+        private final String user;
+        private final String actionPrefix;
+        private final long fromMillis;
+        private final long toMillis;     // Exclusive: the second after the end of the range
+        private final String fromText;   // "yyyy-MM-dd HH:mm:ss" of the bounds, for checking lines
+        private final String toText;
+        private final int segmentCount;
+        private int nextSegment;
+        private LineReader reader;
+        private long[] candidates;       // Offsets to read, or null to read every line
+        private int nextCandidate;
+        private long position;           // Next offset when reading every line
+        private long endOffset;          // No matching line starts at or after this offset
+        private String next;
+
+        SearchIterator(String user, String actionPrefix, LocalDateTime from, LocalDateTime to, int segmentCount) {
+            this.user = user;
+            this.actionPrefix = actionPrefix;
+            this.fromMillis = from == null ? Long.MIN_VALUE : from.atZone(zone).toInstant().toEpochMilli();
+            this.toMillis = to == null ? Long.MAX_VALUE : to.plusSeconds(1).atZone(zone).toInstant().toEpochMilli();
+            this.fromText = from == null ? null : from.format(LINE_TIMESTAMP);
+            this.toText = to == null ? null : to.format(LINE_TIMESTAMP);
+            this.segmentCount = segmentCount;
+        }
+
+        @Override
+        public boolean hasNext() {
+            try {
+                while (next == null) {
+                    if (reader == null && !openNextSegment()) return false;
+                    String line = nextLine();
+                    if (line == null) {
+                        reader.close();
+                        reader = null;
+                    } else if (matches(line)) {
+                        next = line;
+                    }
+                }
+                return true;
+            } catch (IOException e) {
+                System.err.println("Error searching audit log: " + e.getMessage());
+                close();
+                return false;
+            }
+        }
+
+        @Override
+        public String next() {
+            if (!hasNext()) throw new NoSuchElementException();
+            String line = next;
+            next = null;
+            return line;
+        }
+
+        void close() {
+            if (reader != null) reader.close();
+            reader = null;
+            nextSegment = segmentCount;
+        }
+
+        // Open the next segment that overlaps the time range and has candidates; false when none is left
+        private boolean openNextSegment() throws IOException {
+            while (nextSegment < segmentCount) {
+                int number = nextSegment++;
+                Segment segment = segmentAt(number);
+                if (segment.firstMillis >= toMillis) {
+                    nextSegment = segmentCount; // This and all later segments start after the range
+                    return false;
+                }
+                if (number + 1 < segmentCount && fromMillis != Long.MIN_VALUE
+                        && segmentAt(number + 1).firstMillis <= fromMillis) {
+                    continue; // Ends before the range
+                }
+
+                long[] entries;
+                boolean active;
+                synchronized (K2530341AuditSegments.this) {
+                    // Open the file under the lock so a roll cannot rename it in between
+                    segment = segmentAt(number);
+                    active = number == rolled.size();
+                    if (!Files.exists(segment.log)) continue;
+                    reader = new LineReader(segment.log);
+                    entries = readIndex(segment.index);
+                    if (active) candidates = activeCandidates();
+                }
+                if (!active) candidates = rolledCandidates(segment);
+                long startOffset = blockBefore(entries, fromMillis);
+                endOffset = blockAfter(entries, toMillis);
+                this.position = startOffset;
+                if (candidates != null) {
+                    candidates = Arrays.copyOfRange(candidates,
+                        lowerBound(candidates, startOffset), lowerBound(candidates, endOffset));
+                    nextCandidate = 0;
+                    if (candidates.length == 0) {
+                        reader.close();
+                        reader = null;
+                        continue;
+                    }
+                }
+                return true;
+            }
+            return false;
+        }
+
+        // Offsets from the active segment's in-memory postings, or null to read every line; needs the lock
+        private long[] activeCandidates() {
+            if (user == null && actionPrefix == null) return null;
+            return combine(user == null ? null : postings.user(user),
+                actionPrefix == null ? null : postings.actionPrefix(actionPrefix));
+        }
+
+        // Offsets from a rolled segment's postings file, or null to read every line
+        private long[] rolledCandidates(Segment segment) throws IOException {
+            if (user == null && actionPrefix == null) return null;
+            long logSize = Files.size(segment.log);
+            K2530341AuditPostings.Reader index = K2530341AuditPostings.Reader.open(segment.postings);
+            if (index == null || index.coveredBytes != logSize) {
+                // Missing or stale, e.g. the segment was rolled by an older version; rebuild it once
+                buildPostings(segment.log).write(segment.postings, logSize);
+                index = K2530341AuditPostings.Reader.open(segment.postings);
+                if (index == null) throw new IOException("Cannot read " + segment.postings);
+            }
+            return combine(user == null ? null : index.user(user),
+                actionPrefix == null ? null : index.actionPrefix(actionPrefix));
+        }
+
+        private long[] combine(long[] byUser, long[] byAction) {
+            if (byUser == null) return byAction;
+            if (byAction == null) return byUser;
+            return K2530341AuditPostings.intersect(byUser, byAction);
+        }
+
+        // The next line of the current segment to check, or null when the segment is done
+        private String nextLine() throws IOException {
+            if (candidates != null) {
+                if (nextCandidate == candidates.length) return null;
+                return reader.readAt(candidates[nextCandidate++]);
+            }
+            if (position >= endOffset) return null;
+            String line = reader.readAt(position);
+            position = reader.nextOffset;
+            return line;
+        }
+
+        // The postings narrow down by term only; the line itself decides
+        private boolean matches(String line) {
+            if (line.length() < 21 || line.charAt(0) != '[') return false;
+            String time = line.substring(1, 20);
+            if (fromText != null && time.compareTo(fromText) < 0) return false;
+            if (toText != null && time.compareTo(toText) > 0) return false;
+            if (user == null && actionPrefix == null) return true;
+            int actionMark = line.indexOf(" ACTION:", 21);
+            if (actionMark < 0 || !line.startsWith("] USER:", 20)) return false;
+            if (user != null && !line.substring(27, actionMark).equals(user)) return false;
+            return actionPrefix == null || line.startsWith(actionPrefix, actionMark + 8);
+        }
+    }
+
+    // Reads the entry starting at an offset of a file as a text line, through a window of the file
+    private final class LineReader implements AutoCloseable {
+        private final FileChannel in;
+        private ByteBuffer window = ByteBuffer.allocate(64 * 1024);
+        private long windowStart;
+        private int windowLength;
+        private final int[] bounds = new int[2];
+        long nextOffset; // Offset after the last entry read
+
+        LineReader(Path file) throws IOException {
+            in = FileChannel.open(file, StandardOpenOption.READ);
+        }
+
+        // The entry at the offset, or null at the end of the file
+        String readAt(long offset) throws IOException {
+            while (true) {
+                if (offset >= windowStart && offset < windowStart + windowLength) {
+                    byte[] bytes = window.array();
+                    int from = (int) (offset - windowStart);
+                    int next = entryEnd(bytes, from, windowLength, bounds);
+                    if (next >= 0) {
+                        nextOffset = offset + (next - from);
+                        return render(bytes, bounds[0], bounds[1]);
+                    }
+                    if (from == 0 && windowLength == window.capacity()) {
+                        window = ByteBuffer.allocate(window.capacity() * 2); // Longer than the window
+                    }
+                }
+                if (!fill(offset)) return null;
+            }
+        }
+
+        // Load the window from the offset; false if that brings no bytes beyond what it already held
+        private boolean fill(long offset) throws IOException {
+            int previous = offset == windowStart ? windowLength : 0;
+            window.clear();
+            while (window.hasRemaining() && in.read(window, offset + window.position()) > 0) {
+                // Until the window is full or the file ends
+            }
+            windowStart = offset;
+            windowLength = window.position();
+            return windowLength > previous;
+        }
+
+        @Override
+        public void close() {
+            try {
+                in.close();
+            } catch (IOException e) {
+                // Read-only; nothing to lose
+            }
+        }
+    }
+
+    // ------------ Segments ------------
+    private synchronized List<Segment> snapshot() {
+        List<Segment> segments = new ArrayList<>(rolled);
+        segments.add(new Segment(activeLog, activeIndex, activePostingsFile, firstMillis));
+        return segments;
+    }
+
+    // The segment at a position of an earlier snapshot; the active segment may have been rolled since
+    private synchronized Segment segmentAt(int position) {
+        return position < rolled.size() ? rolled.get(position)
+            : new Segment(activeLog, activeIndex, activePostingsFile, firstMillis);
+    }
+
+    private void loadRolledSegments() throws IOException {
+        Path dir = activeLog.getParent();
+        List<Path> files = new ArrayList<>();
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(dir, baseName + ".[0-9]*" + extension)) {
+            for (Path file : stream) files.add(file);
+        }
+        files.sort(null); // Zero-padded sequence numbers sort by name
+        for (Path file : files) {
+            String name = file.getFileName().toString();
+            int sequence;
+            try {
+                sequence = Integer.parseInt(name.substring(baseName.length() + 1, name.length() - extension.length()));
+            } catch (NumberFormatException e) {
+                continue;
+            }
+            Path index = file.resolveSibling(baseName + "." + sequenceText(sequence) + ".idx");
+            Path postingsFile = file.resolveSibling(baseName + "." + sequenceText(sequence) + ".post");
+            long[] entries = loadOrRebuildIndex(file, index);
+            rolled.add(new Segment(file, index, postingsFile, entries.length > 0 ? entries[0] : Long.MAX_VALUE));
+            nextSequence = Math.max(nextSequence, sequence + 1);
+        }
+    }
+
+    private void openActive() throws IOException {
+        long[] entries = Files.exists(activeLog) ? loadOrRebuildIndex(activeLog, activeIndex) : new long[0];
+        channel = FileChannel.open(activeLog, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+        indexChannel = FileChannel.open(activeIndex, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+        size = channel.size();
+        postings = K2530341AuditPostings.load(activePostingsFile, size);
+        if (postings == null) {
+            postings = size > 0 ? buildPostings(activeLog) : new K2530341AuditPostings();
+        }
+        if (entries.length > 0) {
+            setFirstMillis(entries[0]);
+            lastIndexedOffset = entries[entries.length - 1];
+        } else {
+            firstMillis = Long.MAX_VALUE;
+            dayEndMillis = Long.MAX_VALUE;
+            lastIndexedOffset = -1;
+        }
+    }
+
+    // Rename the active segment and its index to the next sequence number and start a new one
+    private void roll() throws IOException {
+        channel.close();
+        indexChannel.close();
+        String sequence = sequenceText(nextSequence++);
+        Path log = activeLog.resolveSibling(baseName + "." + sequence + extension);
+        Path index = activeLog.resolveSibling(baseName + "." + sequence + ".idx");
+        Path postingsFile = activeLog.resolveSibling(baseName + "." + sequence + ".post");
+        postings.write(postingsFile, size);
+        Files.move(activeLog, log, StandardCopyOption.ATOMIC_MOVE);
+        Files.move(activeIndex, index, StandardCopyOption.ATOMIC_MOVE);
+        Files.deleteIfExists(activePostingsFile); // Left by an earlier close; describes the old active segment
+        rolled.add(new Segment(log, index, postingsFile, firstMillis));
+        openActive();
+    }
+
+    // Add the entries of data, about to be written at the end of the active segment, to its postings
+    private void indexLines(ByteBuffer data) {
+        byte[] bytes;
+        int from;
+        int to;
+        if (data.hasArray()) {
+            bytes = data.array();
+            from = data.arrayOffset() + data.position();
+            to = data.arrayOffset() + data.limit();
+        } else {
+            if (scratch.length < data.remaining()) scratch = new byte[Math.max(data.remaining(), scratch.length * 2)];
+            bytes = scratch;
+            from = 0;
+            to = data.remaining();
+            data.duplicate().get(scratch, 0, to);
+        }
+        visitEntries(bytes, from, to, size, indexer);
+    }
+
+    // Add one entry of the active segment to its postings
+    private void indexEntry(byte[] bytes, int start, int end, long offset) {
+        if (codec == null) {
+            postings.addLine(bytes, start, end, offset);
+        } else {
+            String[] userAndAction = codec.userAndAction(bytes, start, end);
+            postings.add(userAndAction[0], userAndAction[1], offset);
+        }
+    }
+
+    // Postings of a whole segment file, read from its entries; for segments without a usable postings file
+    private K2530341AuditPostings buildPostings(Path log) throws IOException {
+        K2530341AuditPostings built = new K2530341AuditPostings();
+        scanEntries(log, (bytes, start, end, offset) -> {
+            if (codec == null) {
+                built.addLine(bytes, start, end, offset);
+            } else {
+                String[] userAndAction = codec.userAndAction(bytes, start, end);
+                built.add(userAndAction[0], userAndAction[1], offset);
+            }
+        });
+        return built;
+    }
+
+    private void writeIndexEntry(long millis, long offset) throws IOException {
+        indexEntry.clear();
+        indexEntry.putLong(millis).putLong(offset).flip();
+        while (indexEntry.hasRemaining()) {
+            indexChannel.write(indexEntry);
+        }
+        lastIndexedOffset = offset;
+        if (firstMillis == Long.MAX_VALUE) setFirstMillis(millis);
+    }
+
+    private void setFirstMillis(long millis) {
+        firstMillis = millis;
+        LocalDate day = LocalDateTime.ofInstant(Instant.ofEpochMilli(millis), zone).toLocalDate();
+        dayEndMillis = day.plusDays(1).atStartOfDay(zone).toInstant().toEpochMilli();
+    }
+
+    private static String sequenceText(int sequence) {
+        return String.format("%06d", sequence);
+    }
+
+    // ------------ Index ------------
+    // Index entries as pairs [millis0, offset0, millis1, offset1, ...]
+    private static long[] readIndex(Path index) throws IOException {
+        if (!Files.exists(index)) return new long[0];
+        ByteBuffer bytes = ByteBuffer.wrap(Files.readAllBytes(index));
+        long[] entries = new long[bytes.remaining() / 16 * 2];
+        for (int i = 0; i < entries.length; i++) {
+            entries[i] = bytes.getLong();
+        }
+        return entries;
+    }
+
+    // The offset of the last block that starts before the time, or 0
+    private static long blockBefore(long[] entries, long millis) {
+        int low = 0;
+        int high = entries.length / 2 - 1;
+        long offset = 0;
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            if (entries[mid * 2] < millis) {
+                offset = entries[mid * 2 + 1];
+                low = mid + 1;
+            } else {
+                high = mid - 1;
+            }
+        }
+        return offset;
+    }
+
+    // The offset of the first block that starts at or after the time, or Long.MAX_VALUE
+    private static long blockAfter(long[] entries, long millis) {
+        int low = 0;
+        int high = entries.length / 2 - 1;
+        long offset = Long.MAX_VALUE;
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            if (entries[mid * 2] >= millis) {
+                offset = entries[mid * 2 + 1];
+                high = mid - 1;
+            } else {
+                low = mid + 1;
+            }
+        }
+        return offset;
+    }
+
+    // Index of the first value that is not below the key
+    private static int lowerBound(long[] sorted, long key) {
+        int low = 0;
+        int high = sorted.length;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (sorted[mid] < key) low = mid + 1;
+            else high = mid;
+        }
+        return low;
+    }
+
+    // The segment's index entries (time of each block's first entry; see readIndex); rebuilt if unusable
+    private long[] loadOrRebuildIndex(Path log, Path index) throws IOException {
+        long logSize = Files.size(log);
+        long[] entries = readIndex(index);
+        boolean usable = Files.exists(index) && Files.size(index) % 16 == 0
+            && (entries.length > 0 ? entries[1] == 0 && entries[entries.length - 1] < logSize : logSize == 0);
+        if (usable) return entries;
+        return rebuildIndex(log, index);
+    }
+
+    // Scan the segment and write a fresh index, parsing the timestamp of each block's first line
+    private long[] rebuildIndex(Path log, Path index) throws IOException {
+        long[][] entries = {new long[64]};
+        int[] count = {0};
+        long[] lastIndexed = {-1};
+        scanEntries(log, (bytes, start, end, offset) -> {
+            if (lastIndexed[0] >= 0 && offset - lastIndexed[0] < INDEX_BLOCK_BYTES) return;
+            long millis = codec != null ? codec.timeOf(bytes, start, end) : parseLineTime(bytes, start, end);
+            if (millis == Long.MIN_VALUE) return;
+            if (count[0] + 2 > entries[0].length) entries[0] = Arrays.copyOf(entries[0], entries[0].length * 2);
+            entries[0][count[0]++] = millis;
+            entries[0][count[0]++] = offset;
+            lastIndexed[0] = offset;
+        });
+        long[] result = Arrays.copyOf(entries[0], count[0]);
+        if (result.length > 0 && result[1] != 0) {
+            result[1] = 0; // Lines before the first readable timestamp belong to the first block
+        }
+        ByteBuffer bytes = ByteBuffer.allocate(result.length * 8);
+        for (long value : result) bytes.putLong(value);
+        Files.write(index, bytes.array());
+        return result;
+    }
+
+    // Call the visitor for every complete entry of the file, in order
+    private void scanEntries(Path file, LineVisitor visitor) throws IOException {
+        try (InputStream in = Files.newInputStream(file)) {
+            byte[] buffer = new byte[64 * 1024];
+            int length = 0;   // Bytes in the buffer
+            long offset = 0;  // File offset of buffer[0]
+            int read;
+            while ((read = in.read(buffer, length, buffer.length - length)) > 0) {
+                length += read;
+                int consumed = visitEntries(buffer, 0, length, offset, visitor);
+                // Move the unfinished entry to the front, growing the buffer if it fills it
+                System.arraycopy(buffer, consumed, buffer, 0, length - consumed);
+                length -= consumed;
+                offset += consumed;
+                if (length == buffer.length) buffer = Arrays.copyOf(buffer, buffer.length * 2);
+            }
+        }
+    }
+
+    // Visit the complete entries in bytes[from, to), which starts at offset of the file; returns the bytes they take
+    private int visitEntries(byte[] bytes, int from, int to, long offset, LineVisitor visitor) {
+        int[] bounds = new int[2];
+        int position = from;
+        int next;
+        while (position < to && (next = entryEnd(bytes, position, to, bounds)) >= 0) {
+            visitor.visit(bytes, bounds[0], bounds[1], offset + (position - from));
+            position = next;
+        }
+        return position - from;
+    }
+
+    /**
+     * Find the entry starting at bytes[from]: stores its content range (the line without the
+     * newline, or the record without the length prefix) in bounds and returns where the next
+     * entry starts; -1 if the entry does not end before limit.
+     */
+    private int entryEnd(byte[] bytes, int from, int limit, int[] bounds) {
+        if (codec != null) {
+            int end = K2530341AuditCodec.recordEnd(bytes, from, limit, bounds);
+            bounds[1] = end;
+            return end;
+        }
+        for (int i = from; i < limit; i++) {
+            if (bytes[i] == '\n') {
+                bounds[0] = from;
+                bounds[1] = i;
+                return i + 1;
+            }
+        }
+        return -1;
+    }
+
+    // The text line of an entry's content
+    private String render(byte[] bytes, int start, int end) {
+        return codec == null ? new String(bytes, start, end - start, StandardCharsets.UTF_8)
+            : codec.decode(bytes, start, end).toString();
+    }
+
+    // Epoch millis of a line's "[yyyy-MM-dd HH:mm:ss]" prefix, or Long.MIN_VALUE if it has none
+    private long parseLineTime(byte[] bytes, int start, int end) {
+        if (end - start < 21 || bytes[start] != '[' || bytes[start + 20] != ']') return Long.MIN_VALUE;
+        try {
+            String text = new String(bytes, start + 1, 19, StandardCharsets.US_ASCII);
+            return LocalDateTime.parse(text, LINE_TIMESTAMP).atZone(zone).toInstant().toEpochMilli();
+        } catch (DateTimeParseException e) {
+            return Long.MIN_VALUE;
+        }
+    }
+
+    // ------------ Tail ------------
+    // Add up to count entries from the end of a binary segment to newestFirst, newest first.
+    // Records cannot be read backwards, so each index block is read forwards, last block first.
+    private void readLastRecords(Segment segment, int count, List<String> newestFirst) throws IOException {
+        if (!Files.exists(segment.log)) return;
+        long[] entries = readIndex(segment.index);
+        try (LineReader reader = new LineReader(segment.log)) {
+            int added = 0;
+            for (int block = entries.length / 2 - 1; block >= 0 && added < count; block--) {
+                long end = block + 1 < entries.length / 2 ? entries[block * 2 + 3] : Long.MAX_VALUE;
+                List<String> lines = new ArrayList<>();
+                String line;
+                for (long offset = entries[block * 2 + 1]; offset < end && (line = reader.readAt(offset)) != null;
+                        offset = reader.nextOffset) {
+                    lines.add(line);
+                }
+                for (int i = lines.size() - 1; i >= 0 && added < count; i--, added++) {
+                    newestFirst.add(lines.get(i));
+                }
+            }
+        }
+    }
+
+    // Add up to count lines from the end of the file to newestFirst, newest first
+    private static void readLastLines(Path file, int count, List<String> newestFirst) throws IOException {
+        if (!Files.exists(file)) return;
+        try (FileChannel in = FileChannel.open(file, StandardOpenOption.READ)) {
+            long position = in.size();
+            ByteBuffer chunk = ByteBuffer.allocate(TAIL_CHUNK_BYTES);
+            byte[] partial = new byte[0]; // Start of the file side of the line being assembled is still unread
+            int added = 0;
+            while (position > 0 && added < count) {
+                int length = (int) Math.min(TAIL_CHUNK_BYTES, position);
+                position -= length;
+                chunk.clear().limit(length);
+                while (chunk.hasRemaining()) {
+                    if (in.read(chunk, position + chunk.position()) < 0) break;
+                }
+                byte[] bytes = chunk.array();
+                int end = length;
+                for (int i = length - 1; i >= 0 && added < count; i--) {
+                    if (bytes[i] != '\n') continue;
+                    if (addLine(bytes, i + 1, end, partial, newestFirst)) added++;
+                    partial = new byte[0];
+                    end = i;
+                }
+                if (added < count) {
+                    // Keep the unfinished line; it continues in the previous chunk
+                    byte[] joined = new byte[end + partial.length];
+                    System.arraycopy(bytes, 0, joined, 0, end);
+                    System.arraycopy(partial, 0, joined, end, partial.length);
+                    partial = joined;
+                }
+            }
+            if (position == 0 && added < count && partial.length > 0) {
+                addLine(partial, 0, partial.length, new byte[0], newestFirst); // The first line of the file
+            }
+        }
+    }
+
+    // Adds bytes[from, to) followed by rest as one line unless it is empty
+    private static boolean addLine(byte[] bytes, int from, int to, byte[] rest, List<String> lines) {
+        int length = to - from + rest.length;
+        if (length == 0) return false;
+        byte[] line = new byte[length];
+        System.arraycopy(bytes, from, line, 0, to - from);
+        System.arraycopy(rest, 0, line, to - from, rest.length);
+        lines.add(new String(line, StandardCharsets.UTF_8));
+        return true;
+    }
+}
@@ -1,7 +1,7 @@
 package com.ecoride;
 
-import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 import java.io.*;
 import java.nio.file.*;
 import java.util.ArrayList;
@@ -9,15 +9,18 @@ import java.util.List;
 
 /**
  * Handles authentication and user management for the EcoRide Car Rental System.
+ * The desktop GUI uses the single current user; other front ends log in through
+ * sessions, so any number of users can be logged in at the same time.
  * Demonstrates data structures: HashMap for user lookup.
  */
 public class K2530341AuthSystem {
     private Map<String, K2530341User> users; // Key: username
     private List<String> validEmployeeIds;
-    private K2530341User currentUser;
+    private volatile K2530341User currentUser; // The GUI's user
+    private final K2530341SessionManager sessions = new K2530341SessionManager();
 
     public K2530341AuthSystem() {
-        users = new HashMap<>();
+        users = new ConcurrentHashMap<>();
         validEmployeeIds = new ArrayList<>();
         loadEmployeeIds();
         loadUsers();
@@ -86,7 +89,7 @@ public class K2530341AuthSystem {
     }
 
     // Register a new user
-    public String registerUser(String username, String password, String role, String employeeId) {
+    public synchronized String registerUser(String username, String password, String role, String employeeId) {
         if (users.containsKey(username)) {
             return "Username already exists.";
         }
@@ -108,7 +111,7 @@ public class K2530341AuthSystem {
     }
 
     // Register a customer with NIC
-    public String registerCustomer(String username, String password, String nic, String name, String contact, String email) {
+    public synchronized String registerCustomer(String username, String password, String nic, String name, String contact, String email) {
         if (users.containsKey(username)) {
             return "Username already exists.";
         }
@@ -124,16 +127,24 @@ public class K2530341AuthSystem {
         return null; // Success
     }
 
-    // Login user
-    public K2530341User loginUser(String username, String password) {
+    // Check credentials without logging in; null if they are wrong
+    public K2530341User authenticate(String username, String password) {
         K2530341User user = users.get(username);
         if (user != null && user.verifyPassword(password)) {
-            currentUser = user;
             return user;
         }
         return null;
     }
 
+    // Login user
+    public K2530341User loginUser(String username, String password) {
+        K2530341User user = authenticate(username, password);
+        if (user != null) {
+            currentUser = user;
+        }
+        return user;
+    }
+
     // Logout
     public void logout() {
         currentUser = null;
@@ -144,6 +155,29 @@ public class K2530341AuthSystem {
         return currentUser;
     }
 
+    // ------------ Sessions ------------
+    /**
+     * Log in with a new session and return its token, or null if the credentials are wrong.
+     * Does not change the current user.
+     */
+    public String loginSession(String username, String password) {
+        K2530341User user = authenticate(username, password);
+        return user == null ? null : sessions.createSession(user);
+    }
+
+    public boolean logoutSession(String token) {
+        return sessions.invalidate(token);
+    }
+
+    // The user logged in with the token, or null if the session is unknown or expired
+    public K2530341User getSessionUser(String token) {
+        return sessions.getUser(token);
+    }
+
+    public K2530341SessionManager getSessionManager() {
+        return sessions;
+    }
+
     // Check if employee ID is valid
     public boolean isValidEmployeeId(String employeeId) {
         return validEmployeeIds.contains(employeeId);
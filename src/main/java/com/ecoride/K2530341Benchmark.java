@@ -0,0 +1,687 @@
+package com.ecoride;
+
+import java.io.*;
+import java.lang.management.ManagementFactory;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+/**
+ * Micro benchmarks for the EcoRide Car Rental System.
+ * Each benchmark compares the previous implementation (kept here as a baseline)
+ * with the current one, reporting time and allocated bytes.
+ * Run with: java -cp target/classes com.ecoride.K2530341Main --benchmark csv [rows]
+ *       or: java -cp target/classes com.ecoride.K2530341Main --benchmark audit [events]
+ *       or: java -cp target/classes com.ecoride.K2530341Main --benchmark outbox [messages]
+ *       or: java -cp target/classes com.ecoride.K2530341Main --benchmark reminders [bookings]
+ *       or: java -cp target/classes com.ecoride.K2530341Main --benchmark templates [messages]
+ *       or: java -cp target/classes com.ecoride.K2530341Main --benchmark nightly [bookings]
+ *       or: java -cp target/classes com.ecoride.K2530341Main --benchmark fees [calls]
+ */
+public class K2530341Benchmark {
+
+    private static final int RUNS = 3;
+
+    public static void run(String[] args) {
+        String name = args.length > 1 ? args[1] : "csv";
+        switch (name) {
+            case "csv":
+                int rows = args.length > 2 ? Integer.parseInt(args[2]) : 1_000_000;
+                benchmarkCsv(rows);
+                break;
+            case "audit":
+                int events = args.length > 2 ? Integer.parseInt(args[2]) : 200_000;
+                benchmarkAudit(events);
+                break;
+            case "outbox":
+                int messages = args.length > 2 ? Integer.parseInt(args[2]) : 5_000;
+                benchmarkOutbox(messages);
+                break;
+            case "reminders":
+                int bookingCount = args.length > 2 ? Integer.parseInt(args[2]) : 200_000;
+                benchmarkReminders(bookingCount);
+                break;
+            case "templates":
+                int messageCount = args.length > 2 ? Integer.parseInt(args[2]) : 200_000;
+                benchmarkTemplates(messageCount);
+                break;
+            case "nightly":
+                int nightlyBookings = args.length > 2 ? Integer.parseInt(args[2]) : 100_000;
+                benchmarkNightly(nightlyBookings);
+                break;
+            case "fees":
+                int calls = args.length > 2 ? Integer.parseInt(args[2]) : 10_000_000;
+                benchmarkFees(calls);
+                break;
+            default:
+                System.out.println("Unknown benchmark: " + name);
+                System.out.println("Available: csv, audit, outbox, reminders, templates, nightly, fees");
+        }
+    }
+
+    // ------------ CSV parsing ------------
+    private static void benchmarkCsv(int rows) {
+        System.out.println("=== CSV Booking Parse Benchmark (" + rows + " rows) ===");
+
+        Map<String, K2530341Customer> customers = new HashMap<>();
+        Map<String, K2530341Vehicle> vehicles = new HashMap<>();
+        for (int i = 0; i < 1000; i++) {
+            String nic = "NIC" + i;
+            customers.put(nic, new K2530341Customer(nic, "Customer " + i, "0710000000", "c" + i + "@example.com"));
+            String carId = "V" + i;
+            vehicles.put(carId, new K2530341Vehicle(carId, "Toyota Aqua", "Hybrid", 7500.0, "Available"));
+        }
+
+        for (boolean isoDates : new boolean[]{true, false}) {
+            Path file = null;
+            try {
+                file = writeBookingFile(rows, isoDates);
+                System.out.println(isoDates ? "\nDates as yyyy-MM-dd:" : "\nDates as dd/MM/yyyy:");
+                Path path = file;
+                measure("split + parseDate (previous loadBookings)", rows,
+                    () -> legacyLoadBookings(path, customers, vehicles));
+                measure("K2530341CsvReader", rows,
+                    () -> readerLoadBookings(path, customers, vehicles));
+            } catch (IOException e) {
+                System.err.println("Benchmark failed: " + e.getMessage());
+            } finally {
+                if (file != null) file.toFile().delete();
+            }
+        }
+    }
+
+    private static Path writeBookingFile(int rows, boolean isoDates) throws IOException {
+        Path file = Files.createTempFile("ecoride-bench", ".csv");
+        DateTimeFormatter format = isoDates ? DateTimeFormatter.ISO_LOCAL_DATE : DateTimeFormatter.ofPattern("dd/MM/yyyy");
+        Random random = new Random(42);
+        LocalDate base = LocalDate.of(2025, 1, 1);
+        try (BufferedWriter writer = Files.newBufferedWriter(file, StandardCharsets.UTF_8)) {
+            for (int i = 0; i < rows; i++) {
+                LocalDate start = base.plusDays(random.nextInt(365));
+                LocalDate end = start.plusDays(1 + random.nextInt(14));
+                writer.write("B" + i + ",NIC" + random.nextInt(1000) + ",V" + random.nextInt(1000) + "," +
+                    start.format(format) + "," + end.format(format) + "," + (50 + random.nextInt(500)));
+                writer.newLine();
+            }
+        }
+        return file;
+    }
+
+    // Baseline: the line-by-line parser that RentalSystem used before K2530341CsvReader
+    private static int legacyLoadBookings(Path path, Map<String, K2530341Customer> customerMap,
+            Map<String, K2530341Vehicle> vehicleMap) {
+        int loaded = 0;
+        try (BufferedReader reader = Files.newBufferedReader(path)) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (line.isBlank()) continue;
+                String[] parts = line.split(",");
+                if (parts.length == 6) {
+                    K2530341Customer customer = customerMap.get(parts[1]);
+                    K2530341Vehicle vehicle = vehicleMap.get(parts[2]);
+                    int totalKm = Integer.parseInt(parts[5]);
+                    if (customer != null && vehicle != null) {
+                        LocalDate startDate = legacyParseDate(parts[3]);
+                        LocalDate endDate = legacyParseDate(parts[4]);
+                        if (startDate != null && endDate != null) {
+                            new K2530341Booking(parts[0], customer, vehicle, startDate, endDate, totalKm);
+                            loaded++;
+                        }
+                    }
+                }
+            }
+        } catch (IOException e) {
+            System.err.println("Error loading bookings: " + e.getMessage());
+        }
+        return loaded;
+    }
+
+    private static LocalDate legacyParseDate(String s) {
+        if (s == null || s.isBlank()) return null;
+        String[] patterns = {"yyyy-MM-dd", "dd/MM/yyyy", "MM/dd/yyyy"};
+        for (String p : patterns) {
+            try {
+                return LocalDate.parse(s, DateTimeFormatter.ofPattern(p));
+            } catch (DateTimeParseException ignored) {}
+        }
+        return null;
+    }
+
+    private static int readerLoadBookings(Path path, Map<String, K2530341Customer> customerMap,
+            Map<String, K2530341Vehicle> vehicleMap) {
+        int loaded = 0;
+        try (Reader in = Files.newBufferedReader(path)) {
+            K2530341CsvReader row = new K2530341CsvReader(in);
+            while (row.nextRecord()) {
+                if (row.fieldCount() != 6) continue;
+                K2530341Customer customer = customerMap.get(row.field(1));
+                K2530341Vehicle vehicle = vehicleMap.get(row.field(2));
+                int totalKm = row.intField(5);
+                if (customer != null && vehicle != null) {
+                    LocalDate startDate = row.dateField(3);
+                    LocalDate endDate = row.dateField(4);
+                    if (startDate != null && endDate != null) {
+                        new K2530341Booking(row.field(0), customer, vehicle, startDate, endDate, totalKm);
+                        loaded++;
+                    }
+                }
+            }
+        } catch (IOException e) {
+            System.err.println("Error loading bookings: " + e.getMessage());
+        }
+        return loaded;
+    }
+
+    // ------------ Audit logging ------------
+    private static final int AUDIT_THREADS = 8;
+
+    private static void benchmarkAudit(int events) {
+        System.out.println("=== Audit Log Benchmark (" + events + " events, " + AUDIT_THREADS + " threads) ===");
+        System.out.printf("%-22s %12s %12s %12s %10s %10s\n", "Mode", "caller ns/op", "total ms", "file bytes",
+            "bytes/op", "dropped");
+        benchmarkAuditMode("sync (caller thread)", events, null, false);
+        benchmarkAuditMode("sync binary", events, null, true);
+        for (K2530341AuditLogger.BackPressure policy : K2530341AuditLogger.BackPressure.values()) {
+            benchmarkAuditMode("async " + policy, events, policy, false);
+        }
+        benchmarkAuditMode("async BLOCK binary", events, K2530341AuditLogger.BackPressure.BLOCK, true);
+    }
+
+    private static void benchmarkAuditMode(String label, int events, K2530341AuditLogger.BackPressure policy,
+            boolean binary) {
+        Path dir = null;
+        try {
+            dir = Files.createTempDirectory("ecoride-audit-bench");
+            Path file = dir.resolve(binary ? "audit_events.bin" : "audit.log");
+            K2530341AuditLogger logger = new K2530341AuditLogger(file, binary);
+            if (policy != null) logger.enableAsync(8192, policy, 64 * 1024, 100);
+            int perThread = events / AUDIT_THREADS;
+
+            Thread[] workers = new Thread[AUDIT_THREADS];
+            long start = System.nanoTime();
+            for (int t = 0; t < AUDIT_THREADS; t++) {
+                String user = "user" + t;
+                workers[t] = new Thread(() -> {
+                    for (int i = 0; i < perThread; i++) {
+                        logger.logBookingOperation(user, "create", "B" + i, "Vehicle:V0001");
+                    }
+                });
+                workers[t].start();
+            }
+            for (Thread worker : workers) worker.join();
+            long callerNanos = System.nanoTime() - start;
+            logger.disableAsync(); // Drains the ring buffer
+            long totalNanos = System.nanoTime() - start;
+
+            logger.close();
+            long bytes = Files.size(file);
+            System.out.printf("%-22s %12.1f %12.2f %12d %10.1f %10d\n", label,
+                (double) callerNanos / (perThread * AUDIT_THREADS), totalNanos / 1_000_000.0,
+                bytes, (double) bytes / (perThread * AUDIT_THREADS), logger.getDroppedCount());
+        } catch (IOException e) {
+            System.err.println("Benchmark failed: " + e.getMessage());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            if (dir != null) {
+                File[] files = dir.toFile().listFiles();
+                if (files != null) for (File f : files) f.delete();
+                dir.toFile().delete();
+            }
+        }
+    }
+
+    // ------------ Notification outbox ------------
+    private static final long RELAY_DELAY_MILLIS = 2;
+    private static final int RELAY_FAIL_EVERY = 10;
+
+    private static void benchmarkOutbox(int messages) {
+        int perThread = messages / AUDIT_THREADS / 50 * 50; // Whole enqueueAll() batches
+        int total = perThread * AUDIT_THREADS;
+        int recipients = Math.max(1, total / 5);
+        System.out.println("=== Notification Outbox Benchmark (" + total + " messages to " + recipients
+            + " recipients, " + AUDIT_THREADS + " threads, relay " + RELAY_DELAY_MILLIS + " ms per call) ===");
+        System.out.printf("%-26s %14s %10s %10s %10s %10s\n", "Mode", "caller us/op", "total ms", "relay calls",
+            "delivered", "dead");
+
+        // Baseline: every caller talks to the relay itself, as the notification service used to
+        K2530341NotificationTransport.InMemory relay = new K2530341NotificationTransport.InMemory(RELAY_DELAY_MILLIS, 0);
+        long start = System.nanoTime();
+        runThreads(perThread, (t, i) -> {
+            int n = t * perThread + i;
+            try {
+                relay.send("c" + (n % recipients) + "@example.com", java.util.Collections.singletonList(
+                    new K2530341Notification(n, "EMAIL_SENT", "B" + n, "c" + (n % recipients) + "@example.com",
+                        "Subject " + n, "Body " + n, System.currentTimeMillis())));
+            } catch (IOException e) {
+                System.err.println("Send failed: " + e.getMessage());
+            }
+        });
+        long elapsed = System.nanoTime() - start;
+        System.out.printf("%-26s %14.1f %10.2f %10d %10d %10d\n", "direct send (caller)",
+            elapsed / 1000.0 / total, elapsed / 1_000_000.0, relay.getCalls(), relay.getDelivered().size(), 0);
+
+        for (boolean batchEnqueue : new boolean[]{false, true}) {
+            Path dir = null;
+            try {
+                dir = Files.createTempDirectory("ecoride-outbox-bench");
+                K2530341NotificationTransport.InMemory transport =
+                    new K2530341NotificationTransport.InMemory(RELAY_DELAY_MILLIS, RELAY_FAIL_EVERY);
+                K2530341NotificationOutbox outbox = new K2530341NotificationOutbox(dir.resolve("outbox.log"), transport);
+                outbox.setAuditLogging(false);
+                outbox.setRetries(8, 20);
+                outbox.start(4);
+                long began = System.nanoTime();
+                runThreads(batchEnqueue ? perThread / 50 : perThread, (t, i) -> {
+                    int count = batchEnqueue ? 50 : 1;
+                    java.util.List<K2530341Notification> batch = new java.util.ArrayList<>(count);
+                    for (int k = 0; k < count; k++) {
+                        int n = t * perThread + i * count + k;
+                        String to = "c" + (n % recipients) + "@example.com";
+                        batch.add(outbox.create("EMAIL_SENT", "B" + n, to, "Subject " + n, "Body " + n + "\nLine 2"));
+                    }
+                    outbox.enqueueAll(batch);
+                });
+                long callerNanos = System.nanoTime() - began;
+                int enqueued = (int) (outbox.getQueueDepth() + outbox.getSentCount());
+                boolean idle = outbox.awaitIdle(120_000);
+                long totalNanos = System.nanoTime() - began;
+                System.out.printf("%-26s %14.1f %10.2f %10d %10d %10d%s\n",
+                    batchEnqueue ? "outbox, enqueueAll(50)" : "outbox, enqueue()",
+                    callerNanos / 1000.0 / enqueued, totalNanos / 1_000_000.0, transport.getCalls(),
+                    transport.getDelivered().size(), enqueued - transport.getDelivered().size(),
+                    idle ? "" : "  (timed out)");
+                if (batchEnqueue) System.out.print(outbox.getStats());
+                outbox.close();
+
+                // Messages still queued when the outbox closes are sent after a restart
+                if (batchEnqueue) {
+                    K2530341NotificationOutbox stopped = new K2530341NotificationOutbox(dir.resolve("outbox.log"), transport);
+                    stopped.setAuditLogging(false);
+                    for (int n = 0; n < 100; n++) stopped.enqueue("REMINDER_SENT", null, "late@example.com", "Late " + n, "Body");
+                    stopped.close();
+                    K2530341NotificationOutbox restarted = new K2530341NotificationOutbox(dir.resolve("outbox.log"), transport);
+                    restarted.setAuditLogging(false);
+                    int recovered = restarted.getQueueDepth();
+                    restarted.start(4);
+                    restarted.awaitIdle(60_000);
+                    System.out.println("Restart: " + recovered + " of 100 unsent messages recovered, "
+                        + restarted.getSentCount() + " sent");
+                    restarted.close();
+                }
+            } catch (IOException e) {
+                System.err.println("Benchmark failed: " + e.getMessage());
+            } finally {
+                if (dir != null) {
+                    File[] files = dir.toFile().listFiles();
+                    if (files != null) for (File f : files) f.delete();
+                    dir.toFile().delete();
+                }
+            }
+        }
+    }
+
+    // ------------ Reminder lookup ------------
+    // Finding tomorrow's pickups and returns among bookings spread over ten years
+    private static void benchmarkReminders(int bookingCount) {
+        System.out.println("=== Reminder Lookup Benchmark (" + bookingCount + " bookings over 10 years) ===");
+        K2530341Customer[] customers = new K2530341Customer[1000];
+        K2530341Vehicle[] vehicles = new K2530341Vehicle[1000];
+        for (int i = 0; i < 1000; i++) {
+            customers[i] = new K2530341Customer("NIC" + i, "Customer " + i, "0710000000", "c" + i + "@example.com");
+            vehicles[i] = new K2530341Vehicle("V" + i, "Toyota Aqua", "Hybrid", 7500.0, "Available");
+        }
+        List<K2530341Booking> all = new java.util.ArrayList<>(bookingCount);
+        K2530341BookingIndex index = new K2530341BookingIndex();
+        Random random = new Random(42);
+        LocalDate base = LocalDate.of(2020, 1, 1);
+        for (int i = 0; i < bookingCount; i++) {
+            LocalDate start = base.plusDays(random.nextInt(3650));
+            K2530341Booking booking = new K2530341Booking("B" + i, customers[i % 1000], vehicles[i % 1000], start,
+                start.plusDays(1 + random.nextInt(14)), 100);
+            all.add(booking);
+            index.add(booking);
+        }
+        LocalDate[] days = new LocalDate[30]; // A month of daily checks
+        for (int d = 0; d < days.length; d++) days[d] = base.plusDays(3000 + d);
+
+        measure("scan of all bookings (previous)", days.length, () -> {
+            int due = 0;
+            for (LocalDate tomorrow : days) {
+                for (K2530341Booking booking : all) {
+                    if (booking.getStartDate().equals(tomorrow)) due++;
+                    if (booking.getEndDate().equals(tomorrow)) due++;
+                }
+            }
+            return due;
+        });
+        measure("start and end date indexes", days.length, () -> {
+            int due = 0;
+            for (LocalDate tomorrow : days) {
+                due += index.findStartingBetween(tomorrow, tomorrow).size();
+                due += index.findEndingBetween(tomorrow, tomorrow).size();
+            }
+            return due;
+        });
+    }
+
+    // ------------ Notification bodies ------------
+    private static void benchmarkTemplates(int messages) {
+        System.out.println("=== Notification Body Benchmark (" + messages + " messages) ===");
+        String[] categories = {"Compact Petrol", "Hybrid", "Electric", "Luxury SUV"};
+        K2530341Booking[] bookings = new K2530341Booking[1000];
+        Random random = new Random(42);
+        LocalDate base = LocalDate.of(2025, 1, 1);
+        for (int i = 0; i < bookings.length; i++) {
+            K2530341Customer customer = new K2530341Customer("NIC" + i, "Customer " + i, "0710000000", "c" + i + "@example.com");
+            K2530341Vehicle vehicle = new K2530341Vehicle("V" + i, "Toyota Aqua", categories[i % categories.length],
+                5000.0 + random.nextInt(10000), "Available");
+            LocalDate start = base.plusDays(random.nextInt(365));
+            bookings[i] = new K2530341Booking("B" + i, customer, vehicle, start, start.plusDays(1 + random.nextInt(14)), 100);
+        }
+        for (K2530341Booking booking : bookings) {
+            if (!legacyConfirmationBody(booking).equals(K2530341NotificationService.confirmationBody(booking))
+                    || !legacyReturnReminderBody(booking).equals(K2530341NotificationService.returnReminderBody(booking))) {
+                System.out.println("Template output differs for " + booking.getBookingId());
+                return;
+            }
+        }
+        System.out.println("Template and hand-built bodies are identical for all " + bookings.length + " bookings.");
+
+        measure("confirmation, StringBuilder + format (previous)", messages, () -> {
+            int chars = 0;
+            for (int i = 0; i < messages; i++) chars += legacyConfirmationBody(bookings[i % bookings.length]).length();
+            return chars;
+        });
+        measure("confirmation, compiled template", messages, () -> {
+            int chars = 0;
+            for (int i = 0; i < messages; i++) {
+                chars += K2530341NotificationService.confirmationBody(bookings[i % bookings.length]).length();
+            }
+            return chars;
+        });
+        measure("return reminder, StringBuilder (previous)", messages, () -> {
+            int chars = 0;
+            for (int i = 0; i < messages; i++) chars += legacyReturnReminderBody(bookings[i % bookings.length]).length();
+            return chars;
+        });
+        measure("return reminder, compiled template", messages, () -> {
+            int chars = 0;
+            for (int i = 0; i < messages; i++) {
+                chars += K2530341NotificationService.returnReminderBody(bookings[i % bookings.length]).length();
+            }
+            return chars;
+        });
+        double[] amounts = new double[1024];
+        for (int i = 0; i < amounts.length; i++) amounts[i] = random.nextInt(100_000_000) / 100.0;
+        measure("money, String.format(\"%.2f\") (previous)", messages, () -> {
+            int chars = 0;
+            for (int i = 0; i < messages; i++) chars += String.format("%.2f", amounts[i & 1023]).length();
+            return chars;
+        });
+        StringBuilder money = new StringBuilder();
+        measure("money, fixed-point appendMoney", messages, () -> {
+            int chars = 0;
+            for (int i = 0; i < messages; i++) {
+                money.setLength(0);
+                K2530341NotificationTemplate.appendMoney(money, amounts[i & 1023]);
+                chars += money.length();
+            }
+            return chars;
+        });
+    }
+
+    // ------------ Nightly notification batch ------------
+    // Every booking ended today, so the batch sends one invoice per booking
+    private static void benchmarkNightly(int bookingCount) {
+        System.out.println("=== Nightly Notification Batch Benchmark (" + bookingCount + " bookings) ===");
+        String[] categories = {"Compact Petrol", "Hybrid", "Electric", "Luxury SUV"};
+        LocalDate today = LocalDate.of(2025, 6, 1);
+        K2530341BookingIndex index = new K2530341BookingIndex();
+        Random random = new Random(42);
+        int customerCount = Math.max(1, bookingCount / 3);
+        K2530341Customer[] customers = new K2530341Customer[customerCount];
+        for (int i = 0; i < customerCount; i++) {
+            customers[i] = new K2530341Customer("NIC" + i, "Customer " + i, "0710000000", "c" + i + "@example.com");
+        }
+        for (int i = 0; i < bookingCount; i++) {
+            K2530341Vehicle vehicle = new K2530341Vehicle("V" + i, "Toyota Aqua", categories[i % categories.length],
+                7500.0, "Available");
+            index.add(new K2530341Booking("B" + i, customers[random.nextInt(customerCount)], vehicle,
+                today.minusDays(random.nextInt(14)), today, 100 + random.nextInt(1000)));
+        }
+
+        for (boolean batched : new boolean[]{false, true}) {
+            Path dir = null;
+            try {
+                dir = Files.createTempDirectory("ecoride-nightly-bench");
+                K2530341NotificationTransport.InMemory transport = new K2530341NotificationTransport.InMemory(0, 0);
+                K2530341NotificationOutbox outbox = new K2530341NotificationOutbox(dir.resolve("outbox.log"), transport);
+                outbox.setAuditLogging(false);
+                outbox.start(4);
+                long start = System.nanoTime();
+                List<K2530341Booking> completed = index.findEndingBetween(today, today);
+                long selectNanos = System.nanoTime() - start;
+                int messages = completed.size();
+                if (batched) {
+                    System.out.println("\nBatch pipeline:");
+                    System.out.print(K2530341NotificationService.dispatchBatch(outbox, "bench", completed,
+                        selectNanos));
+                } else {
+                    // Baseline: one message at a time, as calling sendInvoice() for each booking does
+                    for (K2530341Booking b : completed) {
+                        outbox.enqueue("INVOICE_SENT", b.getBookingId(), b.getCustomer().getEmail(),
+                            "EcoRide Invoice - " + b.getBookingId(),
+                            K2530341NotificationService.invoiceBody(new K2530341Invoice(b), b.getTotalKm()));
+                    }
+                    long nanos = System.nanoTime() - start;
+                    System.out.printf("One at a time: %d messages queued in %.2f ms, %,.0f messages/sec\n",
+                        messages, nanos / 1e6, messages * 1e9 / nanos);
+                }
+                boolean idle = outbox.awaitIdle(10 * 60 * 1000);
+                long nanos = System.nanoTime() - start;
+                System.out.printf("Delivered %d in %.2f ms, %,.0f messages/sec end to end, %d transport calls%s\n",
+                    transport.getDelivered().size(), nanos / 1e6, transport.getDelivered().size() * 1e9 / nanos,
+                    transport.getCalls(), idle ? "" : " (timed out)");
+                outbox.close();
+            } catch (IOException e) {
+                System.err.println("Benchmark failed: " + e.getMessage());
+            } finally {
+                if (dir != null) {
+                    File[] files = dir.toFile().listFiles();
+                    if (files != null) for (File f : files) f.delete();
+                    dir.toFile().delete();
+                }
+            }
+        }
+    }
+
+    // ------------ Fee calculation ------------
+    private static void benchmarkFees(int calls) {
+        System.out.println("=== Fee Calculation Benchmark (" + calls + " calls) ===");
+        String[] categories = {"Compact Petrol", "Hybrid", "Electric", "Luxury SUV", "Racing", "Off road SUV",
+            "Super luxury", "hybrid", "ELECTRIC"};
+        K2530341Customer customer = new K2530341Customer("NIC1", "Customer", "0710000000", "c@example.com");
+        K2530341Booking[] bookings = new K2530341Booking[1024];
+        Random random = new Random(42);
+        LocalDate base = LocalDate.of(2025, 1, 1);
+        for (int i = 0; i < bookings.length; i++) {
+            K2530341Vehicle vehicle = new K2530341Vehicle("V" + i, "Model", categories[i % categories.length],
+                7500.0, "Available");
+            LocalDate start = base.plusDays(random.nextInt(365));
+            bookings[i] = new K2530341Booking("B" + i, customer, vehicle, start, start.plusDays(random.nextInt(14)),
+                random.nextInt(3000));
+            if (Double.compare(legacyInvoiceCharges(bookings[i]), new K2530341Invoice(bookings[i]).getTotalAmount()) != 0) {
+                System.out.println("Fees differ for " + bookings[i].getBookingId());
+                return;
+            }
+        }
+        System.out.println("Invoice pricing and the engine agree on all " + bookings.length + " bookings.");
+        // The sum is returned so the JIT cannot drop the calculation
+        measure("invoice pricing map scan (previous)", calls, () -> {
+            double sum = 0;
+            for (int i = 0; i < calls; i++) sum += legacyInvoiceCharges(bookings[i & 1023]);
+            return (int) (sum / calls);
+        });
+        measure("pricing engine, uncached quote", calls, () -> {
+            double sum = 0;
+            for (int i = 0; i < calls; i++) {
+                K2530341Booking b = bookings[i & 1023];
+                sum += K2530341PricingEngine.quote(b.getVehicle().getCategoryType(), b.getNumberOfDays(), b.getTotalKm())
+                    .getCharges();
+            }
+            return (int) (sum / calls);
+        });
+        measure("pricing engine, cached per booking", calls, () -> {
+            double sum = 0;
+            for (int i = 0; i < calls; i++) {
+                K2530341Booking b = bookings[i & 1023];
+                sum += K2530341PricingEngine.price(b, b.getTotalKm()).getCharges();
+            }
+            return (int) (sum / calls);
+        });
+        System.out.print(K2530341PricingEngine.getStats());
+    }
+
+    // Baseline: the charges as K2530341Invoice computed them before the pricing engine
+    private static final Map<String, double[]> LEGACY_PRICING = new HashMap<>();
+    static {
+        LEGACY_PRICING.put("Compact Petrol", new double[]{5000, 100, 50, 0.10});
+        LEGACY_PRICING.put("Hybrid", new double[]{7500, 150, 60, 0.12});
+        LEGACY_PRICING.put("Electric", new double[]{10000, 200, 40, 0.08});
+        LEGACY_PRICING.put("Luxury SUV", new double[]{15000, 250, 75, 0.15});
+        LEGACY_PRICING.put("Racing", new double[]{25000, 250, 75, 0.15});
+        LEGACY_PRICING.put("Off road SUV", new double[]{20000, 250, 75, 0.15});
+        LEGACY_PRICING.put("Super luxury", new double[]{35000, 250, 75, 0.15});
+    }
+
+    private static double legacyInvoiceCharges(K2530341Booking booking) {
+        String category = booking.getVehicle().getCategory().trim().toLowerCase();
+        double[] pricing = null;
+        for (String key : LEGACY_PRICING.keySet()) {
+            if (key.toLowerCase().equals(category)) {
+                pricing = LEGACY_PRICING.get(key);
+                break;
+            }
+        }
+        long days = booking.getNumberOfDays();
+        if (pricing == null || days <= 0) return 0;
+        double basePrice = pricing[0] * days;
+        int extraKm = Math.max(0, booking.getTotalKm() - (int) pricing[1] * (int) days);
+        double extraKmCharge = extraKm * pricing[2];
+        double discount = (days >= 7) ? basePrice * 0.10 : 0;
+        double subtotal = basePrice + extraKmCharge - discount;
+        return subtotal + subtotal * pricing[3];
+    }
+
+    // Baseline: the booking confirmation body as NotificationService built it before the templates
+    private static String legacyConfirmationBody(K2530341Booking booking) {
+        K2530341Customer customer = booking.getCustomer();
+        K2530341Vehicle vehicle = booking.getVehicle();
+        StringBuilder body = new StringBuilder();
+        body.append("Dear ").append(customer.getName()).append(",\n\n");
+        body.append("Your booking has been confirmed!\n\n");
+        body.append("Booking Details:\n");
+        body.append("- Booking ID: ").append(booking.getBookingId()).append("\n");
+        body.append("- Vehicle: ").append(vehicle.getModel()).append(" (").append(vehicle.getCategory()).append(")\n");
+        body.append("- Rental Period: ").append(booking.getStartDate())
+             .append(" to ").append(booking.getEndDate()).append("\n");
+        body.append("- Duration: ").append(booking.getNumberOfDays()).append(" days\n");
+        body.append("- Estimated Cost: LKR ").append(String.format("%.2f", K2530341FeeCalculator.calculateEstimatedFee(booking))).append("\n\n");
+        body.append("Important Notes:\n");
+        body.append("- Please arrive 15 minutes before your pickup time\n");
+        body.append("- Bring your NIC/Passport and this confirmation\n");
+        body.append("- A refundable deposit of LKR 5,000 will be collected\n");
+        body.append("- Vehicle must be returned with full tank\n\n");
+        body.append("Thank you for choosing EcoRide!\n\n");
+        body.append("Best regards,\n");
+        body.append("EcoRide Car Rental Team\n");
+        body.append("Contact: +94 11 123 4567\n");
+        body.append("Email: info@ecoride.lk");
+        return body.toString();
+    }
+
+    // Baseline: the return reminder body before the templates
+    private static String legacyReturnReminderBody(K2530341Booking booking) {
+        K2530341Customer customer = booking.getCustomer();
+        StringBuilder body = new StringBuilder();
+        body.append("Dear ").append(customer.getName()).append(",\n\n");
+        body.append("This is a reminder that your vehicle rental ends tomorrow.\n\n");
+        body.append("Booking Details:\n");
+        body.append("- Booking ID: ").append(booking.getBookingId()).append("\n");
+        body.append("- Return Date: ").append(booking.getEndDate()).append("\n");
+        body.append("- Return Location: EcoRide Main Branch, Colombo\n\n");
+        body.append("Please ensure:\n");
+        body.append("- Vehicle is returned with full fuel tank\n");
+        body.append("- No damages beyond normal wear\n");
+        body.append("- All accessories are intact\n\n");
+        body.append("Late returns will incur additional charges.\n");
+        body.append("Contact us immediately if you need to extend your rental.\n\n");
+        body.append("Thank you for your business!\n\n");
+        body.append("Best regards,\n");
+        body.append("EcoRide Car Rental Team\n");
+        body.append("Contact: +94 11 123 4567");
+        return body.toString();
+    }
+
+    interface IndexedTask {
+        void run(int thread, int index);
+    }
+
+    // Runs the task count times on each of AUDIT_THREADS threads and waits for them
+    private static void runThreads(int count, IndexedTask task) {
+        Thread[] workers = new Thread[AUDIT_THREADS];
+        for (int t = 0; t < AUDIT_THREADS; t++) {
+            int thread = t;
+            workers[t] = new Thread(() -> {
+                for (int i = 0; i < count; i++) task.run(thread, i);
+            });
+            workers[t].start();
+        }
+        try {
+            for (Thread worker : workers) worker.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    // ------------ Measurement ------------
+    interface Task {
+        int run();
+    }
+
+    // Runs the task RUNS times after one warm-up and prints the best time
+    private static void measure(String label, int operations, Task task) {
+        task.run(); // Warm-up
+        long bestNanos = Long.MAX_VALUE;
+        long bestBytes = Long.MAX_VALUE;
+        int result = 0;
+        for (int i = 0; i < RUNS; i++) {
+            long bytesBefore = allocatedBytes();
+            long start = System.nanoTime();
+            result = task.run();
+            long elapsed = System.nanoTime() - start;
+            long bytes = bytesBefore < 0 ? -1 : allocatedBytes() - bytesBefore;
+            bestNanos = Math.min(bestNanos, elapsed);
+            bestBytes = Math.min(bestBytes, bytes);
+        }
+        System.out.printf("%-45s %9.2f ms  %8.1f ns/op  %8.1f B/op  (result %d)\n",
+            label, bestNanos / 1_000_000.0, (double) bestNanos / operations,
+            bestBytes < 0 ? -1.0 : (double) bestBytes / operations, result);
+    }
+
+    // Bytes allocated by the current thread so far, or -1 if the JVM does not report it
+    static long allocatedBytes() {
+        java.lang.management.ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+        if (bean instanceof com.sun.management.ThreadMXBean) {
+            return ((com.sun.management.ThreadMXBean) bean).getThreadAllocatedBytes(Thread.currentThread().getId());
+        }
+        return -1;
+    }
+}
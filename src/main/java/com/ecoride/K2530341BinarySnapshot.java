@@ -0,0 +1,257 @@
+package com.ecoride;
+
+import java.io.*;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Compact binary snapshot of vehicles, customers and bookings.
+ * Layout (big-endian):
+ *   magic, format version,
+ *   string dictionary (categories and statuses, referenced by index),
+ *   vehicles, customers, bookings: a record count followed by length-prefixed records.
+ * Strings are a varint length and UTF-8 bytes. Version 1 files, whose string lengths were a
+ * 2-byte short (too small for long strings), are still read.
+ * Dates are stored as epoch-day ints, so loading needs no date parsing.
+ * The file is read through a MappedByteBuffer instead of line-by-line text parsing.
+ */
+public class K2530341BinarySnapshot {
+    private static final int MAGIC = 0x45435244; // "ECRD"
+    private static final int FORMAT_VERSION = 2;
+    private static final int SHORT_LENGTH_VERSION = 1; // Strings with a 2-byte length
+
+    /**
+     * Everything read from a snapshot, with booking references already resolved.
+     */
+    public static class Contents {
+        private final List<K2530341Vehicle> vehicles = new ArrayList<>();
+        private final List<K2530341Customer> customers = new ArrayList<>();
+        private final List<K2530341Booking> bookings = new ArrayList<>();
+
+        public List<K2530341Vehicle> getVehicles() { return vehicles; }
+        public List<K2530341Customer> getCustomers() { return customers; }
+        public List<K2530341Booking> getBookings() { return bookings; }
+    }
+
+    private K2530341BinarySnapshot() {}
+
+    // ------------ Write ------------
+    /**
+     * Write a snapshot to a temporary file and rename it over the target.
+     */
+    public static boolean write(Path target, List<K2530341Vehicle> vehicles,
+            List<K2530341Customer> customers, List<K2530341Booking> bookings) {
+        // Build the dictionary of repeated short strings first
+        List<String> dictionary = new ArrayList<>();
+        Map<String, Integer> dictionaryIndex = new HashMap<>();
+        for (K2530341Vehicle v : vehicles) {
+            intern(v.getCategory(), dictionary, dictionaryIndex);
+            intern(v.getAvailabilityStatus(), dictionary, dictionaryIndex);
+        }
+
+        Path temp = Paths.get(target.toString() + ".tmp");
+        try {
+            try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.CREATE,
+                    StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+                 DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Channels.newOutputStream(channel), 1 << 16))) {
+                out.writeInt(MAGIC);
+                out.writeInt(FORMAT_VERSION);
+
+                out.writeInt(dictionary.size());
+                for (String s : dictionary) {
+                    writeString(out, s);
+                }
+
+                ByteArrayOutputStream recordBytes = new ByteArrayOutputStream(128);
+                DataOutputStream record = new DataOutputStream(recordBytes);
+
+                out.writeInt(vehicles.size());
+                for (K2530341Vehicle v : vehicles) {
+                    recordBytes.reset();
+                    writeString(record, v.getCarId());
+                    writeString(record, v.getModel());
+                    record.writeInt(dictionaryIndex.get(v.getCategory()));
+                    record.writeDouble(v.getDailyRentalPrice());
+                    record.writeInt(dictionaryIndex.get(v.getAvailabilityStatus()));
+                    writeRecord(out, recordBytes);
+                }
+
+                out.writeInt(customers.size());
+                for (K2530341Customer c : customers) {
+                    recordBytes.reset();
+                    writeString(record, c.getNicOrPassport());
+                    writeString(record, c.getName());
+                    writeString(record, c.getContactNumber());
+                    writeString(record, c.getEmail());
+                    writeRecord(out, recordBytes);
+                }
+
+                out.writeInt(bookings.size());
+                for (K2530341Booking b : bookings) {
+                    recordBytes.reset();
+                    writeString(record, b.getBookingId());
+                    writeString(record, b.getCustomer().getNicOrPassport());
+                    writeString(record, b.getVehicle().getCarId());
+                    record.writeInt((int) b.getStartDate().toEpochDay());
+                    record.writeInt((int) b.getEndDate().toEpochDay());
+                    record.writeInt(b.getTotalKm());
+                    writeRecord(out, recordBytes);
+                }
+
+                out.flush();
+                channel.force(true);
+            }
+            try {
+                Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING);
+            }
+            return true;
+        } catch (IOException e) {
+            System.err.println("Error saving binary snapshot: " + e.getMessage());
+            return false;
+        }
+    }
+
+    private static void intern(String s, List<String> dictionary, Map<String, Integer> index) {
+        if (s != null && !index.containsKey(s)) {
+            index.put(s, dictionary.size());
+            dictionary.add(s);
+        }
+    }
+
+    private static void writeString(DataOutputStream out, String s) throws IOException {
+        byte[] bytes = (s == null ? "" : s).getBytes(StandardCharsets.UTF_8);
+        int length = bytes.length;
+        while ((length & ~0x7F) != 0) { // 7 bits per byte, high bit set on all but the last
+            out.writeByte((length & 0x7F) | 0x80);
+            length >>>= 7;
+        }
+        out.writeByte(length);
+        out.write(bytes);
+    }
+
+    private static void writeRecord(DataOutputStream out, ByteArrayOutputStream record) throws IOException {
+        out.writeInt(record.size());
+        record.writeTo(out);
+    }
+
+    // ------------ Read ------------
+    /**
+     * Map the snapshot file into memory and decode it.
+     * Returns null if the file is missing or not a valid snapshot.
+     */
+    public static Contents read(Path source) {
+        if (!Files.exists(source)) return null;
+
+        try (FileChannel channel = FileChannel.open(source, StandardOpenOption.READ)) {
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            if (buffer.getInt() != MAGIC) {
+                System.err.println("Not an EcoRide snapshot: " + source);
+                return null;
+            }
+            int version = buffer.getInt();
+            if (version != FORMAT_VERSION && version != SHORT_LENGTH_VERSION) {
+                System.err.println("Unsupported snapshot version " + version + " in " + source);
+                return null;
+            }
+
+            byte[] scratch = new byte[256];
+            String[] dictionary = new String[buffer.getInt()];
+            for (int i = 0; i < dictionary.length; i++) {
+                dictionary[i] = readString(buffer, scratch, version);
+            }
+
+            Contents contents = new Contents();
+            Map<String, K2530341Vehicle> vehicleById = new HashMap<>();
+            Map<String, K2530341Customer> customerById = new HashMap<>();
+
+            int vehicleCount = buffer.getInt();
+            for (int i = 0; i < vehicleCount; i++) {
+                int next = nextRecordPosition(buffer);
+                String id = readString(buffer, scratch, version);
+                String model = readString(buffer, scratch, version);
+                String category = dictionary[buffer.getInt()];
+                double price = buffer.getDouble();
+                String status = dictionary[buffer.getInt()];
+                buffer.position(next);
+
+                K2530341Vehicle v = new K2530341Vehicle(id, model, category, price, status);
+                contents.vehicles.add(v);
+                vehicleById.put(id, v);
+            }
+
+            int customerCount = buffer.getInt();
+            for (int i = 0; i < customerCount; i++) {
+                int next = nextRecordPosition(buffer);
+                String nic = readString(buffer, scratch, version);
+                String name = readString(buffer, scratch, version);
+                String contact = readString(buffer, scratch, version);
+                String email = readString(buffer, scratch, version);
+                buffer.position(next);
+
+                K2530341Customer c = new K2530341Customer(nic, name, contact, email);
+                contents.customers.add(c);
+                customerById.put(nic, c);
+            }
+
+            int bookingCount = buffer.getInt();
+            for (int i = 0; i < bookingCount; i++) {
+                int next = nextRecordPosition(buffer);
+                String bookingId = readString(buffer, scratch, version);
+                String customerNic = readString(buffer, scratch, version);
+                String vehicleId = readString(buffer, scratch, version);
+                LocalDate startDate = LocalDate.ofEpochDay(buffer.getInt());
+                LocalDate endDate = LocalDate.ofEpochDay(buffer.getInt());
+                int totalKm = buffer.getInt();
+                buffer.position(next);
+
+                K2530341Customer customer = customerById.get(customerNic);
+                K2530341Vehicle vehicle = vehicleById.get(vehicleId);
+                if (customer == null || vehicle == null) {
+                    System.err.println("Skipping booking " + bookingId + " (missing customer/vehicle).");
+                    continue;
+                }
+                contents.bookings.add(new K2530341Booking(bookingId, customer, vehicle, startDate, endDate, totalKm));
+            }
+            return contents;
+        } catch (IOException | BufferUnderflowException | IndexOutOfBoundsException e) {
+            System.err.println("Error loading binary snapshot: " + e);
+            return null;
+        }
+    }
+
+    // Reads the record length prefix and returns where the following record starts
+    private static int nextRecordPosition(ByteBuffer buffer) {
+        int length = buffer.getInt();
+        return buffer.position() + length;
+    }
+
+    private static String readString(ByteBuffer buffer, byte[] scratch, int version) {
+        int length = version == SHORT_LENGTH_VERSION ? Short.toUnsignedInt(buffer.getShort()) : readVarint(buffer);
+        if (length < 0 || length > buffer.remaining()) throw new BufferUnderflowException();
+        byte[] bytes = length <= scratch.length ? scratch : new byte[length];
+        buffer.get(bytes, 0, length);
+        return new String(bytes, 0, length, StandardCharsets.UTF_8);
+    }
+
+    private static int readVarint(ByteBuffer buffer) {
+        int value = 0;
+        for (int shift = 0; shift < 35; shift += 7) {
+            byte b = buffer.get();
+            value |= (b & 0x7F) << shift;
+            if (b >= 0) return value;
+        }
+        return -1; // More than 5 bytes: not a valid length
+    }
+}
@@ -1,6 +1,7 @@
 package com.ecoride;
 
 import java.time.LocalDate;
+import java.util.concurrent.atomic.AtomicLong;
 
 /**
  * Represents a booking in the EcoRide Car Rental System.
@@ -14,6 +15,8 @@ public class K2530341Booking {
     private LocalDate endDate;
     private int totalKm;
     private double deposit; // Refundable LKR 5,000
+    private final AtomicLong version = new AtomicLong(); // Bumped by every setter and by K2530341RentalSystem.updateBooking
+    private volatile K2530341FeeBreakdown fees; // Last K2530341PricingEngine.price() result, see getCachedFees()
 
     // Constructor
     public K2530341Booking(String bookingId, K2530341Customer customer, K2530341Vehicle vehicle,
@@ -29,25 +32,39 @@ public class K2530341Booking {
 
     // Getters and Setters
     public String getBookingId() { return bookingId; }
-    public void setBookingId(String bookingId) { this.bookingId = bookingId; }
+    public void setBookingId(String bookingId) { this.bookingId = bookingId; version.incrementAndGet(); }
 
     public K2530341Customer getCustomer() { return customer; }
-    public void setCustomer(K2530341Customer customer) { this.customer = customer; }
+    public void setCustomer(K2530341Customer customer) { this.customer = customer; version.incrementAndGet(); }
 
     public K2530341Vehicle getVehicle() { return vehicle; }
-    public void setVehicle(K2530341Vehicle vehicle) { this.vehicle = vehicle; }
+    public void setVehicle(K2530341Vehicle vehicle) { this.vehicle = vehicle; version.incrementAndGet(); }
 
     public LocalDate getStartDate() { return startDate; }
-    public void setStartDate(LocalDate startDate) { this.startDate = startDate; }
+    public void setStartDate(LocalDate startDate) { this.startDate = startDate; version.incrementAndGet(); }
 
     public LocalDate getEndDate() { return endDate; }
-    public void setEndDate(LocalDate endDate) { this.endDate = endDate; }
+    public void setEndDate(LocalDate endDate) { this.endDate = endDate; version.incrementAndGet(); }
 
     public int getTotalKm() { return totalKm; }
-    public void setTotalKm(int totalKm) { this.totalKm = totalKm; }
+    public void setTotalKm(int totalKm) { this.totalKm = totalKm; version.incrementAndGet(); }
 
     public double getDeposit() { return deposit; }
 
+    public long getVersion() { return version.get(); }
+    void setVersion(long version) { this.version.set(version); }
+
+    // The cached fees, only if they were priced at the current version; the engine checks tariff, km and category
+    K2530341FeeBreakdown getCachedFees() {
+        K2530341FeeBreakdown cached = fees;
+        return cached != null && cached.getBookingVersion() == version.get() ? cached : null;
+    }
+
+    // Keep fees priced at the current version; fees of an older version are not kept
+    void cacheFees(K2530341FeeBreakdown breakdown) {
+        if (breakdown.getBookingVersion() == version.get()) fees = breakdown;
+    }
+
     // Calculate number of days
     public long getNumberOfDays() {
         if (startDate.isAfter(endDate)) {
@@ -0,0 +1,236 @@
+package com.ecoride;
+
+import java.time.LocalDate;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+
+/**
+ * Secondary indexes over bookings, maintained by K2530341RentalSystem on every booking mutation.
+ * Bookings are kept in TreeMaps ordered by start date, one for all bookings and one per vehicle.
+ * An overlap query for [start, end] only visits bookings starting in [start - longest booking, end],
+ * so availability checks and "active on date" lookups are O(log n + matches) instead of a scan
+ * of all bookings. A third TreeMap orders all bookings by end date, for return reminders.
+ * Bookings are also grouped by customer NIC.
+ * Not thread-safe: K2530341RentalSystem guards it with its data lock.
+ * Demonstrates data structures: TreeMap range views, HashMap.
+ */
+public class K2530341BookingIndex {
+
+    // Bookings ordered by start date
+    private static class Schedule {
+        final TreeMap<LocalDate, List<K2530341Booking>> byStart = new TreeMap<>();
+        long maxDurationDays; // Longest booking ever indexed; never shrinks, which keeps queries correct
+
+        void add(K2530341Booking booking, IndexedKeys keys) {
+            byStart.computeIfAbsent(keys.startDate, d -> new ArrayList<>(1)).add(booking);
+            maxDurationDays = Math.max(maxDurationDays, ChronoUnit.DAYS.between(keys.startDate, keys.endDate));
+        }
+
+        void remove(K2530341Booking booking, IndexedKeys keys) {
+            List<K2530341Booking> sameDay = byStart.get(keys.startDate);
+            sameDay.removeIf(b -> b == booking);
+            if (sameDay.isEmpty()) byStart.remove(keys.startDate);
+        }
+
+        // Bookings that may overlap [startDate, endDate]: those starting in [startDate - longest booking, endDate]
+        Collection<List<K2530341Booking>> candidates(LocalDate startDate, LocalDate endDate) {
+            LocalDate from = startDate.minusDays(maxDurationDays);
+            if (from.isAfter(endDate)) return Collections.emptyList();
+            return byStart.subMap(from, true, endDate, true).values();
+        }
+    }
+
+    // The keys a booking was indexed under, so it can be removed even if it was modified afterwards
+    private static class IndexedKeys {
+        final String carId;
+        final String customerNic; // null if the booking has no customer
+        final LocalDate startDate;
+        final LocalDate endDate;
+
+        IndexedKeys(K2530341Booking booking) {
+            this.carId = booking.getVehicle().getCarId();
+            this.customerNic = booking.getCustomer() == null ? null : booking.getCustomer().getNicOrPassport();
+            this.startDate = booking.getStartDate();
+            this.endDate = booking.getEndDate();
+        }
+    }
+
+    private final Schedule all = new Schedule();
+    private final Map<String, Schedule> byVehicle = new HashMap<>(); // Key: carId
+    private final TreeMap<LocalDate, List<K2530341Booking>> byEnd = new TreeMap<>();
+    // Key: nicOrPassport. The lists are immutable and replaced on change, so callers can keep them without locking
+    private final Map<String, List<K2530341Booking>> byCustomer = new HashMap<>();
+    private final Map<K2530341Booking, IndexedKeys> indexed = new IdentityHashMap<>();
+    // Bookings whose end date is before their start date; they are not found by start date range alone
+    private final Map<K2530341Booking, Boolean> inverted = new IdentityHashMap<>();
+
+    public void add(K2530341Booking booking) {
+        if (indexed.containsKey(booking)) return;
+        IndexedKeys keys = new IndexedKeys(booking);
+        indexed.put(booking, keys);
+
+        all.add(booking, keys);
+        byVehicle.computeIfAbsent(keys.carId, id -> new Schedule()).add(booking, keys);
+        byEnd.computeIfAbsent(keys.endDate, d -> new ArrayList<>(1)).add(booking);
+        if (keys.endDate.isBefore(keys.startDate)) inverted.put(booking, Boolean.TRUE);
+        if (keys.customerNic != null) {
+            List<K2530341Booking> old = byCustomer.getOrDefault(keys.customerNic, Collections.emptyList());
+            List<K2530341Booking> updated = new ArrayList<>(old.size() + 1);
+            updated.addAll(old);
+            updated.add(booking);
+            byCustomer.put(keys.customerNic, Collections.unmodifiableList(updated));
+        }
+    }
+
+    public boolean remove(K2530341Booking booking) {
+        IndexedKeys keys = indexed.remove(booking);
+        if (keys == null) return false;
+
+        all.remove(booking, keys);
+        Schedule schedule = byVehicle.get(keys.carId);
+        schedule.remove(booking, keys);
+        if (schedule.byStart.isEmpty()) byVehicle.remove(keys.carId);
+        List<K2530341Booking> sameEnd = byEnd.get(keys.endDate);
+        sameEnd.removeIf(b -> b == booking);
+        if (sameEnd.isEmpty()) byEnd.remove(keys.endDate);
+        inverted.remove(booking);
+        if (keys.customerNic != null) {
+            List<K2530341Booking> updated = new ArrayList<>(byCustomer.get(keys.customerNic));
+            updated.removeIf(b -> b == booking);
+            if (updated.isEmpty()) {
+                byCustomer.remove(keys.customerNic);
+            } else {
+                byCustomer.put(keys.customerNic, Collections.unmodifiableList(updated));
+            }
+        }
+        return true;
+    }
+
+    public void clear() {
+        all.byStart.clear();
+        all.maxDurationDays = 0;
+        byVehicle.clear();
+        byEnd.clear();
+        byCustomer.clear();
+        indexed.clear();
+        inverted.clear();
+    }
+
+    /**
+     * Bookings of a vehicle whose dates overlap [startDate, endDate] (both inclusive).
+     */
+    public List<K2530341Booking> findOverlapping(String carId, LocalDate startDate, LocalDate endDate) {
+        Schedule schedule = byVehicle.get(carId);
+        return schedule == null ? new ArrayList<>() : overlapping(schedule, startDate, endDate);
+    }
+
+    /**
+     * True if any booking of the vehicle overlaps [startDate, endDate] (both inclusive).
+     */
+    public boolean hasOverlap(String carId, LocalDate startDate, LocalDate endDate) {
+        Schedule schedule = byVehicle.get(carId);
+        if (schedule == null) return false;
+        for (List<K2530341Booking> sameDay : schedule.candidates(startDate, endDate)) {
+            for (K2530341Booking booking : sameDay) {
+                if (!indexed.get(booking).endDate.isBefore(startDate)) return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * A customer's bookings in the order they were added, as an immutable list.
+     */
+    public List<K2530341Booking> findByCustomer(String nicOrPassport) {
+        return byCustomer.getOrDefault(nicOrPassport, Collections.emptyList());
+    }
+
+    /**
+     * Bookings active on the given date (start <= date <= end), ordered by start date.
+     */
+    public List<K2530341Booking> findActiveOn(LocalDate date) {
+        return overlapping(all, date, date);
+    }
+
+    /**
+     * Bookings starting in [from, to] (both inclusive; null means unbounded), ordered by start date.
+     */
+    public List<K2530341Booking> findStartingBetween(LocalDate from, LocalDate to) {
+        List<K2530341Booking> results = new ArrayList<>();
+        for (List<K2530341Booking> sameDay : startRange(from, to).values()) {
+            results.addAll(sameDay);
+        }
+        return results;
+    }
+
+    /**
+     * Bookings ending in [from, to] (both inclusive; null means unbounded), ordered by end date.
+     */
+    public List<K2530341Booking> findEndingBetween(LocalDate from, LocalDate to) {
+        NavigableMap<LocalDate, List<K2530341Booking>> range;
+        if (from != null && to != null) {
+            range = from.isAfter(to) ? Collections.emptyNavigableMap() : byEnd.subMap(from, true, to, true);
+        } else if (from != null) {
+            range = byEnd.tailMap(from, true);
+        } else {
+            range = to != null ? byEnd.headMap(to, true) : byEnd;
+        }
+        List<K2530341Booking> results = new ArrayList<>();
+        for (List<K2530341Booking> sameDay : range.values()) {
+            results.addAll(sameDay);
+        }
+        return results;
+    }
+
+    /**
+     * Bookings that lie within [from, to]: start >= from and end <= to (null means unbounded).
+     */
+    public List<K2530341Booking> findWithin(LocalDate from, LocalDate to) {
+        List<K2530341Booking> results = new ArrayList<>();
+        // A booking ending by 'to' also starts by 'to', unless its dates are inverted
+        for (List<K2530341Booking> sameDay : startRange(from, to).values()) {
+            for (K2530341Booking booking : sameDay) {
+                if (to == null || !indexed.get(booking).endDate.isAfter(to)) results.add(booking);
+            }
+        }
+        if (to != null) {
+            for (K2530341Booking booking : inverted.keySet()) {
+                IndexedKeys keys = indexed.get(booking);
+                if (keys.startDate.isAfter(to) && (from == null || !keys.startDate.isBefore(from))
+                        && !keys.endDate.isAfter(to)) {
+                    results.add(booking);
+                }
+            }
+        }
+        return results;
+    }
+
+    private NavigableMap<LocalDate, List<K2530341Booking>> startRange(LocalDate from, LocalDate to) {
+        if (from != null && to != null) {
+            return from.isAfter(to) ? Collections.emptyNavigableMap() : all.byStart.subMap(from, true, to, true);
+        }
+        if (from != null) return all.byStart.tailMap(from, true);
+        if (to != null) return all.byStart.headMap(to, true);
+        return all.byStart;
+    }
+
+    private List<K2530341Booking> overlapping(Schedule schedule, LocalDate startDate, LocalDate endDate) {
+        List<K2530341Booking> results = new ArrayList<>();
+        for (List<K2530341Booking> sameDay : schedule.candidates(startDate, endDate)) {
+            for (K2530341Booking booking : sameDay) {
+                if (!indexed.get(booking).endDate.isBefore(startDate)) {
+                    results.add(booking);
+                }
+            }
+        }
+        return results;
+    }
+}
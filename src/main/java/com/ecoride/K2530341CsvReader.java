@@ -0,0 +1,350 @@
+package com.ecoride;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.StringReader;
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+
+/**
+ * Streaming CSV tokenizer for the EcoRide data files.
+ * Records are scanned in place in a reusable char buffer; a field only becomes a String
+ * when field() is called, and numbers and dates are parsed straight from the buffer.
+ * Quoted fields ("Smith, John", embedded "" quotes) are supported.
+ * Demonstrates algorithms: single-pass scanning with a refillable buffer.
+ */
+public class K2530341CsvReader {
+    private static final int DEFAULT_BUFFER_SIZE = 1 << 16;
+    private static final int MAX_FIELDS = 64;
+
+    // Fallback patterns for dates that are not ISO-8601, compiled once
+    private static final DateTimeFormatter DAY_FIRST = DateTimeFormatter.ofPattern("dd/MM/yyyy");
+    private static final DateTimeFormatter MONTH_FIRST = DateTimeFormatter.ofPattern("MM/dd/yyyy");
+
+    private final Reader reader;
+    private char[] buffer;
+    private int limit;        // Number of valid chars in buffer
+    private int position;     // Start of the next record
+    private boolean endOfInput;
+
+    // Field boundaries of the current record, as offsets into buffer (or into unquoted)
+    private int[] fieldStart = new int[MAX_FIELDS];
+    private int[] fieldEnd = new int[MAX_FIELDS];
+    private boolean[] fieldQuoted = new boolean[MAX_FIELDS];
+    private int fieldCount;
+    private int fieldBase;    // Leading fields hidden by skipFields()
+
+    // Unescaped text of quoted fields of the current record
+    private final StringBuilder unquoted = new StringBuilder();
+
+    public K2530341CsvReader(Reader reader) {
+        this(reader, DEFAULT_BUFFER_SIZE);
+    }
+
+    public K2530341CsvReader(Reader reader, int bufferSize) {
+        this.reader = reader;
+        this.buffer = new char[Math.max(16, bufferSize)];
+    }
+
+    // ------------ Record scanning ------------
+    /**
+     * Advance to the next non-blank record.
+     * @return false at end of input
+     */
+    public boolean nextRecord() throws IOException {
+        while (true) {
+            int end = scanRecord();
+            if (end < 0) return false;
+            if (!isBlankRecord()) return true;
+        }
+    }
+
+    // Scans one record starting at position; returns -1 at end of input
+    private int scanRecord() throws IOException {
+        fieldCount = 0;
+        fieldBase = 0;
+        unquoted.setLength(0);
+
+        int i = position;
+        while (true) {
+            if (i >= limit) {
+                if (endOfInput) {
+                    if (i == position) return -1;
+                    if (buffer[i - 1] == ',') addField(i, i, false); // Trailing empty field
+                    break; // Last record without trailing newline
+                }
+                i = refill(i);
+                continue;
+            }
+
+            if (buffer[i] == '"' && isFieldStart(i)) {
+                // Quoted field: find the closing quote, doubling "" as an escaped quote
+                int j = i + 1;
+                int textStart = unquoted.length();
+                boolean closed = false;
+                while (!closed) {
+                    if (j >= limit) {
+                        if (endOfInput) break;
+                        j = refill(j);
+                        continue;
+                    }
+                    char c = buffer[j];
+                    if (c == '"') {
+                        if (j + 1 >= limit && !endOfInput) {
+                            j = refill(j); // Need the next char to tell "" from a closing quote
+                            continue;
+                        }
+                        if (j + 1 < limit && buffer[j + 1] == '"') {
+                            unquoted.append('"');
+                            j += 2;
+                        } else {
+                            closed = true;
+                            j++;
+                        }
+                    } else {
+                        unquoted.append(c);
+                        j++;
+                    }
+                }
+                addField(textStart, unquoted.length(), true);
+                // Skip anything between the closing quote and the separator
+                while (true) {
+                    if (j >= limit) {
+                        if (endOfInput) break;
+                        j = refill(j);
+                        continue;
+                    }
+                    if (buffer[j] == ',' || buffer[j] == '\n' || buffer[j] == '\r') break;
+                    j++;
+                }
+                i = j;
+                if (i < limit && buffer[i] == ',') {
+                    i++;
+                    continue;
+                }
+                break;
+            }
+
+            // Unquoted field
+            int start = i;
+            while (true) {
+                if (i >= limit) {
+                    if (endOfInput) break;
+                    int shift = position;
+                    i = refill(i);
+                    start -= shift;
+                    continue;
+                }
+                char c = buffer[i];
+                if (c == ',' || c == '\n' || c == '\r') break;
+                i++;
+            }
+            addField(start, i, false);
+            if (i < limit && buffer[i] == ',') {
+                i++;
+                continue;
+            }
+            break;
+        }
+
+        // Consume the line terminator
+        if (i < limit && buffer[i] == '\r') i++;
+        if (i >= limit && !endOfInput) i = refill(i);
+        if (i < limit && buffer[i] == '\n') i++;
+        position = i;
+        return i;
+    }
+
+    private boolean isFieldStart(int i) {
+        return fieldCount == 0 ? i == position : buffer[i - 1] == ',';
+    }
+
+    private boolean isBlankRecord() {
+        if (fieldCount != 1 || fieldQuoted[0]) return false;
+        for (int k = fieldStart[0]; k < fieldEnd[0]; k++) {
+            if (!Character.isWhitespace(buffer[k])) return false;
+        }
+        return true;
+    }
+
+    private void addField(int start, int end, boolean quoted) {
+        if (fieldCount == fieldStart.length) {
+            fieldStart = java.util.Arrays.copyOf(fieldStart, fieldCount * 2);
+            fieldEnd = java.util.Arrays.copyOf(fieldEnd, fieldCount * 2);
+            fieldQuoted = java.util.Arrays.copyOf(fieldQuoted, fieldCount * 2);
+        }
+        fieldStart[fieldCount] = start;
+        fieldEnd[fieldCount] = end;
+        fieldQuoted[fieldCount] = quoted;
+        fieldCount++;
+    }
+
+    /**
+     * Move the current record to the front of the buffer (growing it if the record fills it)
+     * and read more input. Returns the scan index adjusted for the move.
+     */
+    private int refill(int scanIndex) throws IOException {
+        int shift = position;
+        int kept = limit - position;
+        if (shift > 0) {
+            System.arraycopy(buffer, position, buffer, 0, kept);
+            for (int f = 0; f < fieldCount; f++) {
+                if (!fieldQuoted[f]) {
+                    fieldStart[f] -= shift;
+                    fieldEnd[f] -= shift;
+                }
+            }
+        } else if (kept == buffer.length) {
+            buffer = java.util.Arrays.copyOf(buffer, buffer.length * 2);
+        }
+        position = 0;
+        limit = kept;
+
+        int read = reader.read(buffer, limit, buffer.length - limit);
+        if (read < 0) {
+            endOfInput = true;
+        } else {
+            limit += read;
+        }
+        return scanIndex - shift;
+    }
+
+    // ------------ Field access ------------
+    public int fieldCount() {
+        return fieldCount - fieldBase;
+    }
+
+    /**
+     * Hide the first n fields of the current record, so that field(0) refers to field n.
+     * Lets a prefix (such as a journal operation and key) be read before an entity row.
+     */
+    public void skipFields(int n) {
+        fieldBase = Math.min(fieldCount, fieldBase + n);
+    }
+
+    public String field(int index) {
+        int f = fieldBase + index;
+        int start = fieldStart[f];
+        int end = fieldEnd[f];
+        return fieldQuoted[f] ? unquoted.substring(start, end) : new String(buffer, start, end - start);
+    }
+
+    public int intField(int index) {
+        int f = fieldBase + index;
+        if (fieldQuoted[f]) return Integer.parseInt(field(index).trim());
+        int i = fieldStart[f];
+        int end = fieldEnd[f];
+        boolean negative = i < end && buffer[i] == '-';
+        if (negative) i++;
+        if (i == end) throw new NumberFormatException("Empty number");
+        int value = 0;
+        for (; i < end; i++) {
+            int digit = buffer[i] - '0';
+            if (digit < 0 || digit > 9) return Integer.parseInt(field(index).trim()); // Let the JDK report it
+            value = value * 10 + digit;
+        }
+        return negative ? -value : value;
+    }
+
+    public double doubleField(int index) {
+        return Double.parseDouble(field(index));
+    }
+
+    /**
+     * Parse a date field; returns null if it is blank or not in a supported format.
+     */
+    public LocalDate dateField(int index) {
+        int f = fieldBase + index;
+        if (fieldQuoted[f]) return parseDate(field(index));
+        LocalDate iso = parseIsoDate(buffer, fieldStart[f], fieldEnd[f]);
+        return iso != null ? iso : parseDate(field(index));
+    }
+
+    /**
+     * All fields of the current record as Strings.
+     */
+    public String[] toArray() {
+        String[] fields = new String[fieldCount()];
+        for (int i = 0; i < fields.length; i++) {
+            fields[i] = field(i);
+        }
+        return fields;
+    }
+
+    // ------------ Static helpers ------------
+    /**
+     * Split a single CSV line into fields, honouring quotes.
+     */
+    public static String[] splitLine(String line) {
+        K2530341CsvReader reader = new K2530341CsvReader(new StringReader(line), line.length() + 1);
+        try {
+            return reader.nextRecord() ? reader.toArray() : new String[0];
+        } catch (IOException e) {
+            throw new IllegalStateException(e); // StringReader does not throw
+        }
+    }
+
+    /**
+     * Quote a value for writing if it contains a separator or quote.
+     * Line breaks are replaced by spaces so every record stays on one line.
+     */
+    public static String quote(String value) {
+        if (value == null) return "";
+        boolean needsQuotes = false;
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == ',' || c == '"' || c == '\n' || c == '\r') {
+                needsQuotes = true;
+                break;
+            }
+        }
+        if (!needsQuotes) return value;
+        String flat = value.replace('\r', ' ').replace('\n', ' ');
+        return '"' + flat.replace("\"", "\"\"") + '"';
+    }
+
+    /**
+     * Parse yyyy-MM-dd, then dd/MM/yyyy, then MM/dd/yyyy.
+     * ISO dates take a fast path without formatter or exceptions.
+     */
+    public static LocalDate parseDate(String s) {
+        if (s == null || s.isBlank()) return null;
+        String text = s.trim();
+        LocalDate iso = parseIsoDate(text.toCharArray(), 0, text.length());
+        if (iso != null) return iso;
+        try {
+            return LocalDate.parse(text, DAY_FIRST);
+        } catch (DateTimeParseException ignored) {}
+        try {
+            return LocalDate.parse(text, MONTH_FIRST);
+        } catch (DateTimeParseException ignored) {}
+        System.err.println("Could not parse date: " + s);
+        return null;
+    }
+
+    // Returns null when chars[start, end) is not a yyyy-MM-dd date
+    private static LocalDate parseIsoDate(char[] chars, int start, int end) {
+        if (end - start != 10 || chars[start + 4] != '-' || chars[start + 7] != '-') return null;
+        int year = digits(chars, start, 4);
+        int month = digits(chars, start + 5, 2);
+        int day = digits(chars, start + 8, 2);
+        if (year < 0 || month < 1 || month > 12 || day < 1 || day > 31) return null;
+        // Like the SMART resolver of the old formatter, clamp e.g. 31 April to 30 April
+        if (day > 28) {
+            day = Math.min(day, YearMonth.of(year, month).lengthOfMonth());
+        }
+        return LocalDate.of(year, month, day);
+    }
+
+    private static int digits(char[] chars, int start, int count) {
+        int value = 0;
+        for (int i = start; i < start + count; i++) {
+            int digit = chars[i] - '0';
+            if (digit < 0 || digit > 9) return -1;
+            value = value * 10 + digit;
+        }
+        return value;
+    }
+}
@@ -0,0 +1,91 @@
+package com.ecoride;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.channels.OverlappingFileLockException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Keeps a second EcoRide process away from the data files of the EcoRide Car Rental System.
+ * journal.log, the snapshots and outbox.log are only safe with one writer: another process would
+ * replay and truncate the journal, and resend the messages still queued in the outbox.
+ * The process holding an OS file lock on ecoride.lock owns the data files; the lock goes away with
+ * the process, so a crash leaves nothing to clean up. The file holds the owner's process id.
+ * Demonstrates file I/O: advisory file locking.
+ */
+public final class K2530341DataLock {
+    public static final String LOCK_FILE = "ecoride.lock";
+
+    private final FileChannel channel;
+    private final FileLock lock;
+
+    private K2530341DataLock(FileChannel channel, FileLock lock) {
+        this.channel = channel;
+        this.lock = lock;
+    }
+
+    /**
+     * Lock the data files in the working directory; null if another process holds them.
+     */
+    public static K2530341DataLock tryAcquire() {
+        return tryAcquire(Paths.get(LOCK_FILE));
+    }
+
+    public static K2530341DataLock tryAcquire(Path path) {
+        FileChannel channel = null;
+        try {
+            channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+            FileLock lock = channel.tryLock();
+            if (lock == null) {
+                channel.close();
+                return null;
+            }
+            channel.truncate(0);
+            channel.write(ByteBuffer.wrap((ProcessHandle.current().pid() + "\n").getBytes(StandardCharsets.US_ASCII)));
+            return new K2530341DataLock(channel, lock);
+        } catch (OverlappingFileLockException e) {
+            close(channel); // Already held by this process
+            return null;
+        } catch (IOException e) {
+            System.err.println("Error locking data files: " + e.getMessage());
+            close(channel);
+            return null;
+        }
+    }
+
+    /**
+     * The process id written by the holder of the lock, or "unknown".
+     */
+    public static String owner() {
+        try {
+            String pid = new String(Files.readAllBytes(Paths.get(LOCK_FILE)), StandardCharsets.US_ASCII).trim();
+            return pid.isEmpty() ? "unknown" : pid;
+        } catch (IOException e) {
+            return "unknown";
+        }
+    }
+
+    public void release() {
+        try {
+            lock.release();
+        } catch (IOException e) {
+            System.err.println("Error releasing data lock: " + e.getMessage());
+        }
+        close(channel);
+    }
+
+    private static void close(FileChannel channel) {
+        if (channel == null) return;
+        try {
+            channel.close();
+        } catch (IOException e) {
+            System.err.println("Error closing data lock: " + e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,112 @@
+package com.ecoride;
+
+/**
+ * The priced fees of a rental in the EcoRide Car Rental System, as computed by K2530341PricingEngine.
+ * Immutable, so one breakdown is shared by the invoice, the fee estimate, the notification emails
+ * and search ranking. It remembers the tariff version and booking version it was computed from,
+ * which lets the engine tell whether a cached breakdown is still current.
+ * Demonstrates OOP: immutable value object.
+ */
+public final class K2530341FeeBreakdown {
+    private final K2530341VehicleCategory category;
+    private final long days;
+    private final int actualKm;
+    private final double dailyRate;
+    private final double basePrice;
+    private final double discountRate;
+    private final double discount;
+    private final int freeKmPerDay;
+    private final int extraKm;
+    private final double extraKmRate;
+    private final double extraKmCharge;
+    private final double subtotal;
+    private final double taxRate;
+    private final double tax;
+    private final double deposit;
+    // What the breakdown was computed from
+    private final long tariffVersion;
+    private final long bookingVersion;
+    private volatile String text; // generateFeeBreakdown() text, formatted on first use
+
+    K2530341FeeBreakdown(K2530341VehicleCategory category, long days, int actualKm, double dailyRate, double basePrice,
+            double discountRate, double discount, int freeKmPerDay, int extraKm, double extraKmRate, double extraKmCharge,
+            double subtotal, double taxRate, double tax, double deposit, long tariffVersion, long bookingVersion) {
+        this.category = category;
+        this.days = days;
+        this.actualKm = actualKm;
+        this.dailyRate = dailyRate;
+        this.basePrice = basePrice;
+        this.discountRate = discountRate;
+        this.discount = discount;
+        this.freeKmPerDay = freeKmPerDay;
+        this.extraKm = extraKm;
+        this.extraKmRate = extraKmRate;
+        this.extraKmCharge = extraKmCharge;
+        this.subtotal = subtotal;
+        this.taxRate = taxRate;
+        this.tax = tax;
+        this.deposit = deposit;
+        this.tariffVersion = tariffVersion;
+        this.bookingVersion = bookingVersion;
+    }
+
+    public K2530341VehicleCategory getCategory() { return category; }
+    public long getDays() { return days; }
+    public int getActualKm() { return actualKm; }
+    public double getDailyRate() { return dailyRate; }
+    public double getBasePrice() { return basePrice; }
+    public double getDiscountRate() { return discountRate; }
+    public double getDiscount() { return discount; }
+    public double getDiscountedBase() { return basePrice - discount; }
+    public int getFreeKmPerDay() { return freeKmPerDay; }
+    public int getTotalFreeKm() { return freeKmPerDay * (int) days; }
+    public int getExtraKm() { return extraKm; }
+    public double getExtraKmRate() { return extraKmRate; }
+    public double getExtraKmCharge() { return extraKmCharge; }
+    public double getSubtotal() { return subtotal; }
+    public double getTaxRate() { return taxRate; }
+    public double getTax() { return tax; }
+    public double getDeposit() { return deposit; }
+
+    // Rental charges: subtotal and tax, without the refundable deposit
+    public double getCharges() { return subtotal + tax; }
+
+    // Everything collected at the counter, including the deposit
+    public double getTotal() { return getCharges() + deposit; }
+
+    long getTariffVersion() { return tariffVersion; }
+    long getBookingVersion() { return bookingVersion; }
+
+    /**
+     * The breakdown as printed on invoices and in the invoice email.
+     */
+    public String format() {
+        String formatted = text;
+        if (formatted != null) return formatted;
+        StringBuilder breakdown = new StringBuilder();
+        breakdown.append("=== FEE BREAKDOWN ===\n");
+        breakdown.append(String.format("Daily Rate: LKR %.2f\n", dailyRate));
+        breakdown.append(String.format("Rental Days: %d\n", days));
+        breakdown.append(String.format("Base Price: LKR %.2f\n", basePrice));
+
+        if (discount > 0) {
+            breakdown.append(String.format("Long-term Discount (%.0f%%): -LKR %.2f\n", discountRate * 100, discount));
+            breakdown.append(String.format("Discounted Base: LKR %.2f\n", getDiscountedBase()));
+        }
+
+        breakdown.append(String.format("Free Km per Day: %d km\n", freeKmPerDay));
+        breakdown.append(String.format("Total Free Km: %d km\n", getTotalFreeKm()));
+        breakdown.append(String.format("Actual Km Driven: %d km\n", actualKm));
+        breakdown.append(String.format("Extra Km: %d km\n", extraKm));
+        breakdown.append(String.format("Extra Km Rate: LKR %.2f per km\n", extraKmRate));
+        breakdown.append(String.format("Extra Km Charge: LKR %.2f\n", extraKmCharge));
+        breakdown.append(String.format("Subtotal (before tax): LKR %.2f\n", subtotal));
+        breakdown.append(String.format("Tax Rate: %.1f%%\n", taxRate * 100));
+        breakdown.append(String.format("Tax Amount: LKR %.2f\n", tax));
+        breakdown.append(String.format("Refundable Deposit: LKR %.2f\n", deposit));
+        breakdown.append(String.format("TOTAL AMOUNT: LKR %.2f\n", getTotal()));
+        formatted = breakdown.toString();
+        text = formatted;
+        return formatted;
+    }
+}
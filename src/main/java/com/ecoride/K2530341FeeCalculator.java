@@ -3,71 +3,17 @@ package com.ecoride;
 /**
  * Fee Calculator for EcoRide Car Rental System.
  * Handles all fee calculations including base price, discounts, extra km charges, and taxes.
+ * The rates and the calculation live in K2530341PricingEngine; these methods read the current
+ * tariff and the breakdown the engine keeps for each booking.
  * Demonstrates OOP: Utility class with static methods.
  */
 public class K2530341FeeCalculator {
 
-    // Package details constants
-    private static final double COMPACT_PETROL_DAILY = 5000.0;
-    private static final double HYBRID_DAILY = 7500.0;
-    private static final double ELECTRIC_DAILY = 10000.0;
-    private static final double LUXURY_SUV_DAILY = 15000.0;
-    private static final double RACING_DAILY = 20000.0;
-    private static final double OFF_ROAD_SUV_DAILY = 18000.0;
-    private static final double SUPER_LUXURY_DAILY = 25000.0;
-
-    private static final int COMPACT_PETROL_FREE_KM = 100;
-    private static final int HYBRID_FREE_KM = 150;
-    private static final int ELECTRIC_FREE_KM = 200;
-    private static final int LUXURY_SUV_FREE_KM = 250;
-    private static final int RACING_FREE_KM = 300;
-    private static final int OFF_ROAD_SUV_FREE_KM = 200;
-    private static final int SUPER_LUXURY_FREE_KM = 400;
-
-    private static final double COMPACT_PETROL_EXTRA_RATE = 50.0;
-    private static final double HYBRID_EXTRA_RATE = 60.0;
-    private static final double ELECTRIC_EXTRA_RATE = 40.0;
-    private static final double LUXURY_SUV_EXTRA_RATE = 75.0;
-
-    private static final double COMPACT_PETROL_TAX = 0.10;
-    private static final double HYBRID_TAX = 0.12;
-    private static final double ELECTRIC_TAX = 0.08;
-    private static final double LUXURY_SUV_TAX = 0.15;
-
-    private static final double DEPOSIT = 5000.0;
-    private static final double DISCOUNT_RATE = 0.10; // 10% for 7+ days
-
     /**
-     * Calculate total fee for a booking with actual kilometers driven
+     * Calculate total fee for a booking with actual kilometers driven (deposit included)
      */
     public static double calculateTotalFee(K2530341Booking booking, int actualKm) {
-         // Implementation details hidden from callers
-        String category = booking.getVehicle().getCategory();
-        long days = booking.getNumberOfDays();
-
-        // Calculate base price
-        double basePrice = getDailyRate(category) * days;
-
-        // Apply discount for 7+ days
-        if (days >= 7) {
-            basePrice *= (1 - DISCOUNT_RATE);
-        }
-
-        // Calculate extra km charges
-        int freeKm = getFreeKmForCategory(category);
-        int extraKm = Math.max(0, actualKm - (freeKm * (int)days));
-        double extraKmCharge = extraKm * getExtraKmRateForCategory(category);
-
-        // Calculate subtotal before tax
-        double subtotal = basePrice + extraKmCharge;
-
-        // Add tax
-        double tax = subtotal * getTaxRateForCategory(category);
-
-        // Add deposit (refundable)
-        double total = subtotal + tax + DEPOSIT;
-
-        return total;
+        return K2530341PricingEngine.price(booking, actualKm).getTotal();
     }
 
     /**
@@ -80,126 +26,65 @@ public class K2530341FeeCalculator {
     /**
      * Get daily rental rate for category
      */
+    public static double getDailyRate(K2530341VehicleCategory category) {
+        return K2530341PricingEngine.getTariff().getDailyRate(category);
+    }
+
     public static double getDailyRate(String category) {
-        switch (category.toLowerCase()) {
-            case "compact petrol": return COMPACT_PETROL_DAILY;
-            case "hybrid": return HYBRID_DAILY;
-            case "electric": return ELECTRIC_DAILY;
-            case "luxury suv": return LUXURY_SUV_DAILY;
-            case "racing": return RACING_DAILY;
-            case "off road suv": return OFF_ROAD_SUV_DAILY;
-            case "super luxury": return SUPER_LUXURY_DAILY;
-            default: return 0.0;
-        }
+        return getDailyRate(K2530341VehicleCategory.of(category));
     }
 
     /**
      * Get free km per day for category
      */
+    public static int getFreeKmForCategory(K2530341VehicleCategory category) {
+        return K2530341PricingEngine.getTariff().getFreeKm(category);
+    }
+
     public static int getFreeKmForCategory(String category) {
-        switch (category.toLowerCase()) {
-            case "compact petrol": return COMPACT_PETROL_FREE_KM;
-            case "hybrid": return HYBRID_FREE_KM;
-            case "electric": return ELECTRIC_FREE_KM;
-            case "luxury suv": return LUXURY_SUV_FREE_KM;
-            case "racing": return RACING_FREE_KM;
-            case "off road suv": return OFF_ROAD_SUV_FREE_KM;
-            case "super luxury": return SUPER_LUXURY_FREE_KM;
-            default: return 0;
-        }
+        return getFreeKmForCategory(K2530341VehicleCategory.of(category));
     }
 
     /**
      * Get extra km charge rate for category
      */
+    public static double getExtraKmRateForCategory(K2530341VehicleCategory category) {
+        return K2530341PricingEngine.getTariff().getExtraKmRate(category);
+    }
+
     public static double getExtraKmRateForCategory(String category) {
-        switch (category.toLowerCase()) {
-            case "compact petrol": return COMPACT_PETROL_EXTRA_RATE;
-            case "hybrid": return HYBRID_EXTRA_RATE;
-            case "electric": return ELECTRIC_EXTRA_RATE;
-            case "luxury suv": return LUXURY_SUV_EXTRA_RATE;
-            default: return 0.0;
-        }
+        return getExtraKmRateForCategory(K2530341VehicleCategory.of(category));
     }
 
     /**
      * Get tax rate for category
      */
+    public static double getTaxRateForCategory(K2530341VehicleCategory category) {
+        return K2530341PricingEngine.getTariff().getTaxRate(category);
+    }
+
     public static double getTaxRateForCategory(String category) {
-        switch (category.toLowerCase()) {
-            case "compact petrol": return COMPACT_PETROL_TAX;
-            case "hybrid": return HYBRID_TAX;
-            case "electric": return ELECTRIC_TAX;
-            case "luxury suv": return LUXURY_SUV_TAX;
-            default: return 0.0;
-        }
+        return getTaxRateForCategory(K2530341VehicleCategory.of(category));
     }
 
     /**
      * Get deposit amount
      */
     public static double getDeposit() {
-        return DEPOSIT;
+        return K2530341PricingEngine.getTariff().getDeposit();
     }
 
     /**
      * Calculate discount amount for long-term rentals
      */
     public static double calculateDiscount(double basePrice, long days) {
-        if (days >= 7) {
-            return basePrice * DISCOUNT_RATE;
-        }
-        return 0.0;
+        return K2530341PricingEngine.getTariff().discountFor(basePrice, days);
     }
 
     /**
      * Generate detailed fee breakdown
      */
     public static String generateFeeBreakdown(K2530341Booking booking, int actualKm) {
-        // Detailed calculation breakdown provided
-        String category = booking.getVehicle().getCategory();
-        long days = booking.getNumberOfDays();
-
-        double dailyRate = getDailyRate(category);
-        double basePrice = dailyRate * days;
-        double discount = calculateDiscount(basePrice, days);
-        double discountedBase = basePrice - discount;
-
-        int freeKm = getFreeKmForCategory(category);
-        int totalFreeKm = freeKm * (int)days;
-        int extraKm = Math.max(0, actualKm - totalFreeKm);
-        double extraKmRate = getExtraKmRateForCategory(category);
-        double extraKmCharge = extraKm * extraKmRate;
-
-        double subtotal = discountedBase + extraKmCharge;
-        double taxRate = getTaxRateForCategory(category);
-        double tax = subtotal * taxRate;
-
-        double total = subtotal + tax + DEPOSIT;
-
-        StringBuilder breakdown = new StringBuilder();
-        breakdown.append("=== FEE BREAKDOWN ===\n");
-        breakdown.append(String.format("Daily Rate: LKR %.2f\n", dailyRate));
-        breakdown.append(String.format("Rental Days: %d\n", days));
-        breakdown.append(String.format("Base Price: LKR %.2f\n", basePrice));
-
-        if (discount > 0) {
-            breakdown.append(String.format("Long-term Discount (10%%): -LKR %.2f\n", discount));
-            breakdown.append(String.format("Discounted Base: LKR %.2f\n", discountedBase));
-        }
-
-        breakdown.append(String.format("Free Km per Day: %d km\n", freeKm));
-        breakdown.append(String.format("Total Free Km: %d km\n", totalFreeKm));
-        breakdown.append(String.format("Actual Km Driven: %d km\n", actualKm));
-        breakdown.append(String.format("Extra Km: %d km\n", extraKm));
-        breakdown.append(String.format("Extra Km Rate: LKR %.2f per km\n", extraKmRate));
-        breakdown.append(String.format("Extra Km Charge: LKR %.2f\n", extraKmCharge));
-        breakdown.append(String.format("Subtotal (before tax): LKR %.2f\n", subtotal));
-        breakdown.append(String.format("Tax Rate: %.1f%%\n", taxRate * 100));
-        breakdown.append(String.format("Tax Amount: LKR %.2f\n", tax));
-        breakdown.append(String.format("Refundable Deposit: LKR %.2f\n", DEPOSIT));
-        breakdown.append(String.format("TOTAL AMOUNT: LKR %.2f\n", total));
-
-        return breakdown.toString();
+        return K2530341PricingEngine.price(booking, actualKm).format();
     }
 }
@@ -4,6 +4,7 @@ import javax.swing.*;
 import javax.swing.border.*;
 import java.awt.*;
 import java.awt.event.*;
+import java.io.UncheckedIOException;
 import java.time.LocalDate;
 import java.time.format.DateTimeParseException;
 
@@ -50,6 +51,7 @@ public class K2530341GUI extends JFrame {
 
     public K2530341GUI() {
         rentalSystem = new K2530341RentalSystem();
+        rentalSystem.startReminders();
         showLoginDialog();
     }
 
@@ -769,9 +771,11 @@ public class K2530341GUI extends JFrame {
 
         JPanel controls = card("Invoice Generation");
         JButton generateBtn = primaryButton("Generate Invoice");
+        JButton nightlyBtn = neutralButton("Send Day's Invoices");
         JPanel row = new JPanel(new FlowLayout(FlowLayout.LEFT, 12, 8));
         row.setBackground(Palette.BG_CARD);
         row.add(generateBtn);
+        row.add(nightlyBtn);
         controls.add(row, BorderLayout.CENTER);
 
         JTextArea invoicesArea = new JTextArea();
@@ -784,6 +788,7 @@ public class K2530341GUI extends JFrame {
         outputArea = invoicesArea;
 
         generateBtn.addActionListener(e -> generateInvoiceDialog());
+        nightlyBtn.addActionListener(e -> nightlyInvoicesDialog());
 
         root.add(controls, BorderLayout.NORTH);
         root.add(listCard, BorderLayout.CENTER);
@@ -1003,56 +1008,41 @@ private void makeBookingDialog(JTextArea out) {
                 return;
             }
 
-            // Calculate costs
-            String category = vehicle.getCategory();
-            double dailyRate = K2530341FeeCalculator.getDailyRate(category);
-            double basePrice = dailyRate * days;
-            double discount = (days >= 7) ? basePrice * 0.10 : 0;
-            double discountedBase = basePrice - discount;
-
-            int freeKm = K2530341FeeCalculator.getFreeKmForCategory(category);
-            int totalFreeKm = freeKm * (int)days;
-            int extraKm = Math.max(0, totalKm - totalFreeKm);
-            double extraKmRate = K2530341FeeCalculator.getExtraKmRateForCategory(category);
-            double extraKmCharge = extraKm * extraKmRate;
-
-            double subtotal = discountedBase + extraKmCharge;
-            double taxRate = K2530341FeeCalculator.getTaxRateForCategory(category);
-            double tax = subtotal * taxRate;
-            double deposit = K2530341FeeCalculator.getDeposit();
-            double total = subtotal + tax + deposit;
+            // Priced by the same engine and tariff as the invoice
+            K2530341FeeBreakdown fees = K2530341PricingEngine.quote(vehicle.getCategoryType(), days, totalKm);
 
             StringBuilder breakdown = new StringBuilder();
             breakdown.append("=== ESTIMATED COST BREAKDOWN ===\n\n");
-            breakdown.append(String.format("Vehicle: %s (%s)\n", vehicle.getModel(), category));
+            breakdown.append(String.format("Vehicle: %s (%s)\n", vehicle.getModel(), vehicle.getCategory()));
             breakdown.append(String.format("Rental Period: %d days (%s to %s)\n\n",
                 days, startDate, endDate));
 
             breakdown.append("BASE CHARGES:\n");
-            breakdown.append(String.format("Daily Rate: LKR %.2f\n", dailyRate));
-            breakdown.append(String.format("Base Price (%d days): LKR %.2f\n", days, basePrice));
-            if (discount > 0) {
-                breakdown.append(String.format("Long-term Discount (10%%): -LKR %.2f\n", discount));
-                breakdown.append(String.format("Discounted Base: LKR %.2f\n\n", discountedBase));
+            breakdown.append(String.format("Daily Rate: LKR %.2f\n", fees.getDailyRate()));
+            breakdown.append(String.format("Base Price (%d days): LKR %.2f\n", days, fees.getBasePrice()));
+            if (fees.getDiscount() > 0) {
+                breakdown.append(String.format("Long-term Discount (%.0f%%): -LKR %.2f\n", fees.getDiscountRate() * 100,
+                    fees.getDiscount()));
+                breakdown.append(String.format("Discounted Base: LKR %.2f\n\n", fees.getDiscountedBase()));
             } else {
                 breakdown.append("\n");
             }
 
             breakdown.append("MILEAGE CHARGES:\n");
-            breakdown.append(String.format("Free Km per Day: %d km\n", freeKm));
-            breakdown.append(String.format("Total Free Km: %d km\n", totalFreeKm));
+            breakdown.append(String.format("Free Km per Day: %d km\n", fees.getFreeKmPerDay()));
+            breakdown.append(String.format("Total Free Km: %d km\n", fees.getTotalFreeKm()));
             breakdown.append(String.format("Total Km Driven: %d km\n", totalKm));
-            breakdown.append(String.format("Extra Km: %d km\n", extraKm));
-            breakdown.append(String.format("Extra Km Rate: LKR %.2f per km\n", extraKmRate));
-            breakdown.append(String.format("Extra Km Charge: LKR %.2f\n\n", extraKmCharge));
+            breakdown.append(String.format("Extra Km: %d km\n", fees.getExtraKm()));
+            breakdown.append(String.format("Extra Km Rate: LKR %.2f per km\n", fees.getExtraKmRate()));
+            breakdown.append(String.format("Extra Km Charge: LKR %.2f\n\n", fees.getExtraKmCharge()));
 
             breakdown.append("TAXES & FEES:\n");
-            breakdown.append(String.format("Subtotal (before tax): LKR %.2f\n", subtotal));
-            breakdown.append(String.format("Tax Rate: %.1f%%\n", taxRate * 100));
-            breakdown.append(String.format("Tax Amount: LKR %.2f\n", tax));
-            breakdown.append(String.format("Refundable Deposit: LKR %.2f\n\n", deposit));
+            breakdown.append(String.format("Subtotal (before tax): LKR %.2f\n", fees.getSubtotal()));
+            breakdown.append(String.format("Tax Rate: %.1f%%\n", fees.getTaxRate() * 100));
+            breakdown.append(String.format("Tax Amount: LKR %.2f\n", fees.getTax()));
+            breakdown.append(String.format("Refundable Deposit: LKR %.2f\n\n", fees.getDeposit()));
 
-            breakdown.append(String.format("TOTAL ESTIMATED COST: LKR %.2f\n", total));
+            breakdown.append(String.format("TOTAL ESTIMATED COST: LKR %.2f\n", fees.getTotal()));
             breakdown.append("\nNote: Final charges may vary based on actual usage.");
 
             costBreakdown.setText(breakdown.toString());
@@ -1315,6 +1305,32 @@ private void makeBookingDialog(JTextArea out) {
         else warn(this, "Booking deletion failed.");
     }
 
+    // The nightly invoice job, run in this process (it owns the data files, so --nightly-batch cannot run now)
+    private void nightlyInvoicesDialog() {
+        String input = JOptionPane.showInputDialog(this, "Send invoices for rentals that ended on (yyyy-MM-dd):",
+            LocalDate.now().toString());
+        if (input == null) return;
+        LocalDate day;
+        try {
+            day = LocalDate.parse(input.trim());
+        } catch (DateTimeParseException ex) {
+            warn(this, "Invalid date: " + input);
+            return;
+        }
+        try {
+            String report = K2530341NotificationService.runNightlyBatch(rentalSystem, day, false);
+            if (report == null) {
+                int again = JOptionPane.showConfirmDialog(this, "Invoices for " + day + " were already sent. Send them again?",
+                    "Invoices Already Sent", JOptionPane.YES_NO_OPTION, JOptionPane.WARNING_MESSAGE);
+                if (again != JOptionPane.YES_OPTION) return;
+                report = K2530341NotificationService.runNightlyBatch(rentalSystem, day, true);
+            }
+            outputArea.setText(report);
+        } catch (UncheckedIOException ex) {
+            warn(this, "Invoices could not be queued: " + ex.getMessage());
+        }
+    }
+
     private void generateInvoiceDialog() {
         if (currentUser.isAdmin()) {
             // Admin: Can enter any booking ID
@@ -1,31 +1,19 @@
 package com.ecoride;
 
-import java.util.HashMap;
-import java.util.Map;
-
 /**
  * Represents an invoice for a booking in the EcoRide Car Rental System.
+ * The fees come from K2530341PricingEngine, which prices the booking once and keeps the
+ * breakdown until the booking or the tariff changes.
  * Demonstrates algorithms: Fee calculation with discounts, tax, extra km charges.
  */
 public class K2530341Invoice {
     private K2530341Booking booking;
+    private K2530341FeeBreakdown fees;
     private double basePrice;
     private double extraKmCharge;
     private double discount;
     private double tax;
-    private double totalAmount;
-
-    // Pricing data (from Table 1)
-    private static final Map<String, double[]> PRICING = new HashMap<>();
-    static {
-        PRICING.put("Compact Petrol", new double[]{5000, 100, 50, 0.10});
-        PRICING.put("Hybrid", new double[]{7500, 150, 60, 0.12});
-        PRICING.put("Electric", new double[]{10000, 200, 40, 0.08});
-        PRICING.put("Luxury SUV", new double[]{15000, 250, 75, 0.15});
-        PRICING.put("Racing", new double[]{25000, 250, 75, 0.15});
-        PRICING.put("Off road SUV", new double[]{20000, 250, 75, 0.15});
-        PRICING.put("Super luxury", new double[]{35000, 250, 75, 0.15});
-    }
+    private double totalAmount; // Charges after tax, without the deposit
 
     // Constructor
     public K2530341Invoice(K2530341Booking booking) {
@@ -35,46 +23,17 @@ public class K2530341Invoice {
 
     // Algorithm: Calculate fees
     private void calculateFees() {
-        String category = booking.getVehicle().getCategory().trim().toLowerCase();
-        double[] pricing = null;
-        for (String key : PRICING.keySet()) {
-            if (key.toLowerCase().equals(category)) {
-                pricing = PRICING.get(key);
-                break;
-            }
-        }
-        if (pricing == null) return;
-
-        double dailyFee = pricing[0];
-        int freeKm = (int) pricing[1];
-        double extraKmRate = pricing[2];
-        double taxRate = pricing[3];
-
-        long days = booking.getNumberOfDays();
-        if (days <= 0) {
-            basePrice = 0;
-            extraKmCharge = 0;
-            discount = 0;
-            tax = 0;
-            totalAmount = 0;
-            return;
-        }
-        basePrice = dailyFee * days;
-
-        int totalFreeKm = freeKm * (int)days;
-        int extraKm = Math.max(0, booking.getTotalKm() - totalFreeKm);
-        extraKmCharge = extraKm * extraKmRate;
-
-        // Discount: 10% if 7+ days, applied before tax
-        discount = (days >= 7) ? basePrice * 0.10 : 0;
-
-        double subtotal = basePrice + extraKmCharge - discount;
-        tax = subtotal * taxRate;
-        totalAmount = subtotal + tax;
+        fees = K2530341PricingEngine.price(booking, booking.getTotalKm());
+        basePrice = fees.getBasePrice();
+        extraKmCharge = fees.getExtraKmCharge();
+        discount = fees.getDiscount();
+        tax = fees.getTax();
+        totalAmount = fees.getCharges();
     }
 
     // Getters
     public K2530341Booking getBooking() { return booking; }
+    public K2530341FeeBreakdown getFeeBreakdown() { return fees; }
     public double getBasePrice() { return basePrice; }
     public double getExtraKmCharge() { return extraKmCharge; }
     public double getDiscount() { return discount; }
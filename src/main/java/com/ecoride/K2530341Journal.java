@@ -0,0 +1,451 @@
+package com.ecoride;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Append-only write-ahead journal for the EcoRide Car Rental System.
+ * Every mutation is appended as one compact CSV line (operation, key, entity row)
+ * instead of rewriting the CSV files, so the cost of a change no longer grows
+ * with the number of stored records. The journal is replayed on startup and
+ * truncated once its contents have been compacted into the CSV snapshot.
+ * In the group-commit modes a background flusher thread collects the records
+ * appended within a short window into one write + fsync.
+ * Demonstrates file I/O: FileChannel appends and crash-safe replay.
+ */
+public class K2530341Journal {
+
+    /** Journal operations, one per RentalSystem mutator. */
+    public enum Op {
+        ADD_VEHICLE, UPDATE_VEHICLE, DELETE_VEHICLE,
+        ADD_CUSTOMER, UPDATE_CUSTOMER, DELETE_CUSTOMER,
+        ADD_BOOKING, UPDATE_BOOKING, DELETE_BOOKING
+    }
+
+    /**
+     * How appends reach the disk.
+     * IMMEDIATE: write + fsync on the caller's thread for every record.
+     * GROUP_SYNC: batched by the flusher thread; the caller waits until its batch is durable.
+     * GROUP_ASYNC: batched by the flusher thread; the caller returns as soon as the record is queued.
+     */
+    public enum DurabilityMode { IMMEDIATE, GROUP_SYNC, GROUP_ASYNC }
+
+    /**
+     * Receives journal records during replay.
+     * The payload reader is positioned on the entity row that follows the operation and key.
+     */
+    public interface RecordHandler {
+        void apply(Op op, String key, K2530341CsvReader payload);
+    }
+
+    // A record (or an empty barrier) waiting for the flusher thread
+    private static class PendingWrite {
+        final byte[] data;
+        final CountDownLatch done = new CountDownLatch(1);
+        volatile boolean failed;
+
+        PendingWrite(byte[] data) { this.data = data; }
+    }
+
+    private static final int QUEUE_CAPACITY = 65_536;
+    private static final long DEFAULT_GROUP_WINDOW_MICROS = 5_000; // 5 ms
+    private static final int DEFAULT_MAX_BATCH_OPS = 512;
+
+    private final Path path;
+    private FileChannel channel;
+    private final AtomicLong recordCount = new AtomicLong();
+
+    // Group commit state
+    private volatile DurabilityMode mode = DurabilityMode.IMMEDIATE;
+    // Appenders read the mode and queue their record under the read lock; a mode switch takes the
+    // write lock, so every record queued under the old mode is flushed before the flusher goes away
+    private final ReentrantReadWriteLock modeLock = new ReentrantReadWriteLock();
+    private volatile long groupWindowMicros = DEFAULT_GROUP_WINDOW_MICROS;
+    private volatile int maxBatchOps = DEFAULT_MAX_BATCH_OPS;
+    private final BlockingQueue<PendingWrite> queue = new LinkedBlockingQueue<>(QUEUE_CAPACITY);
+    private final Object lifecycleLock = new Object(); // Guards flusher start/stop; never held while writing
+    private Thread flusher;
+    private volatile boolean flusherRunning;
+    private final AtomicInteger blockedAppenders = new AtomicInteger(); // Callers waiting for their batch
+    private boolean shutdownHookRegistered;
+
+    // Group commit counters
+    private final AtomicLong batchesFlushed = new AtomicLong();
+    private final AtomicLong recordsFlushed = new AtomicLong();
+    private final AtomicLong maxBatchSize = new AtomicLong();
+    private final AtomicLong maxQueueDepth = new AtomicLong();
+    private final AtomicLong totalFlushNanos = new AtomicLong();
+    private final AtomicLong maxFlushNanos = new AtomicLong();
+
+    public K2530341Journal(String fileName) {
+        this.path = Paths.get(fileName);
+    }
+
+    /**
+     * Hand every complete record in the journal to the handler and return how many there were.
+     * A torn last line (crash in the middle of an append) is ignored and cut off,
+     * so that later appends start on a clean line.
+     */
+    public int replay(RecordHandler handler) {
+        if (!Files.exists(path)) return 0;
+
+        int count = 0;
+        try {
+            byte[] data = Files.readAllBytes(path);
+            int end = data.length;
+            while (end > 0 && data[end - 1] != '\n') end--; // Drop incomplete tail
+            if (end < data.length) {
+                System.err.println("Journal: discarding " + (data.length - end) + " bytes of incomplete record.");
+                try (FileChannel ch = FileChannel.open(path, StandardOpenOption.WRITE)) {
+                    ch.truncate(end);
+                }
+            }
+
+            K2530341CsvReader reader = new K2530341CsvReader(new InputStreamReader(
+                new ByteArrayInputStream(data, 0, end), StandardCharsets.UTF_8));
+            while (reader.nextRecord()) {
+                Op op = parseOp(reader);
+                if (op == null) {
+                    System.err.println("Journal: skipping malformed record: " + String.join(",", reader.toArray()));
+                    continue;
+                }
+                String key = reader.field(1);
+                reader.skipFields(2);
+                handler.apply(op, key, reader);
+                count++;
+            }
+        } catch (IOException e) {
+            System.err.println("Error reading journal: " + e.getMessage());
+        }
+        recordCount.set(count);
+        return count;
+    }
+
+    private Op parseOp(K2530341CsvReader reader) {
+        if (reader.fieldCount() < 2) return null;
+        try {
+            return Op.valueOf(reader.field(0));
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Append one record. In IMMEDIATE and GROUP_SYNC mode the record is on disk when this returns.
+     */
+    public void append(Op op, String key, String payload) {
+        String line = op.name() + "," + K2530341CsvReader.quote(key) + "," + (payload == null ? "" : payload) + "\n";
+        byte[] data = line.getBytes(StandardCharsets.UTF_8);
+        recordCount.incrementAndGet();
+
+        PendingWrite write;
+        modeLock.readLock().lock();
+        try {
+            DurabilityMode current = mode;
+            if (current == DurabilityMode.IMMEDIATE) {
+                writeImmediate(data);
+                return;
+            }
+            if (current == DurabilityMode.GROUP_ASYNC) {
+                enqueue(data);
+                return;
+            }
+            write = enqueueBlocking(data);
+        } finally {
+            modeLock.readLock().unlock();
+        }
+        awaitFlush(write);
+    }
+
+    private synchronized void writeImmediate(byte[] data) {
+        try {
+            FileChannel ch = openChannel();
+            ByteBuffer buffer = ByteBuffer.wrap(data);
+            while (buffer.hasRemaining()) {
+                ch.write(buffer);
+            }
+            ch.force(false);
+        } catch (IOException e) {
+            System.err.println("Error writing journal: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Switch between immediate and group-commit persistence.
+     * @param windowMicros how long the flusher keeps collecting records after the first one of a batch
+     *                     (in GROUP_SYNC mode the window closes early once every blocked caller is in the batch)
+     * @param batchOps     flush as soon as this many records are collected
+     */
+    public void configure(DurabilityMode newMode, long windowMicros, int batchOps) {
+        synchronized (lifecycleLock) {
+            groupWindowMicros = Math.max(0, windowMicros);
+            maxBatchOps = Math.max(1, batchOps);
+            if (newMode == mode) return;
+
+            modeLock.writeLock().lock();
+            try {
+                if (newMode == DurabilityMode.IMMEDIATE) {
+                    mode = newMode;
+                    stopFlusher();
+                } else {
+                    startFlusher();
+                    mode = newMode;
+                }
+            } finally {
+                modeLock.writeLock().unlock();
+            }
+        }
+    }
+
+    public DurabilityMode getMode() {
+        return mode;
+    }
+
+    /**
+     * Wait until every record appended so far is durable.
+     */
+    public void sync() {
+        PendingWrite barrier;
+        modeLock.readLock().lock();
+        try {
+            if (mode == DurabilityMode.IMMEDIATE) return;
+            barrier = enqueueBlocking(new byte[0]); // Completes after everything queued before it
+        } finally {
+            modeLock.readLock().unlock();
+        }
+        awaitFlush(barrier);
+    }
+
+    /**
+     * Discard all records. Called after the CSV snapshot has been rewritten.
+     */
+    public void reset() {
+        sync();
+        synchronized (this) {
+            try {
+                openChannel().truncate(0);
+                channel.force(true);
+                recordCount.set(0);
+            } catch (IOException e) {
+                System.err.println("Error truncating journal: " + e.getMessage());
+            }
+        }
+    }
+
+    public long getRecordCount() {
+        return recordCount.get();
+    }
+
+    public void close() {
+        synchronized (lifecycleLock) {
+            modeLock.writeLock().lock();
+            try {
+                mode = DurabilityMode.IMMEDIATE;
+                stopFlusher();
+            } finally {
+                modeLock.writeLock().unlock();
+            }
+        }
+        synchronized (this) {
+            if (channel == null) return;
+            try {
+                channel.close();
+            } catch (IOException e) {
+                System.err.println("Error closing journal: " + e.getMessage());
+            }
+            channel = null;
+        }
+    }
+
+    // ------------ Group commit ------------
+    private PendingWrite enqueue(byte[] data) {
+        PendingWrite write = new PendingWrite(data);
+        try {
+            queue.put(write); // Blocks when the flusher falls too far behind
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            write.failed = true;
+            write.done.countDown();
+            return write;
+        }
+        maxQueueDepth.accumulateAndGet(queue.size(), Math::max);
+        return write;
+    }
+
+    // Queue a record whose caller then waits in awaitFlush(); called under the mode read lock
+    private PendingWrite enqueueBlocking(byte[] data) {
+        blockedAppenders.incrementAndGet();
+        return enqueue(data);
+    }
+
+    private void awaitFlush(PendingWrite write) {
+        try {
+            write.done.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return;
+        } finally {
+            blockedAppenders.decrementAndGet();
+        }
+        if (write.failed) {
+            System.err.println("Journal record may not be durable (flush failed).");
+        }
+    }
+
+    private void startFlusher() {
+        if (flusher != null) return;
+        flusherRunning = true;
+        flusher = new Thread(this::runFlusher, "ecoride-journal-flusher");
+        flusher.setDaemon(true);
+        flusher.start();
+        if (!shutdownHookRegistered) {
+            Runtime.getRuntime().addShutdownHook(new Thread(this::close, "ecoride-journal-shutdown"));
+            shutdownHookRegistered = true;
+        }
+    }
+
+    private void stopFlusher() {
+        if (flusher == null) return;
+        flusherRunning = false;
+        try {
+            flusher.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        flusher = null;
+
+        // Records queued under the old mode after the flusher's last poll
+        List<PendingWrite> leftovers = new ArrayList<>();
+        queue.drainTo(leftovers);
+        if (!leftovers.isEmpty()) {
+            flushBatch(leftovers);
+        }
+    }
+
+    private void runFlusher() {
+        List<PendingWrite> batch = new ArrayList<>();
+        while (flusherRunning || !queue.isEmpty()) {
+            try {
+                PendingWrite first = queue.poll(50, TimeUnit.MILLISECONDS);
+                if (first == null) continue;
+                batch.add(first);
+
+                // Keep collecting until the window closes or the batch is full
+                long deadline = System.nanoTime() + TimeUnit.MICROSECONDS.toNanos(groupWindowMicros);
+                int limit = maxBatchOps;
+                queue.drainTo(batch, limit - batch.size());
+                while (batch.size() < limit) {
+                    // Everyone who is blocked is already in this batch, so nobody can add to it
+                    if (mode == DurabilityMode.GROUP_SYNC && batch.size() >= blockedAppenders.get()) break;
+                    long remaining = deadline - System.nanoTime();
+                    if (remaining <= 0) break;
+                    PendingWrite next = queue.poll(remaining, TimeUnit.NANOSECONDS);
+                    if (next == null) break;
+                    batch.add(next);
+                    queue.drainTo(batch, limit - batch.size());
+                }
+            } catch (InterruptedException e) {
+                // Shutting down: flush whatever we have
+            }
+            if (!batch.isEmpty()) {
+                flushBatch(batch);
+                batch.clear();
+            }
+        }
+    }
+
+    private void flushBatch(List<PendingWrite> batch) {
+        long start = System.nanoTime();
+        boolean failed = false;
+        int records = 0;
+        ByteBuffer[] buffers = new ByteBuffer[batch.size()];
+        for (int i = 0; i < batch.size(); i++) {
+            byte[] data = batch.get(i).data;
+            if (data.length > 0) records++;
+            buffers[i] = ByteBuffer.wrap(data);
+        }
+
+        synchronized (this) {
+            try {
+                FileChannel ch = openChannel();
+                long remaining = 0;
+                for (ByteBuffer b : buffers) remaining += b.remaining();
+                while (remaining > 0) {
+                    remaining -= ch.write(buffers);
+                }
+                ch.force(false); // One fsync for the whole batch
+            } catch (IOException e) {
+                System.err.println("Error flushing journal batch: " + e.getMessage());
+                failed = true;
+            }
+        }
+
+        long elapsed = System.nanoTime() - start;
+        batchesFlushed.incrementAndGet();
+        recordsFlushed.addAndGet(records);
+        maxBatchSize.accumulateAndGet(records, Math::max);
+        totalFlushNanos.addAndGet(elapsed);
+        maxFlushNanos.accumulateAndGet(elapsed, Math::max);
+
+        for (PendingWrite write : batch) {
+            write.failed = failed;
+            write.done.countDown();
+        }
+    }
+
+    // ------------ Group commit counters ------------
+    public long getBatchesFlushed() { return batchesFlushed.get(); }
+    public long getRecordsFlushed() { return recordsFlushed.get(); }
+    public long getMaxBatchSize() { return maxBatchSize.get(); }
+    public int getQueueDepth() { return queue.size(); }
+    public long getMaxQueueDepth() { return maxQueueDepth.get(); }
+
+    public double getAverageBatchSize() {
+        long batches = batchesFlushed.get();
+        return batches > 0 ? (double) recordsFlushed.get() / batches : 0;
+    }
+
+    public double getAverageFlushLatencyMicros() {
+        long batches = batchesFlushed.get();
+        return batches > 0 ? totalFlushNanos.get() / 1_000.0 / batches : 0;
+    }
+
+    public double getMaxFlushLatencyMicros() {
+        return maxFlushNanos.get() / 1_000.0;
+    }
+
+    public String getStatsReport() {
+        StringBuilder sb = new StringBuilder();
+        sb.append("=== JOURNAL PERSISTENCE STATS ===\n");
+        sb.append("Mode: ").append(mode).append("\n");
+        sb.append(String.format("Group window: %d us, max batch: %d ops\n", groupWindowMicros, maxBatchOps));
+        sb.append(String.format("Batches flushed: %d (%d records)\n", batchesFlushed.get(), recordsFlushed.get()));
+        sb.append(String.format("Batch size: avg %.1f, max %d\n", getAverageBatchSize(), maxBatchSize.get()));
+        sb.append(String.format("Queue depth: current %d, max %d\n", queue.size(), maxQueueDepth.get()));
+        sb.append(String.format("Flush latency (write+fsync): avg %.1f us, max %.1f us\n",
+            getAverageFlushLatencyMicros(), getMaxFlushLatencyMicros()));
+        return sb.toString();
+    }
+
+    private FileChannel openChannel() throws IOException {
+        if (channel == null || !channel.isOpen()) {
+            channel = FileChannel.open(path, StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+        }
+        return channel;
+    }
+}
@@ -23,6 +23,7 @@ public class K2530341LoadTest {
      */
     public static void runLoadTest(K2530341RentalSystem system, int numCustomers, int numVehicles, int numBookings) {
         System.out.println("=== Starting Load Test ===");
+        System.out.print(system.getLoadReport());
         System.out.println("Generating " + numCustomers + " customers, " + numVehicles + " vehicles, " + numBookings + " bookings");
 
         long startTime = System.nanoTime();
@@ -49,6 +50,7 @@ public class K2530341LoadTest {
         for (K2530341Booking booking : bookings) {
             system.makeBooking(booking);
         }
+        system.flush(); // Count time until the last change is durable
         long bookingAddTime = System.nanoTime() - bookingAddStart;
 
         long totalAddTime = System.nanoTime() - startTime;
@@ -61,10 +63,15 @@ public class K2530341LoadTest {
         System.out.printf("Booking addition time: %.2f ms (avg: %.2f μs per booking)\n",
             bookingAddTime / 1_000_000.0, bookingAddTime / 1_000.0 / numBookings);
         System.out.printf("Total addition time: %.2f ms\n", totalAddTime / 1_000_000.0);
+        System.out.println();
+        System.out.print(system.getPersistenceStats());
 
         // Test search operations
         testSearchOperations(system, bookings);
 
+        // Test list access
+        testListAllocation(system);
+
         // Test fee calculations
         testFeeCalculations(system, bookings);
 
@@ -139,6 +146,55 @@ public class K2530341LoadTest {
 
         System.out.printf("Search bookings by date %s: %.2f ms (found %d bookings)\n",
             testDate, searchTime / 1_000_000.0, dateBookings.size());
+
+        // Test availability check of every vehicle for a date range
+        List<K2530341Vehicle> allVehicles = system.getAllVehicles();
+        LocalDate rangeEnd = testDate.plusDays(3);
+        int free = 0;
+        searchStart = System.nanoTime();
+        for (K2530341Vehicle vehicle : allVehicles) {
+            if (!system.hasConflictingBooking(vehicle.getCarId(), testDate, rangeEnd)) free++;
+        }
+        searchTime = System.nanoTime() - searchStart;
+
+        System.out.printf("Availability check of %d vehicles for %s to %s: %.2f ms (%d free)\n",
+            allVehicles.size(), testDate, rangeEnd, searchTime / 1_000_000.0, free);
+    }
+
+    // Compares copying the lists on every call (the previous getAll* behaviour) with the shared snapshots
+    private static void testListAllocation(K2530341RentalSystem system) {
+        System.out.println("\n=== List Access Test ===");
+        int calls = 1000;
+
+        long bytesBefore = K2530341Benchmark.allocatedBytes();
+        long start = System.nanoTime();
+        int total = 0;
+        for (int i = 0; i < calls; i++) {
+            total += new ArrayList<>(system.getAllVehicles()).size();
+            total += new ArrayList<>(system.getAllCustomers()).size();
+            total += new ArrayList<>(system.getAllBookings()).size();
+        }
+        long copyTime = System.nanoTime() - start;
+        long copyBytes = K2530341Benchmark.allocatedBytes() - bytesBefore;
+
+        bytesBefore = K2530341Benchmark.allocatedBytes();
+        start = System.nanoTime();
+        for (int i = 0; i < calls; i++) {
+            total += system.getAllVehicles().size();
+            total += system.getAllCustomers().size();
+            total += system.getAllBookings().size();
+        }
+        long snapshotTime = System.nanoTime() - start;
+        long snapshotBytes = K2530341Benchmark.allocatedBytes() - bytesBefore;
+
+        if (bytesBefore < 0) {
+            copyBytes = -1;
+            snapshotBytes = -1;
+        }
+        System.out.printf("getAll* with a copy per call: %.2f ms (%.0f bytes per call)\n",
+            copyTime / 1_000_000.0, (double) copyBytes / calls);
+        System.out.printf("getAll* from snapshots:       %.2f ms (%.0f bytes per call, %d items read)\n",
+            snapshotTime / 1_000_000.0, (double) snapshotBytes / calls, total);
     }
 
     private static void testFeeCalculations(K2530341RentalSystem system, List<K2530341Booking> bookings) {
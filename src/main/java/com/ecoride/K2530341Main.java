@@ -2,19 +2,125 @@ package com.ecoride;
 
 /**
  * Main class to launch the EcoRide Car Rental System GUI.
+ * Every mode that opens the data files in the working directory first takes K2530341DataLock,
+ * so two processes never write them at once.
  */
 public class K2530341Main {
+    private static K2530341DataLock dataLock; // Held until the process exits
+
     public static void main(String[] args) {
         if (args.length > 0 && args[0].equals("--load-test")) {
             // Run load test instead of GUI
+            lockDataFiles("");
             K2530341RentalSystem system = new K2530341RentalSystem();
             int numCustomers = args.length > 1 ? Integer.parseInt(args[1]) : 1000;
             int numVehicles = args.length > 2 ? Integer.parseInt(args[2]) : 500;
             int numBookings = args.length > 3 ? Integer.parseInt(args[3]) : 2000;
+            if (args.length > 4) {
+                // Optional persistence mode: immediate, sync or async (group commit)
+                system.setPersistenceMode(parsePersistenceMode(args[4]), 5_000, 512);
+            }
             system.runLoadTest(numCustomers, numVehicles, numBookings);
+        } else if (args.length > 0 && args[0].equals("--stress-test")) {
+            // Concurrent booking stress test: threads, operations per thread, persistence mode.
+            // Runs on its own data files in a temporary directory.
+            int threads = args.length > 1 ? Integer.parseInt(args[1]) : 32;
+            int opsPerThread = args.length > 2 ? Integer.parseInt(args[2]) : 200;
+            boolean passed = K2530341StressTest.run(threads, opsPerThread,
+                parsePersistenceMode(args.length > 3 ? args[3] : "async"));
+            System.exit(passed ? 0 : 1);
+        } else if (args.length > 0 && args[0].equals("--server")) {
+            // Headless HTTP/JSON API: port, persistence mode
+            lockDataFiles("");
+            K2530341RentalSystem system = new K2530341RentalSystem();
+            int port = args.length > 1 ? Integer.parseInt(args[1]) : 8080;
+            if (args.length > 2) {
+                system.setPersistenceMode(parsePersistenceMode(args[2]), 5_000, 512);
+            }
+            system.startReminders();
+            try {
+                K2530341ApiServer server = new K2530341ApiServer(system, port);
+                server.start();
+                Runtime.getRuntime().addShutdownHook(new Thread(server::stop, "ecoride-api-shutdown"));
+                System.out.println("EcoRide API listening on http://localhost:" + server.getPort() + "/api/"
+                    + (server.usesVirtualThreads() ? " (virtual threads)" : " (cached thread pool)"));
+            } catch (java.io.IOException e) {
+                System.err.println("Could not start API server: " + e.getMessage());
+                System.exit(1);
+            }
+        } else if (args.length > 0 && args[0].equals("--api-load-test")) {
+            // HTTP load driver: client threads, requests per thread, optional server URL and session token
+            int threads = args.length > 1 ? Integer.parseInt(args[1]) : 64;
+            int requests = args.length > 2 ? Integer.parseInt(args[2]) : 500;
+            if (args.length > 3) {
+                K2530341ApiLoadTest.run(java.util.Collections.emptyList(), args[3], args.length > 4 ? args[4] : null,
+                    threads, requests);
+            } else {
+                lockDataFiles("");
+                K2530341RentalSystem system = new K2530341RentalSystem();
+                K2530341ApiLoadTest.runEmbedded(system, threads, requests);
+                System.exit(0);
+            }
+        } else if (args.length > 0 && args[0].equals("--nightly-batch")) {
+            // Nightly invoice job for rentals ending on the date (default today), when no server or GUI is running;
+            // a running server does the same with POST /api/admin/nightly-batch. --force sends a day again.
+            lockDataFiles(" Run the batch in it instead: POST /api/admin/nightly-batch, or Send Day's Invoices in the GUI.");
+            java.util.List<String> options = new java.util.ArrayList<>(java.util.Arrays.asList(args).subList(1, args.length));
+            boolean force = options.remove("--force");
+            java.time.LocalDate date = options.isEmpty() ? java.time.LocalDate.now() : java.time.LocalDate.parse(options.get(0));
+            K2530341RentalSystem system = new K2530341RentalSystem();
+            String report;
+            try {
+                report = K2530341NotificationService.runNightlyBatch(system, date, force);
+            } catch (java.io.UncheckedIOException e) {
+                System.err.println("Invoices could not be queued: " + e.getMessage());
+                System.exit(1);
+                return;
+            }
+            if (report == null) {
+                System.err.println("Invoices for " + date + " were already sent. Use --force to send them again.");
+                System.exit(1);
+            }
+            System.out.print(report);
+            K2530341NotificationOutbox outbox = K2530341NotificationService.getOutbox();
+            if (!outbox.awaitIdle(10 * 60 * 1000)) {
+                System.err.println("Not all notifications were sent; they stay in outbox.log for the next run.");
+            }
+            System.out.print(outbox.getStats());
+            System.exit(0);
+        } else if (args.length > 0 && args[0].equals("--benchmark")) {
+            // Micro benchmarks comparing previous and current implementations
+            K2530341Benchmark.run(args);
         } else {
             // Launch the GUI
+            dataLock = K2530341DataLock.tryAcquire();
+            if (dataLock == null) {
+                javax.swing.JOptionPane.showMessageDialog(null, dataInUseMessage(), "EcoRide",
+                    javax.swing.JOptionPane.ERROR_MESSAGE);
+                System.exit(1);
+            }
             javax.swing.SwingUtilities.invokeLater(() -> new K2530341GUI());
         }
     }
+
+    // Exit if another process has the data files open
+    private static void lockDataFiles(String hint) {
+        dataLock = K2530341DataLock.tryAcquire();
+        if (dataLock == null) {
+            System.err.println(dataInUseMessage() + hint);
+            System.exit(1);
+        }
+    }
+
+    private static String dataInUseMessage() {
+        return "Another EcoRide process (pid " + K2530341DataLock.owner() + ") is using the data files in this directory.";
+    }
+
+    private static K2530341Journal.DurabilityMode parsePersistenceMode(String mode) {
+        switch (mode.toLowerCase()) {
+            case "sync": return K2530341Journal.DurabilityMode.GROUP_SYNC;
+            case "async": return K2530341Journal.DurabilityMode.GROUP_ASYNC;
+            default: return K2530341Journal.DurabilityMode.IMMEDIATE;
+        }
+    }
 }
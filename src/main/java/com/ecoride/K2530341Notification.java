@@ -0,0 +1,54 @@
+package com.ecoride;
+
+/**
+ * One outgoing notification (an email) in the EcoRide Car Rental System.
+ * type is the audit action recorded once it has been sent (e.g. "EMAIL_SENT").
+ * Demonstrates OOP: Encapsulation with an immutable message and a mutable delivery count.
+ */
+public class K2530341Notification {
+    private final long id;
+    private final String type;
+    private final String bookingId;
+    private final String recipient;
+    private final String subject;
+    private final String body;
+    private final long createdMillis;
+    private final String batch; // Id of the batch job that created it, or null
+    private int attempts; // Failed delivery attempts; only touched by the worker that holds the message
+
+    public K2530341Notification(long id, String type, String bookingId, String recipient,
+                                String subject, String body, long createdMillis) {
+        this(id, type, bookingId, recipient, subject, body, createdMillis, null);
+    }
+
+    public K2530341Notification(long id, String type, String bookingId, String recipient,
+                                String subject, String body, long createdMillis, String batch) {
+        this.id = id;
+        this.type = type;
+        this.bookingId = bookingId;
+        this.recipient = recipient;
+        this.subject = subject;
+        this.body = body;
+        this.createdMillis = createdMillis;
+        this.batch = batch;
+    }
+
+    public long getId() { return id; }
+    public String getType() { return type; }
+    public String getBookingId() { return bookingId; }
+    public String getRecipient() { return recipient; }
+    public String getSubject() { return subject; }
+    public String getBody() { return body; }
+    public long getCreatedMillis() { return createdMillis; }
+    public String getBatch() { return batch; }
+    public int getAttempts() { return attempts; }
+
+    void recordFailedAttempt() {
+        attempts++;
+    }
+
+    @Override
+    public String toString() {
+        return "Notification #" + id + " to " + recipient + ": " + subject;
+    }
+}
@@ -0,0 +1,611 @@
+package com.ecoride;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.DelayQueue;
+import java.util.concurrent.Delayed;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Durable outbox for notifications in the EcoRide Car Rental System.
+ * enqueue() appends the message to outbox.log and returns once it is on disk (or throws if it cannot be),
+ * so callers never wait for the mail relay and nothing is lost if the process stops first. The fsync is a group commit:
+ * callers that enqueue while another one is syncing share the next fsync instead of queueing one each.
+ * A pool of worker threads delivers the messages through a K2530341NotificationTransport.
+ * Every recipient has its own queue, drained by at most one worker at a time: after a short
+ * linger (so messages enqueued together go out together) the worker sends up to maxBatch of them
+ * in one call. A recipient whose queue runs empty is dropped from the map until it has mail again.
+ * A failed send is retried with exponential backoff and jitter for that recipient
+ * only; after maxAttempts failures a message is given up and recorded as dead.
+ * outbox.log has one CSV line per event: ENQUEUE with the whole message, SENT or DEAD with its id.
+ * Messages of a batch job are not audited one by one when sent; the job writes one audit record.
+ * On start-up the messages without SENT or DEAD are queued again, so delivery is at least once.
+ * Once the file is mostly finished messages it is rewritten with just the unsent ones.
+ * Demonstrates concurrency: worker pool over a DelayQueue; file I/O: append-only log with replay.
+ */
+public class K2530341NotificationOutbox {
+    private static final int DEFAULT_MAX_BATCH = 50;
+    private static final long DEFAULT_LINGER_MILLIS = 20;
+    private static final int DEFAULT_MAX_ATTEMPTS = 8;
+    private static final long DEFAULT_BACKOFF_MILLIS = 500;
+    private static final long MAX_BACKOFF_MILLIS = 5 * 60 * 1000;
+    private static final int COMPACT_AFTER_RECORDS = 10_000;
+
+    // The queue of one recipient. While scheduled it is in the ready queue or held by a worker.
+    private static final class Recipient implements Delayed {
+        final String address;
+        final ArrayDeque<K2530341Notification> pending = new ArrayDeque<>(); // Guarded by this
+        boolean scheduled;  // Guarded by this
+        boolean retired;    // Removed from recipients; a new message needs a new Recipient. Guarded by this
+        int failures;       // Consecutive failed sends; only the worker holding the recipient uses it
+        volatile long dueNanos;
+
+        Recipient(String address) {
+            this.address = address;
+        }
+
+        @Override
+        public long getDelay(TimeUnit unit) {
+            return unit.convert(dueNanos - System.nanoTime(), TimeUnit.NANOSECONDS);
+        }
+
+        @Override
+        public int compareTo(Delayed other) {
+            return Long.compare(dueNanos, ((Recipient) other).dueNanos);
+        }
+    }
+
+    // The most recent latencies, for percentiles
+    private static final class LatencySamples {
+        private final long[] samples = new long[4096];
+        private long count;
+        private long max;
+
+        synchronized void add(long nanos) {
+            samples[(int) (count++ % samples.length)] = nanos;
+            max = Math.max(max, nanos);
+        }
+
+        synchronized String summary() {
+            int n = (int) Math.min(count, samples.length);
+            if (n == 0) return "none yet";
+            long[] sorted = Arrays.copyOf(samples, n);
+            Arrays.sort(sorted);
+            return String.format("p50 %.2f ms, p99 %.2f ms, max %.2f ms", sorted[(n - 1) / 2] / 1e6,
+                sorted[(int) Math.ceil(n * 0.99) - 1] / 1e6, max / 1e6);
+        }
+    }
+
+    private final Path path;
+    private final K2530341NotificationTransport transport;
+    private FileChannel channel;     // Guarded by this
+    private int finishedRecords;     // SENT and DEAD lines in the file; guarded by this
+    private long appends;            // ENQUEUE writes so far; guarded by this
+    private final Object syncLock = new Object(); // Held by the caller doing the fsync; taken before this
+    private long syncedAppends;      // ENQUEUE writes known to be on disk; guarded by syncLock
+    private final AtomicLong nextId = new AtomicLong(1);
+    private final Map<Long, K2530341Notification> unsent = new ConcurrentHashMap<>();
+    private final Map<String, Recipient> recipients = new ConcurrentHashMap<>();
+    private final DelayQueue<Recipient> ready = new DelayQueue<>();
+    private final List<Thread> workers = new ArrayList<>();
+    private volatile boolean running;
+    private volatile int maxBatch = DEFAULT_MAX_BATCH;
+    private volatile long lingerNanos = TimeUnit.MILLISECONDS.toNanos(DEFAULT_LINGER_MILLIS);
+    private volatile int maxAttempts = DEFAULT_MAX_ATTEMPTS;
+    private volatile long backoffMillis = DEFAULT_BACKOFF_MILLIS;
+    private volatile boolean auditLogging = true;
+
+    // Metrics
+    private final AtomicInteger depth = new AtomicInteger();    // Enqueued, not yet sent or dead
+    private final AtomicInteger inFlight = new AtomicInteger(); // Being sent right now
+    private final LongAdder enqueuedCount = new LongAdder();
+    private final LongAdder sentCount = new LongAdder();
+    private final LongAdder deadCount = new LongAdder();
+    private final LongAdder failedSends = new LongAdder();
+    private final LongAdder batches = new LongAdder();
+    private final LatencySamples sendLatency = new LatencySamples();     // One transport call
+    private final LatencySamples deliveryLatency = new LatencySamples(); // Enqueue to sent
+    private volatile String lastError;
+
+    public K2530341NotificationOutbox(Path path, K2530341NotificationTransport transport) {
+        this.path = path;
+        this.transport = transport;
+        replay();
+    }
+
+    // ------------ Lifecycle ------------
+    /**
+     * Start the worker threads; queued messages (also those recovered from the file) go out from now on.
+     */
+    public synchronized void start(int workerCount) {
+        if (running) return;
+        running = true;
+        for (int i = 0; i < Math.max(1, workerCount); i++) {
+            Thread worker = new Thread(this::runWorker, "ecoride-outbox-" + (i + 1));
+            worker.setDaemon(true);
+            worker.start();
+            workers.add(worker);
+        }
+    }
+
+    /**
+     * Stop the workers after their current sends. Unsent messages stay in the outbox file.
+     */
+    public void stop() {
+        List<Thread> stopping;
+        synchronized (this) {
+            running = false;
+            stopping = new ArrayList<>(workers);
+            workers.clear();
+        }
+        for (Thread worker : stopping) {
+            try {
+                worker.join();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+        }
+    }
+
+    public void close() {
+        stop();
+        synchronized (this) {
+            try {
+                if (channel != null) channel.close();
+            } catch (IOException e) {
+                System.err.println("Error closing outbox: " + e.getMessage());
+            }
+            channel = null;
+        }
+    }
+
+    /**
+     * Wait until every queued message has been sent or given up; false on timeout.
+     */
+    public boolean awaitIdle(long timeoutMillis) {
+        long deadline = System.currentTimeMillis() + timeoutMillis;
+        while (depth.get() > 0) {
+            if (System.currentTimeMillis() >= deadline) return false;
+            try {
+                Thread.sleep(5);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Send at most maxBatch messages per transport call, after waiting lingerMillis for more.
+     */
+    public void setBatching(int maxBatch, long lingerMillis) {
+        this.maxBatch = Math.max(1, maxBatch);
+        this.lingerNanos = TimeUnit.MILLISECONDS.toNanos(Math.max(0, lingerMillis));
+    }
+
+    /**
+     * Give up on a message after maxAttempts failed sends; the first retry waits about backoffMillis,
+     * each further one twice as long.
+     */
+    public void setRetries(int maxAttempts, long backoffMillis) {
+        this.maxAttempts = Math.max(1, maxAttempts);
+        this.backoffMillis = Math.max(1, backoffMillis);
+    }
+
+    // Whether sent and dead messages are recorded in the audit log (off for benchmarks)
+    public void setAuditLogging(boolean auditLogging) {
+        this.auditLogging = auditLogging;
+    }
+
+    public boolean isAuditLogging() {
+        return auditLogging;
+    }
+
+    // ------------ Enqueueing ------------
+    /**
+     * Queue one message. It is in the outbox file when this returns.
+     * @throws UncheckedIOException if it could not be written to disk; the message is not queued
+     */
+    public K2530341Notification enqueue(String type, String bookingId, String recipient, String subject, String body) {
+        K2530341Notification message = create(type, bookingId, recipient, subject, body);
+        enqueueAll(Collections.singletonList(message));
+        return message;
+    }
+
+    /**
+     * A message with the next id, to pass to enqueueAll().
+     */
+    public K2530341Notification create(String type, String bookingId, String recipient, String subject, String body) {
+        return create(type, bookingId, recipient, subject, body, null);
+    }
+
+    /**
+     * A message of a batch job, to pass to enqueueAll(). Safe to call from several threads.
+     */
+    public K2530341Notification create(String type, String bookingId, String recipient, String subject, String body,
+            String batch) {
+        return new K2530341Notification(nextId.getAndIncrement(), type, bookingId, recipient, subject, body,
+            System.currentTimeMillis(), batch);
+    }
+
+    /**
+     * Queue several messages with one write; they are in the outbox file when this returns.
+     * @throws UncheckedIOException if they could not be written to disk; none of them is queued
+     */
+    public void enqueueAll(List<K2530341Notification> messages) {
+        if (messages.isEmpty()) return;
+        StringBuilder lines = new StringBuilder(messages.size() * 512);
+        for (K2530341Notification message : messages) {
+            appendEnqueueLine(lines, message);
+        }
+        long append;
+        synchronized (this) {
+            try {
+                write(lines);
+            } catch (IOException e) {
+                throw new UncheckedIOException("Error writing outbox", e);
+            }
+            for (K2530341Notification message : messages) unsent.put(message.getId(), message);
+            append = ++appends;
+        }
+        try {
+            syncThrough(append);
+        } catch (IOException e) {
+            // Not queued. The lines may still reach the disk and be sent after a restart (at least once).
+            synchronized (this) {
+                for (K2530341Notification message : messages) unsent.remove(message.getId());
+            }
+            throw new UncheckedIOException("Error syncing outbox", e);
+        }
+        depth.addAndGet(messages.size());
+        enqueuedCount.add(messages.size());
+        for (K2530341Notification message : messages) schedule(message);
+    }
+
+    // Add the message to its recipient's queue, and the recipient to the ready queue unless it is there
+    private void schedule(K2530341Notification message) {
+        while (true) {
+            Recipient recipient = recipients.computeIfAbsent(message.getRecipient(), Recipient::new);
+            synchronized (recipient) {
+                if (recipient.retired) continue; // Removed from the map just now; the next lookup creates a new one
+                recipient.pending.add(message);
+                if (recipient.scheduled) return;
+                recipient.scheduled = true;
+                recipient.dueNanos = System.nanoTime() + lingerNanos;
+            }
+            ready.put(recipient);
+            return;
+        }
+    }
+
+    // Forget a recipient with nothing left to send; called with its lock held
+    private void retire(Recipient recipient) {
+        recipient.scheduled = false;
+        recipient.retired = true;
+        recipients.remove(recipient.address, recipient);
+    }
+
+    // ------------ Delivery ------------
+    private void runWorker() {
+        while (running) {
+            Recipient recipient;
+            try {
+                recipient = ready.poll(100, TimeUnit.MILLISECONDS);
+            } catch (InterruptedException e) {
+                return;
+            }
+            if (recipient == null) continue;
+            List<K2530341Notification> batch = new ArrayList<>();
+            synchronized (recipient) {
+                while (batch.size() < maxBatch && !recipient.pending.isEmpty()) {
+                    batch.add(recipient.pending.poll());
+                }
+                if (batch.isEmpty()) {
+                    retire(recipient);
+                    continue;
+                }
+            }
+            deliver(recipient, batch);
+        }
+    }
+
+    private void deliver(Recipient recipient, List<K2530341Notification> batch) {
+        inFlight.addAndGet(batch.size());
+        long start = System.nanoTime();
+        boolean delivered;
+        try {
+            transport.send(recipient.address, batch);
+            delivered = true;
+        } catch (IOException | RuntimeException e) {
+            lastError = recipient.address + ": " + e.getMessage();
+            delivered = false;
+        }
+        long end = System.nanoTime();
+        sendLatency.add(end - start);
+        inFlight.addAndGet(-batch.size());
+        batches.increment();
+
+        if (delivered) {
+            recipient.failures = 0;
+            finish(batch, "SENT");
+            long now = System.currentTimeMillis();
+            for (K2530341Notification message : batch) {
+                deliveryLatency.add(TimeUnit.MILLISECONDS.toNanos(now - message.getCreatedMillis()));
+                if (auditLogging && message.getBatch() == null) {
+                    K2530341AuditLogger.getInstance().logNotification(message.getType(), message.getBookingId(),
+                        "Sent to " + recipient.address);
+                }
+            }
+            sentCount.add(batch.size());
+            reschedule(recipient, end);
+            return;
+        }
+
+        failedSends.increment();
+        recipient.failures++;
+        List<K2530341Notification> retry = new ArrayList<>();
+        List<K2530341Notification> givenUp = new ArrayList<>();
+        for (K2530341Notification message : batch) {
+            message.recordFailedAttempt();
+            (message.getAttempts() >= maxAttempts ? givenUp : retry).add(message);
+        }
+        if (!givenUp.isEmpty()) {
+            finish(givenUp, "DEAD");
+            deadCount.add(givenUp.size());
+            for (K2530341Notification message : givenUp) {
+                System.err.println("Giving up on " + message + " after " + message.getAttempts() + " attempts");
+                if (auditLogging) {
+                    K2530341AuditLogger.getInstance().logNotification("NOTIFICATION_FAILED", message.getBookingId(),
+                        "Gave up sending " + message.getType() + " to " + recipient.address);
+                }
+            }
+        }
+        synchronized (recipient) {
+            for (int i = retry.size() - 1; i >= 0; i--) recipient.pending.addFirst(retry.get(i)); // Keep their order
+        }
+        reschedule(recipient, end + backoffNanos(recipient.failures));
+    }
+
+    // Exponential backoff, capped, with +-20% jitter so recipients do not retry in step
+    private long backoffNanos(int failures) {
+        long millis = Math.min(MAX_BACKOFF_MILLIS, backoffMillis << Math.min(failures - 1, 20));
+        double jitter = 0.8 + 0.4 * ThreadLocalRandom.current().nextDouble();
+        return TimeUnit.MILLISECONDS.toNanos((long) (millis * jitter));
+    }
+
+    // Put the recipient back in the ready queue if it has more messages, otherwise retire it
+    private void reschedule(Recipient recipient, long dueNanos) {
+        synchronized (recipient) {
+            if (recipient.pending.isEmpty()) {
+                retire(recipient);
+                return;
+            }
+            recipient.dueNanos = dueNanos;
+        }
+        ready.put(recipient);
+    }
+
+    // Record the messages as SENT or DEAD; no fsync, as losing the record only means sending again
+    private void finish(List<K2530341Notification> messages, String status) {
+        StringBuilder lines = new StringBuilder(messages.size() * 16);
+        for (K2530341Notification message : messages) {
+            lines.append(status).append(',').append(message.getId()).append('\n');
+        }
+        synchronized (this) {
+            for (K2530341Notification message : messages) unsent.remove(message.getId());
+            try {
+                write(lines);
+            } catch (IOException e) {
+                System.err.println("Error writing outbox: " + e.getMessage()); // The messages are sent again after a restart
+            }
+            finishedRecords += messages.size();
+            if (finishedRecords >= COMPACT_AFTER_RECORDS && finishedRecords > 4 * unsent.size()) {
+                compact();
+            }
+        }
+        depth.addAndGet(-messages.size());
+    }
+
+    // ------------ Outbox file ------------
+    private void appendEnqueueLine(StringBuilder lines, K2530341Notification message) {
+        lines.append("ENQUEUE,").append(message.getId()).append(',').append(message.getCreatedMillis()).append(',')
+            .append(K2530341CsvReader.quote(message.getType())).append(',')
+            .append(K2530341CsvReader.quote(message.getBookingId())).append(',')
+            .append(K2530341CsvReader.quote(message.getRecipient())).append(',')
+            .append(K2530341CsvReader.quote(escape(message.getSubject()))).append(',')
+            .append(K2530341CsvReader.quote(escape(message.getBody())));
+        if (message.getBatch() != null) lines.append(',').append(K2530341CsvReader.quote(message.getBatch()));
+        lines.append('\n');
+    }
+
+    // Called with the lock held. A partly written append is cut off again, so the next one starts on a clean line.
+    private void write(CharSequence lines) throws IOException {
+        if (channel == null) {
+            channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+        }
+        long size = channel.size();
+        try {
+            ByteBuffer buffer = ByteBuffer.wrap(lines.toString().getBytes(StandardCharsets.UTF_8));
+            while (buffer.hasRemaining()) channel.write(buffer);
+        } catch (IOException e) {
+            try {
+                channel.truncate(size);
+            } catch (IOException truncateFailed) {
+                e.addSuppressed(truncateFailed);
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * Return once ENQUEUE write number append is on disk. One fsync covers every write made before it,
+     * so a caller that waited for the previous fsync usually finds its write already covered.
+     * The fsync runs without the outbox lock, so other writes go on meanwhile.
+     */
+    private void syncThrough(long append) throws IOException {
+        synchronized (syncLock) {
+            if (syncedAppends >= append) return;
+            FileChannel ch;
+            long covered;
+            synchronized (this) {
+                ch = channel;
+                covered = appends;
+            }
+            try {
+                if (ch != null) ch.force(false);
+            } catch (ClosedChannelException e) {
+                // Compacted or closed meanwhile: compact() forces the rewritten file before it replaces this one
+            }
+            syncedAppends = covered;
+        }
+    }
+
+    // Rewrite the file with only the unsent messages; called with the lock held
+    private void compact() {
+        List<K2530341Notification> remaining = new ArrayList<>(unsent.values());
+        remaining.sort(Comparator.comparingLong(K2530341Notification::getId));
+        StringBuilder lines = new StringBuilder(remaining.size() * 512);
+        for (K2530341Notification message : remaining) appendEnqueueLine(lines, message);
+        Path temp = path.resolveSibling(path.getFileName() + ".tmp");
+        try {
+            try (FileChannel out = FileChannel.open(temp, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                    StandardOpenOption.TRUNCATE_EXISTING)) {
+                ByteBuffer buffer = ByteBuffer.wrap(lines.toString().getBytes(StandardCharsets.UTF_8));
+                while (buffer.hasRemaining()) out.write(buffer);
+                out.force(false);
+            }
+            if (channel != null) channel.close();
+            channel = null;
+            Files.move(temp, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            finishedRecords = 0;
+        } catch (IOException e) {
+            System.err.println("Error compacting outbox: " + e.getMessage());
+        }
+    }
+
+    // Load the unsent messages; a torn last line (crash during an append) is cut off, a malformed record skipped
+    private void replay() {
+        if (!Files.exists(path)) return;
+        try {
+            byte[] data = Files.readAllBytes(path);
+            int end = data.length;
+            while (end > 0 && data[end - 1] != '\n') end--;
+            if (end < data.length) {
+                System.err.println("Outbox: discarding " + (data.length - end) + " bytes of incomplete record.");
+                try (FileChannel ch = FileChannel.open(path, StandardOpenOption.WRITE)) {
+                    ch.truncate(end);
+                }
+            }
+            Map<Long, K2530341Notification> loaded = new java.util.LinkedHashMap<>();
+            long maxId = 0;
+            K2530341CsvReader reader = new K2530341CsvReader(new InputStreamReader(
+                new ByteArrayInputStream(data, 0, end), StandardCharsets.UTF_8));
+            while (reader.nextRecord()) {
+                if (reader.fieldCount() < 2) continue;
+                long id;
+                try {
+                    id = Long.parseLong(reader.field(1));
+                } catch (NumberFormatException e) {
+                    continue;
+                }
+                maxId = Math.max(maxId, id);
+                String status = reader.field(0);
+                if (status.equals("ENQUEUE") && reader.fieldCount() >= 8) {
+                    long createdMillis;
+                    try {
+                        createdMillis = Long.parseLong(reader.field(2));
+                    } catch (NumberFormatException e) {
+                        System.err.println("Outbox: skipping malformed record for message " + id);
+                        continue;
+                    }
+                    String bookingId = reader.field(4);
+                    loaded.put(id, new K2530341Notification(id, reader.field(3), bookingId.isEmpty() ? null : bookingId,
+                        reader.field(5), unescape(reader.field(6)), unescape(reader.field(7)),
+                        createdMillis, reader.fieldCount() > 8 ? reader.field(8) : null));
+                } else if (status.equals("SENT") || status.equals("DEAD")) {
+                    loaded.remove(id);
+                    finishedRecords++;
+                }
+            }
+            nextId.set(maxId + 1);
+            unsent.putAll(loaded);
+            depth.addAndGet(loaded.size());
+            for (K2530341Notification message : loaded.values()) schedule(message);
+            if (!loaded.isEmpty()) {
+                System.out.println("Outbox: " + loaded.size() + " unsent notifications recovered.");
+            }
+        } catch (IOException e) {
+            System.err.println("Error reading outbox: " + e.getMessage());
+        }
+    }
+
+    // Keep line breaks in subjects and bodies: the CSV quoting would turn them into spaces
+    private static String escape(String text) {
+        if (text == null) return "";
+        return text.replace("\\", "\\\\").replace("\r", "\\r").replace("\n", "\\n");
+    }
+
+    private static String unescape(String text) {
+        if (text.indexOf('\\') < 0) return text;
+        StringBuilder sb = new StringBuilder(text.length());
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (c == '\\' && i + 1 < text.length()) {
+                char next = text.charAt(++i);
+                sb.append(next == 'n' ? '\n' : next == 'r' ? '\r' : next);
+            } else {
+                sb.append(c);
+            }
+        }
+        return sb.toString();
+    }
+
+    // ------------ Metrics ------------
+    public int getQueueDepth() {
+        return depth.get();
+    }
+
+    public long getSentCount() {
+        return sentCount.sum();
+    }
+
+    public String getStats() {
+        StringBuilder sb = new StringBuilder();
+        sb.append("=== NOTIFICATION OUTBOX ===\n");
+        sb.append(String.format("Queue depth: %d (%d being sent), %d recipients with mail (%d waiting), %d workers\n",
+            depth.get(), inFlight.get(), recipients.size(), ready.size(), workers.size()));
+        sb.append(String.format("Messages: %d enqueued, %d sent, %d given up\n",
+            enqueuedCount.sum(), sentCount.sum(), deadCount.sum()));
+        long batchCount = batches.sum();
+        sb.append(String.format("Sends: %d, %.1f messages each, %d failed\n", batchCount,
+            batchCount > 0 ? (double) (sentCount.sum() + deadCount.sum()) / batchCount : 0, failedSends.sum()));
+        sb.append("Send latency (one transport call): ").append(sendLatency.summary()).append("\n");
+        sb.append("Delivery latency (enqueue to sent): ").append(deliveryLatency.summary()).append("\n");
+        if (lastError != null) sb.append("Last error: ").append(lastError).append("\n");
+        return sb.toString();
+    }
+}
@@ -1,132 +1,201 @@
 package com.ecoride;
 
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
 import java.time.LocalDate;
-import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 
 /**
  * Notification Service for EcoRide Car Rental System.
  * Handles email notifications for bookings, confirmations, and reminders.
+ * The messages are handed to a K2530341NotificationOutbox (outbox.log), which sends them in the
+ * background; the transport is chosen with -Decoride.mail.transport=console (default) or file (mail.out).
+ * runNightlyBatch() sends a day's invoices as one job (see there) and records the date in nightly.state,
+ * so a day is not invoiced twice; reminders are sent on time by K2530341ReminderScheduler.
  * Demonstrates OOP: Utility class with static methods.
  */
 public class K2530341NotificationService {
+    private static final int OUTBOX_WORKERS = 4;
+    private static final int BATCH_ENQUEUE_CHUNK = 2000; // Messages per outbox write in a batch job
+    private static final String PICKUP_SUBJECT = "EcoRide Pickup Reminder - Tomorrow";
+    private static final String RETURN_SUBJECT = "EcoRide Vehicle Return Reminder - Tomorrow";
+    private static K2530341NotificationOutbox outbox;
+    private static final Path NIGHTLY_STATE = Paths.get("nightly.state"); // Dates whose invoices were sent, one per line
+    private static final Object nightlyLock = new Object(); // One nightly batch at a time
 
     /**
-     * Send booking confirmation email
+     * The outbox used for all notifications, started on first use.
      */
-    public static void sendBookingConfirmation(K2530341Booking booking) {
-        K2530341Customer customer = booking.getCustomer();
+    public static synchronized K2530341NotificationOutbox getOutbox() {
+        if (outbox == null) {
+            K2530341NotificationTransport transport = "file".equals(System.getProperty("ecoride.mail.transport"))
+                ? new K2530341NotificationTransport.Mailbox(Paths.get("mail.out"))
+                : new K2530341NotificationTransport.Console();
+            K2530341NotificationOutbox created = new K2530341NotificationOutbox(Paths.get("outbox.log"), transport);
+            created.start(OUTBOX_WORKERS);
+            Runtime.getRuntime().addShutdownHook(new Thread(created::close, "ecoride-outbox-close"));
+            outbox = created;
+        }
+        return outbox;
+    }
+
+    /**
+     * Use another outbox, e.g. with a different transport; the caller starts and closes it.
+     */
+    public static synchronized void setOutbox(K2530341NotificationOutbox replacement) {
+        outbox = replacement;
+    }
+
+    // ------------ Message templates ------------
+    private static final String SIGNATURE = "Best regards,\nEcoRide Car Rental Team";
+    private static final String CONTACT = "Contact: +94 11 123 4567";
+
+    static final K2530341NotificationTemplate CONFIRMATION = K2530341NotificationTemplate.compile(
+        "Dear {name},\n\n"
+        + "Your booking has been confirmed!\n\n"
+        + "Booking Details:\n"
+        + "- Booking ID: {bookingId}\n"
+        + "- Vehicle: {model} ({category})\n"
+        + "- Rental Period: {start:date} to {end:date}\n"
+        + "- Duration: {days} days\n"
+        + "- Estimated Cost: LKR {estimate:money}\n\n"
+        + "Important Notes:\n"
+        + "- Please arrive 15 minutes before your pickup time\n"
+        + "- Bring your NIC/Passport and this confirmation\n"
+        + "- A refundable deposit of LKR 5,000 will be collected\n"
+        + "- Vehicle must be returned with full tank\n\n"
+        + "Thank you for choosing EcoRide!\n\n"
+        + SIGNATURE + "\n" + CONTACT + "\n"
+        + "Email: info@ecoride.lk",
+        "name", "bookingId", "model", "category", "start", "end", "days", "estimate");
+
+    static final K2530341NotificationTemplate PICKUP_REMINDER = K2530341NotificationTemplate.compile(
+        "Dear {name},\n\n"
+        + "This is a reminder for your upcoming vehicle pickup tomorrow.\n\n"
+        + "Booking Details:\n"
+        + "- Booking ID: {bookingId}\n"
+        + "- Vehicle: {model} ({category})\n"
+        + "- Pickup Date: {start:date}\n"
+        + "- Return Date: {end:date}\n\n"
+        + "Please ensure:\n"
+        + "- Valid driving license\n"
+        + "- Credit card for deposit and fuel\n"
+        + "- Full insurance coverage\n\n"
+        + "Pickup Location: EcoRide Main Branch, Colombo\n"
+        + CONTACT + "\n\n"
+        + "See you tomorrow!\n\n"
+        + SIGNATURE,
+        "name", "bookingId", "model", "category", "start", "end");
+
+    static final K2530341NotificationTemplate RETURN_REMINDER = K2530341NotificationTemplate.compile(
+        "Dear {name},\n\n"
+        + "This is a reminder that your vehicle rental ends tomorrow.\n\n"
+        + "Booking Details:\n"
+        + "- Booking ID: {bookingId}\n"
+        + "- Return Date: {end:date}\n"
+        + "- Return Location: EcoRide Main Branch, Colombo\n\n"
+        + "Please ensure:\n"
+        + "- Vehicle is returned with full fuel tank\n"
+        + "- No damages beyond normal wear\n"
+        + "- All accessories are intact\n\n"
+        + "Late returns will incur additional charges.\n"
+        + "Contact us immediately if you need to extend your rental.\n\n"
+        + "Thank you for your business!\n\n"
+        + SIGNATURE + "\n" + CONTACT,
+        "name", "bookingId", "end");
+
+    static final K2530341NotificationTemplate INVOICE = K2530341NotificationTemplate.compile(
+        "Dear {name},\n\n"
+        + "Thank you for using EcoRide! Here is your final invoice.\n\n"
+        + "{breakdown}\n\n"
+        + "Payment Details:\n"
+        + "- Total Amount: LKR {total:money}\n"
+        + "- Deposit Refunded: LKR 5,000\n"
+        + "- Amount Due: LKR {due:money}\n\n"
+        + "We hope you enjoyed your EcoRide experience!\n"
+        + "Please consider us for your next rental needs.\n\n"
+        + SIGNATURE + "\n" + CONTACT + "\n"
+        + "Email: info@ecoride.lk",
+        "name", "breakdown", "total", "due");
+
+    static final K2530341NotificationTemplate CANCELLATION = K2530341NotificationTemplate.compile(
+        "Dear {name},\n\n"
+        + "Your booking has been successfully cancelled.\n\n"
+        + "Cancelled Booking Details:\n"
+        + "- Booking ID: {bookingId}\n"
+        + "- Vehicle: {model}\n"
+        + "- Original Dates: {start:date} to {end:date}\n\n"
+        + "Your refundable deposit of LKR 5,000 will be processed within 3-5 business days.\n\n"
+        + "We hope to serve you again in the future!\n\n"
+        + SIGNATURE,
+        "name", "bookingId", "model", "start", "end");
+
+    // ------------ Message bodies ------------
+    static String confirmationBody(K2530341Booking booking) {
         K2530341Vehicle vehicle = booking.getVehicle();
+        return CONFIRMATION.render(booking.getCustomer().getName(), booking.getBookingId(), vehicle.getModel(),
+            vehicle.getCategory(), booking.getStartDate(), booking.getEndDate(), booking.getNumberOfDays(),
+            K2530341FeeCalculator.calculateEstimatedFee(booking));
+    }
 
-        String subject = "EcoRide Booking Confirmation - " + booking.getBookingId();
-        StringBuilder body = new StringBuilder();
-
-        body.append("Dear ").append(customer.getName()).append(",\n\n");
-        body.append("Your booking has been confirmed!\n\n");
-        body.append("Booking Details:\n");
-        body.append("- Booking ID: ").append(booking.getBookingId()).append("\n");
-        body.append("- Vehicle: ").append(vehicle.getModel()).append(" (").append(vehicle.getCategory()).append(")\n");
-        body.append("- Rental Period: ").append(booking.getStartDate())
-             .append(" to ").append(booking.getEndDate()).append("\n");
-        body.append("- Duration: ").append(booking.getNumberOfDays()).append(" days\n");
-        body.append("- Estimated Cost: LKR ").append(String.format("%.2f", K2530341FeeCalculator.calculateEstimatedFee(booking))).append("\n\n");
-        body.append("Important Notes:\n");
-        body.append("- Please arrive 15 minutes before your pickup time\n");
-        body.append("- Bring your NIC/Passport and this confirmation\n");
-        body.append("- A refundable deposit of LKR 5,000 will be collected\n");
-        body.append("- Vehicle must be returned with full tank\n\n");
-        body.append("Thank you for choosing EcoRide!\n\n");
-        body.append("Best regards,\n");
-        body.append("EcoRide Car Rental Team\n");
-        body.append("Contact: +94 11 123 4567\n");
-        body.append("Email: info@ecoride.lk");
-
-        // In a real implementation, this would send actual email
-        System.out.println("=== EMAIL NOTIFICATION ===");
-        System.out.println("To: " + customer.getEmail());
-        System.out.println("Subject: " + subject);
-        System.out.println("Body:\n" + body.toString());
-        System.out.println("==========================");
-
-        // Log the notification
-        K2530341AuditLogger.getInstance().log("SYSTEM", "EMAIL_SENT",
-            String.format("Booking confirmation sent to %s for booking %s",
-                customer.getEmail(), booking.getBookingId()));
+    static String pickupReminderBody(K2530341Booking booking) {
+        K2530341Vehicle vehicle = booking.getVehicle();
+        return PICKUP_REMINDER.render(booking.getCustomer().getName(), booking.getBookingId(), vehicle.getModel(),
+            vehicle.getCategory(), booking.getStartDate(), booking.getEndDate());
+    }
+
+    static String returnReminderBody(K2530341Booking booking) {
+        return RETURN_REMINDER.render(booking.getCustomer().getName(), booking.getBookingId(), booking.getEndDate());
+    }
+
+    static String invoiceBody(K2530341Invoice invoice, int actualKm) {
+        K2530341Booking booking = invoice.getBooking();
+        double total = invoice.getTotalAmount();
+        return INVOICE.render(booking.getCustomer().getName(), K2530341FeeCalculator.generateFeeBreakdown(booking, actualKm),
+            total, total - 5000);
+    }
+
+    static String cancellationBody(K2530341Booking booking) {
+        return CANCELLATION.render(booking.getCustomer().getName(), booking.getBookingId(),
+            booking.getVehicle().getModel(), booking.getStartDate(), booking.getEndDate());
+    }
+
+    // ------------ Sending ------------
+    /**
+     * Send booking confirmation email
+     */
+    public static void sendBookingConfirmation(K2530341Booking booking) {
+        // Queued in the outbox; a worker sends it and records it in the audit log
+        getOutbox().enqueue("EMAIL_SENT", booking.getBookingId(), booking.getCustomer().getEmail(),
+            "EcoRide Booking Confirmation - " + booking.getBookingId(), confirmationBody(booking));
     }
 
     /**
      * Send booking reminder (1 day before pickup)
      */
     public static void sendPickupReminder(K2530341Booking booking) {
-        K2530341Customer customer = booking.getCustomer();
-        K2530341Vehicle vehicle = booking.getVehicle();
-
-        String subject = "EcoRide Pickup Reminder - Tomorrow";
-        StringBuilder body = new StringBuilder();
-
-        body.append("Dear ").append(customer.getName()).append(",\n\n");
-        body.append("This is a reminder for your upcoming vehicle pickup tomorrow.\n\n");
-        body.append("Booking Details:\n");
-        body.append("- Booking ID: ").append(booking.getBookingId()).append("\n");
-        body.append("- Vehicle: ").append(vehicle.getModel()).append(" (").append(vehicle.getCategory()).append(")\n");
-        body.append("- Pickup Date: ").append(booking.getStartDate()).append("\n");
-        body.append("- Return Date: ").append(booking.getEndDate()).append("\n\n");
-        body.append("Please ensure:\n");
-        body.append("- Valid driving license\n");
-        body.append("- Credit card for deposit and fuel\n");
-        body.append("- Full insurance coverage\n\n");
-        body.append("Pickup Location: EcoRide Main Branch, Colombo\n");
-        body.append("Contact: +94 11 123 4567\n\n");
-        body.append("See you tomorrow!\n\n");
-        body.append("Best regards,\n");
-        body.append("EcoRide Car Rental Team");
-
-        System.out.println("=== EMAIL REMINDER ===");
-        System.out.println("To: " + customer.getEmail());
-        System.out.println("Subject: " + subject);
-        System.out.println("Body:\n" + body.toString());
-        System.out.println("======================");
-
-        K2530341AuditLogger.getInstance().log("SYSTEM", "REMINDER_SENT",
-            String.format("Pickup reminder sent to %s for booking %s",
-                customer.getEmail(), booking.getBookingId()));
+        getOutbox().enqueue("REMINDER_SENT", booking.getBookingId(), booking.getCustomer().getEmail(),
+            PICKUP_SUBJECT, pickupReminderBody(booking));
     }
 
     /**
      * Send return reminder (1 day before return)
      */
     public static void sendReturnReminder(K2530341Booking booking) {
-        K2530341Customer customer = booking.getCustomer();
-
-        String subject = "EcoRide Vehicle Return Reminder - Tomorrow";
-        StringBuilder body = new StringBuilder();
-
-        body.append("Dear ").append(customer.getName()).append(",\n\n");
-        body.append("This is a reminder that your vehicle rental ends tomorrow.\n\n");
-        body.append("Booking Details:\n");
-        body.append("- Booking ID: ").append(booking.getBookingId()).append("\n");
-        body.append("- Return Date: ").append(booking.getEndDate()).append("\n");
-        body.append("- Return Location: EcoRide Main Branch, Colombo\n\n");
-        body.append("Please ensure:\n");
-        body.append("- Vehicle is returned with full fuel tank\n");
-        body.append("- No damages beyond normal wear\n");
-        body.append("- All accessories are intact\n\n");
-        body.append("Late returns will incur additional charges.\n");
-        body.append("Contact us immediately if you need to extend your rental.\n\n");
-        body.append("Thank you for your business!\n\n");
-        body.append("Best regards,\n");
-        body.append("EcoRide Car Rental Team\n");
-        body.append("Contact: +94 11 123 4567");
-
-        System.out.println("=== RETURN REMINDER ===");
-        System.out.println("To: " + customer.getEmail());
-        System.out.println("Subject: " + subject);
-        System.out.println("Body:\n" + body.toString());
-        System.out.println("=======================");
-
-        K2530341AuditLogger.getInstance().log("SYSTEM", "RETURN_REMINDER_SENT",
-            String.format("Return reminder sent to %s for booking %s",
-                customer.getEmail(), booking.getBookingId()));
+        getOutbox().enqueue("RETURN_REMINDER_SENT", booking.getBookingId(), booking.getCustomer().getEmail(),
+            RETURN_SUBJECT, returnReminderBody(booking));
     }
 
     /**
@@ -134,93 +203,144 @@ public class K2530341NotificationService {
      */
     public static void sendInvoice(K2530341Invoice invoice, int actualKm) {
         K2530341Booking booking = invoice.getBooking();
-        K2530341Customer customer = booking.getCustomer();
-
-        String subject = "EcoRide Invoice - " + booking.getBookingId();
-        StringBuilder body = new StringBuilder();
-
-        body.append("Dear ").append(customer.getName()).append(",\n\n");
-        body.append("Thank you for using EcoRide! Here is your final invoice.\n\n");
-
-        // Add fee breakdown
-        body.append(K2530341FeeCalculator.generateFeeBreakdown(booking, actualKm));
-        body.append("\n\n");
-
-        body.append("Payment Details:\n");
-        body.append("- Total Amount: LKR ").append(String.format("%.2f", invoice.getTotalAmount())).append("\n");
-        body.append("- Deposit Refunded: LKR 5,000\n");
-        body.append("- Amount Due: LKR ").append(String.format("%.2f", invoice.getTotalAmount() - 5000)).append("\n\n");
-
-        body.append("We hope you enjoyed your EcoRide experience!\n");
-        body.append("Please consider us for your next rental needs.\n\n");
-
-        body.append("Best regards,\n");
-        body.append("EcoRide Car Rental Team\n");
-        body.append("Contact: +94 11 123 4567\n");
-        body.append("Email: info@ecoride.lk");
-
-        System.out.println("=== INVOICE EMAIL ===");
-        System.out.println("To: " + customer.getEmail());
-        System.out.println("Subject: " + subject);
-        System.out.println("Body:\n" + body.toString());
-        System.out.println("=====================");
-
-        K2530341AuditLogger.getInstance().log("SYSTEM", "INVOICE_SENT",
-            String.format("Invoice sent to %s for booking %s, amount: LKR %.2f",
-                customer.getEmail(), booking.getBookingId(), invoice.getTotalAmount()));
+        getOutbox().enqueue("INVOICE_SENT", booking.getBookingId(), booking.getCustomer().getEmail(),
+            "EcoRide Invoice - " + booking.getBookingId(), invoiceBody(invoice, actualKm));
     }
 
     /**
      * Send cancellation confirmation
      */
     public static void sendCancellationConfirmation(K2530341Booking booking) {
-        K2530341Customer customer = booking.getCustomer();
-
-        String subject = "EcoRide Booking Cancellation - " + booking.getBookingId();
-        StringBuilder body = new StringBuilder();
-
-        body.append("Dear ").append(customer.getName()).append(",\n\n");
-        body.append("Your booking has been successfully cancelled.\n\n");
-        body.append("Cancelled Booking Details:\n");
-        body.append("- Booking ID: ").append(booking.getBookingId()).append("\n");
-        body.append("- Vehicle: ").append(booking.getVehicle().getModel()).append("\n");
-        body.append("- Original Dates: ").append(booking.getStartDate())
-             .append(" to ").append(booking.getEndDate()).append("\n\n");
-        body.append("Your refundable deposit of LKR 5,000 will be processed within 3-5 business days.\n\n");
-        body.append("We hope to serve you again in the future!\n\n");
-        body.append("Best regards,\n");
-        body.append("EcoRide Car Rental Team");
-
-        System.out.println("=== CANCELLATION EMAIL ===");
-        System.out.println("To: " + customer.getEmail());
-        System.out.println("Subject: " + subject);
-        System.out.println("Body:\n" + body.toString());
-        System.out.println("==========================");
-
-        K2530341AuditLogger.getInstance().log("SYSTEM", "CANCELLATION_CONFIRMED",
-            String.format("Cancellation confirmation sent to %s for booking %s",
-                customer.getEmail(), booking.getBookingId()));
+        getOutbox().enqueue("CANCELLATION_CONFIRMED", booking.getBookingId(), booking.getCustomer().getEmail(),
+            "EcoRide Booking Cancellation - " + booking.getBookingId(), cancellationBody(booking));
     }
 
     /**
-     * Check and send automated reminders
+     * Check and send automated reminders for the bookings starting or ending tomorrow.
+     * Reads only those bookings from the date indexes; K2530341ReminderScheduler sends the
+     * reminders on time without being called.
      */
     public static void checkAndSendReminders(K2530341RentalSystem rentalSystem) {
-        LocalDate today = LocalDate.now();
-        LocalDate tomorrow = today.plusDays(1);
+        LocalDate tomorrow = LocalDate.now().plusDays(1);
+
+        // Send pickup reminder 1 day before
+        for (K2530341Booking booking : rentalSystem.getBookingsStartingBetween(tomorrow, tomorrow)) {
+            sendPickupReminder(booking);
+        }
 
-        List<K2530341Booking> allBookings = rentalSystem.getAllBookings();
+        // Send return reminder 1 day before end date
+        for (K2530341Booking booking : rentalSystem.getBookingsEndingBetween(tomorrow, tomorrow)) {
+            sendReturnReminder(booking);
+        }
+    }
+
+    // ------------ Nightly batch ------------
+    /**
+     * The nightly job: invoices for the rentals that ended on date. Pickup and return reminders are
+     * not part of it; K2530341ReminderScheduler sends each of those once, the day before.
+     * A date is recorded in nightly.state once its invoices are in the outbox, and is not run again
+     * unless force is set.
+     * @return the throughput report of the run, or null if the date was already done
+     */
+    public static String runNightlyBatch(K2530341RentalSystem rentalSystem, LocalDate date, boolean force) {
+        synchronized (nightlyLock) {
+            Set<String> done = readNightlyState();
+            if (done.contains(date.toString()) && !force) return null;
+            long start = System.nanoTime();
+            List<K2530341Booking> completed = rentalSystem.getBookingsEndingBetween(date, date);
+            long selectNanos = System.nanoTime() - start;
+            String report = dispatchBatch(getOutbox(), "nightly-" + date, completed, selectNanos);
+            done.add(date.toString());
+            writeNightlyState(done);
+            return report;
+        }
+    }
 
-        for (K2530341Booking booking : allBookings) {
-            // Send pickup reminder 1 day before
-            if (booking.getStartDate().equals(tomorrow)) {
-                sendPickupReminder(booking);
+    private static Set<String> readNightlyState() {
+        Set<String> done = new TreeSet<>();
+        try {
+            if (Files.exists(NIGHTLY_STATE)) {
+                for (String line : Files.readAllLines(NIGHTLY_STATE, StandardCharsets.US_ASCII)) {
+                    if (!line.isBlank()) done.add(line.trim());
+                }
             }
+        } catch (IOException e) {
+            System.err.println("Error reading nightly batch state: " + e.getMessage());
+        }
+        return done;
+    }
 
-            // Send return reminder 1 day before end date
-            if (booking.getEndDate().equals(tomorrow)) {
-                sendReturnReminder(booking);
+    private static void writeNightlyState(Set<String> done) {
+        Path temp = NIGHTLY_STATE.resolveSibling(NIGHTLY_STATE.getFileName() + ".tmp");
+        try {
+            Files.write(temp, done, StandardCharsets.US_ASCII);
+            Files.move(temp, NIGHTLY_STATE, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            System.err.println("Error writing nightly batch state: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Render the messages of a batch job in parallel, group them by recipient and queue them in
+     * the outbox with a few large writes. The messages are not audited one by one; one
+     * NOTIFICATION_BATCH audit record describes the whole batch.
+     * @param selectNanos time spent finding the bookings, for the report
+     * @return the throughput report of the run
+     */
+    static String dispatchBatch(K2530341NotificationOutbox outbox, String batch, List<K2530341Booking> completed,
+            long selectNanos) {
+        long renderStart = System.nanoTime();
+        List<K2530341Notification> messages = new ArrayList<>(render(completed, booking -> outbox.create("INVOICE_SENT",
+            booking.getBookingId(), booking.getCustomer().getEmail(), "EcoRide Invoice - " + booking.getBookingId(),
+            invoiceBody(new K2530341Invoice(booking), booking.getTotalKm()), batch)));
+        // Stable sort: a customer's invoices end up together, in booking order
+        messages.sort(Comparator.comparing(K2530341Notification::getRecipient));
+        long renderNanos = System.nanoTime() - renderStart;
+
+        long enqueueStart = System.nanoTime();
+        Set<String> recipients = new HashSet<>();
+        int writes = 0;
+        int from = 0;
+        while (from < messages.size()) {
+            // Chunks end at a recipient boundary where possible, so one customer's messages are queued together
+            int to = Math.min(messages.size(), from + BATCH_ENQUEUE_CHUNK);
+            while (to < messages.size() && to > from + 1
+                    && messages.get(to).getRecipient().equals(messages.get(to - 1).getRecipient())) {
+                to--;
             }
+            List<K2530341Notification> chunk = messages.subList(from, to);
+            for (K2530341Notification message : chunk) recipients.add(message.getRecipient());
+            outbox.enqueueAll(chunk);
+            writes++;
+            from = to;
         }
+        long enqueueNanos = System.nanoTime() - enqueueStart;
+
+        String summary = String.format("%d invoices to %d recipients", completed.size(), recipients.size());
+        if (outbox.isAuditLogging()) {
+            K2530341AuditLogger.getInstance().log("SYSTEM", "NOTIFICATION_BATCH", "Batch " + batch + ": " + summary);
+        }
+
+        long totalNanos = selectNanos + renderNanos + enqueueNanos;
+        StringBuilder report = new StringBuilder();
+        report.append("=== NOTIFICATION BATCH ").append(batch).append(" ===\n");
+        report.append(summary).append("\n");
+        report.append(String.format("Select:  %9.2f ms\n", selectNanos / 1e6));
+        report.append(String.format("Render:  %9.2f ms  %,12.0f messages/sec (parallelism %d)\n", renderNanos / 1e6,
+            rate(messages.size(), renderNanos), ForkJoinPool.getCommonPoolParallelism()));
+        report.append(String.format("Enqueue: %9.2f ms  %,12.0f messages/sec (%d writes)\n", enqueueNanos / 1e6,
+            rate(messages.size(), enqueueNanos), writes));
+        report.append(String.format("Total:   %9.2f ms  %,12.0f messages/sec\n", totalNanos / 1e6,
+            rate(messages.size(), totalNanos)));
+        return report.toString();
+    }
+
+    private static List<K2530341Notification> render(List<K2530341Booking> bookings,
+            Function<K2530341Booking, K2530341Notification> message) {
+        return bookings.parallelStream().map(message).collect(Collectors.toList());
+    }
+
+    private static double rate(int count, long nanos) {
+        return nanos > 0 ? count * 1e9 / nanos : 0;
     }
 }
@@ -0,0 +1,176 @@
+package com.ecoride;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * A message text with placeholders, parsed once for the EcoRide Car Rental System.
+ * Placeholders are written {name}, {name:money} or {name:date}; the names are given to compile()
+ * in the order render() takes the values. compile() splits the text into literal segments and
+ * placeholder slots, so render() only appends: literals as they are, text with append(),
+ * money with two decimals like String.format("%.2f") and dates as yyyy-MM-dd.
+ * render() builds the text in a StringBuilder kept per thread, so rendering many messages does not
+ * allocate a new growing builder for each.
+ * Demonstrates algorithms: one-pass template compilation; fixed-point number formatting.
+ */
+public final class K2530341NotificationTemplate {
+    private static final int MAX_KEPT_BUFFER = 64 * 1024; // Larger buffers are not kept for the next message
+    private static final ThreadLocal<StringBuilder> BUFFER = ThreadLocal.withInitial(() -> new StringBuilder(2048));
+    // Amounts up to this many LKR are formatted without BigDecimal
+    private static final double FAST_MONEY_LIMIT = 1e12;
+
+    private enum Kind { TEXT, MONEY, DATE }
+
+    private final String[] literals; // literals[i] comes before placeholder i; the last one ends the text
+    private final int[] slots;       // Index in render()'s values of each placeholder
+    private final Kind[] kinds;
+    private final int valueCount;
+    private final int literalLength;
+
+    private K2530341NotificationTemplate(String[] literals, int[] slots, Kind[] kinds, int valueCount) {
+        this.literals = literals;
+        this.slots = slots;
+        this.kinds = kinds;
+        this.valueCount = valueCount;
+        int length = 0;
+        for (String literal : literals) length += literal.length();
+        this.literalLength = length;
+    }
+
+    /**
+     * Parse the text. Every placeholder must use one of the names, with no type or the type money or date.
+     * @throws IllegalArgumentException for an unknown name or type, or an unclosed brace
+     */
+    public static K2530341NotificationTemplate compile(String text, String... names) {
+        List<String> literals = new ArrayList<>();
+        List<Integer> slots = new ArrayList<>();
+        List<Kind> kinds = new ArrayList<>();
+        StringBuilder literal = new StringBuilder();
+        int i = 0;
+        while (i < text.length()) {
+            char c = text.charAt(i);
+            if (c != '{') {
+                literal.append(c);
+                i++;
+                continue;
+            }
+            int close = text.indexOf('}', i);
+            if (close < 0) throw new IllegalArgumentException("Unclosed placeholder at " + i + " in template");
+            String placeholder = text.substring(i + 1, close);
+            int colon = placeholder.indexOf(':');
+            String name = colon < 0 ? placeholder : placeholder.substring(0, colon);
+            String type = colon < 0 ? "" : placeholder.substring(colon + 1);
+            int slot = Arrays.asList(names).indexOf(name);
+            if (slot < 0) throw new IllegalArgumentException("Unknown placeholder {" + placeholder + "}");
+            switch (type) {
+                case "": kinds.add(Kind.TEXT); break;
+                case "money": kinds.add(Kind.MONEY); break;
+                case "date": kinds.add(Kind.DATE); break;
+                default: throw new IllegalArgumentException("Unknown placeholder type {" + placeholder + "}");
+            }
+            literals.add(literal.toString());
+            literal.setLength(0);
+            slots.add(slot);
+            i = close + 1;
+        }
+        literals.add(literal.toString());
+        int[] slotArray = new int[slots.size()];
+        for (int n = 0; n < slotArray.length; n++) slotArray[n] = slots.get(n);
+        return new K2530341NotificationTemplate(literals.toArray(new String[0]), slotArray,
+            kinds.toArray(new Kind[0]), names.length);
+    }
+
+    /**
+     * The text with the values filled in, one value per name given to compile().
+     */
+    public String render(Object... values) {
+        StringBuilder buffer = BUFFER.get();
+        buffer.setLength(0);
+        renderTo(buffer, values);
+        String text = buffer.toString();
+        if (buffer.capacity() > MAX_KEPT_BUFFER) BUFFER.remove();
+        return text;
+    }
+
+    /**
+     * Append the text with the values filled in.
+     */
+    public StringBuilder renderTo(StringBuilder out, Object... values) {
+        if (values.length != valueCount) {
+            throw new IllegalArgumentException("Template takes " + valueCount + " values, got " + values.length);
+        }
+        out.ensureCapacity(out.length() + literalLength + 16 * slots.length);
+        for (int i = 0; i < slots.length; i++) {
+            out.append(literals[i]);
+            Object value = values[slots[i]];
+            switch (kinds[i]) {
+                case MONEY:
+                    if (value instanceof Number) {
+                        appendMoney(out, ((Number) value).doubleValue());
+                    } else {
+                        out.append(value);
+                    }
+                    break;
+                case DATE:
+                    if (value instanceof LocalDate) {
+                        appendDate(out, (LocalDate) value);
+                    } else {
+                        out.append(value);
+                    }
+                    break;
+                default:
+                    out.append(value);
+            }
+        }
+        out.append(literals[slots.length]);
+        return out;
+    }
+
+    // ------------ Formatting ------------
+    /**
+     * Append the amount with two decimals, as String.format("%.2f", amount) does in an English locale.
+     * Works on whole cents; amounts that are nearly halfway between two cents, and very large ones,
+     * are rounded through BigDecimal the way the formatter rounds them.
+     */
+    public static void appendMoney(StringBuilder out, double amount) {
+        if (Double.isNaN(amount) || Double.isInfinite(amount)) {
+            out.append(String.format("%.2f", amount));
+            return;
+        }
+        double scaled = Math.abs(amount) * 100;
+        long cents = Math.round(scaled);
+        if (!(Math.abs(amount) < FAST_MONEY_LIMIT) || Math.abs(Math.abs(scaled - cents) - 0.5) < 1e-6) {
+            out.append(new BigDecimal(Double.toString(amount)).setScale(2, RoundingMode.HALF_UP).toPlainString());
+            return;
+        }
+        if (amount < 0 && cents != 0) out.append('-');
+        out.append(cents / 100).append('.');
+        int fraction = (int) (cents % 100);
+        if (fraction < 10) out.append('0');
+        out.append(fraction);
+    }
+
+    /**
+     * Append the date as yyyy-MM-dd, like LocalDate.toString() for years 0 to 9999.
+     */
+    public static void appendDate(StringBuilder out, LocalDate date) {
+        int year = date.getYear();
+        if (year < 0 || year > 9999) {
+            out.append(date);
+            return;
+        }
+        out.append((char) ('0' + year / 1000)).append((char) ('0' + year / 100 % 10))
+           .append((char) ('0' + year / 10 % 10)).append((char) ('0' + year % 10)).append('-');
+        appendTwoDigits(out, date.getMonthValue());
+        out.append('-');
+        appendTwoDigits(out, date.getDayOfMonth());
+    }
+
+    private static void appendTwoDigits(StringBuilder out, int value) {
+        out.append((char) ('0' + value / 10)).append((char) ('0' + value % 10));
+    }
+}
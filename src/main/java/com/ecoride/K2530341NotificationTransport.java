@@ -0,0 +1,110 @@
+package com.ecoride;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Delivers notifications for K2530341NotificationOutbox.
+ * send() gets one or more messages for the same recipient, so a real mail relay can deliver them
+ * over one connection. Throwing marks the whole batch for a retry.
+ * The stub transports stand in for a mail relay: Console prints the messages, Mailbox appends them
+ * to a file and InMemory keeps them, optionally with a delay and failures.
+ */
+public interface K2530341NotificationTransport {
+
+    void send(String recipient, List<K2530341Notification> batch) throws IOException;
+
+    /**
+     * Prints every message, as the notification service did before the outbox.
+     */
+    class Console implements K2530341NotificationTransport {
+        @Override
+        public void send(String recipient, List<K2530341Notification> batch) {
+            StringBuilder out = new StringBuilder();
+            for (K2530341Notification message : batch) {
+                out.append("=== EMAIL NOTIFICATION ===\n");
+                out.append("To: ").append(recipient).append("\n");
+                out.append("Subject: ").append(message.getSubject()).append("\n");
+                out.append("Body:\n").append(message.getBody()).append("\n");
+                out.append("==========================\n");
+            }
+            System.out.print(out);
+        }
+    }
+
+    /**
+     * Appends every message to a file in mbox layout.
+     */
+    class Mailbox implements K2530341NotificationTransport {
+        private final Path mailbox;
+
+        public Mailbox(Path mailbox) {
+            this.mailbox = mailbox;
+        }
+
+        @Override
+        public synchronized void send(String recipient, List<K2530341Notification> batch) throws IOException {
+            StringBuilder out = new StringBuilder();
+            for (K2530341Notification message : batch) {
+                out.append("From ecoride ").append(new Date(message.getCreatedMillis())).append("\n");
+                out.append("To: ").append(recipient).append("\n");
+                out.append("Subject: ").append(message.getSubject()).append("\n\n");
+                out.append(message.getBody()).append("\n\n");
+            }
+            Files.write(mailbox, out.toString().getBytes(StandardCharsets.UTF_8),
+                StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+        }
+    }
+
+    /**
+     * Keeps the delivered messages in memory. Each call takes delayMillis, like a relay round
+     * trip, and every failEvery-th call fails (0: never).
+     */
+    class InMemory implements K2530341NotificationTransport {
+        private final long delayMillis;
+        private final int failEvery;
+        private final AtomicLong calls = new AtomicLong();
+        private final List<K2530341Notification> delivered = new ArrayList<>();
+
+        public InMemory(long delayMillis, int failEvery) {
+            this.delayMillis = delayMillis;
+            this.failEvery = failEvery;
+        }
+
+        @Override
+        public void send(String recipient, List<K2530341Notification> batch) throws IOException {
+            long call = calls.incrementAndGet();
+            if (delayMillis > 0) {
+                try {
+                    Thread.sleep(delayMillis);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new IOException("Interrupted while sending");
+                }
+            }
+            if (failEvery > 0 && call % failEvery == 0) {
+                throw new IOException("Simulated relay failure");
+            }
+            synchronized (delivered) {
+                delivered.addAll(batch);
+            }
+        }
+
+        public List<K2530341Notification> getDelivered() {
+            synchronized (delivered) {
+                return new ArrayList<>(delivered);
+            }
+        }
+
+        public long getCalls() {
+            return calls.get();
+        }
+    }
+}
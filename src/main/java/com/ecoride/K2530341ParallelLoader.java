@@ -0,0 +1,150 @@
+package com.ecoride;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * Parallel startup loader for the EcoRide CSV files.
+ * Each file is parsed on its own task, and large files are split into chunks at line
+ * boundaries that are parsed concurrently on a fork-join pool. Chunk results are joined
+ * in file order, so the loaded collections keep the order of the file.
+ * Records the time taken by every phase for the startup report.
+ */
+public class K2530341ParallelLoader {
+
+    /**
+     * Turns the current record of the reader into an object, or null to skip the record.
+     */
+    public interface RowParser<T> {
+        T parse(K2530341CsvReader row);
+    }
+
+    /** Files larger than this are split into chunks of roughly this size. */
+    private static final int CHUNK_SIZE = 1 << 20; // 1 MB
+
+    private final ForkJoinPool pool;
+    private final Map<String, Long> phaseNanos = Collections.synchronizedMap(new LinkedHashMap<>());
+    private final long startNanos = System.nanoTime();
+
+    public K2530341ParallelLoader() {
+        this(ForkJoinPool.commonPool());
+    }
+
+    public K2530341ParallelLoader(ForkJoinPool pool) {
+        this.pool = pool;
+    }
+
+    /**
+     * Start reading and parsing a file in the background.
+     * A missing file completes with an empty list.
+     */
+    public <T> CompletableFuture<List<T>> parseAsync(String phase, Path path, RowParser<T> parser) {
+        return CompletableFuture.supplyAsync(() -> {
+            long start = System.nanoTime();
+            List<T> rows = parseFile(path, parser);
+            recordPhase(phase, System.nanoTime() - start);
+            return rows;
+        }, pool);
+    }
+
+    private <T> List<T> parseFile(Path path, RowParser<T> parser) {
+        if (!Files.exists(path)) return new ArrayList<>();
+
+        byte[] data;
+        try {
+            data = Files.readAllBytes(path);
+        } catch (IOException e) {
+            System.err.println("Error loading " + path + ": " + e.getMessage());
+            return new ArrayList<>();
+        }
+
+        // Cut the file into chunks that end right after a newline
+        // (records never span lines: K2530341CsvReader.quote() flattens line breaks)
+        List<ChunkTask<T>> tasks = new ArrayList<>();
+        int chunkStart = 0;
+        while (chunkStart < data.length) {
+            int chunkEnd = Math.min(data.length, chunkStart + CHUNK_SIZE);
+            while (chunkEnd < data.length && data[chunkEnd - 1] != '\n') chunkEnd++;
+            tasks.add(new ChunkTask<>(data, chunkStart, chunkEnd, parser));
+            chunkStart = chunkEnd;
+        }
+
+        if (tasks.size() == 1) {
+            return tasks.get(0).compute();
+        }
+        List<T> rows = new ArrayList<>();
+        for (ChunkTask<T> task : tasks) task.fork();
+        for (ChunkTask<T> task : tasks) rows.addAll(task.join());
+        return rows;
+    }
+
+    // Parses the lines of one byte range of a file
+    private static class ChunkTask<T> extends RecursiveTask<List<T>> {
+        private static final long serialVersionUID = 1L;
+
+        private final byte[] data;
+        private final int start;
+        private final int end;
+        private final RowParser<T> parser;
+
+        ChunkTask(byte[] data, int start, int end, RowParser<T> parser) {
+            this.data = data;
+            this.start = start;
+            this.end = end;
+            this.parser = parser;
+        }
+
+        @Override
+        protected List<T> compute() {
+            List<T> rows = new ArrayList<>();
+            K2530341CsvReader reader = new K2530341CsvReader(new InputStreamReader(
+                new ByteArrayInputStream(data, start, end - start), StandardCharsets.UTF_8));
+            try {
+                while (reader.nextRecord()) {
+                    try {
+                        T row = parser.parse(reader);
+                        if (row != null) rows.add(row);
+                    } catch (RuntimeException e) {
+                        System.err.println("Skipping unreadable line: " + String.join(",", reader.toArray()));
+                    }
+                }
+            } catch (IOException e) {
+                throw new UncheckedIOException(e); // In-memory stream
+            }
+            return rows;
+        }
+    }
+
+    public void recordPhase(String phase, long nanos) {
+        phaseNanos.put(phase, nanos);
+    }
+
+    /**
+     * Per-phase timing of this load. Parse phases overlap, so they add up to more than the total.
+     */
+    public String getTimingReport() {
+        long total = System.nanoTime() - startNanos;
+        StringBuilder sb = new StringBuilder();
+        sb.append(String.format("Startup load: %.2f ms on %d threads\n",
+            total / 1_000_000.0, pool.getParallelism()));
+        synchronized (phaseNanos) {
+            for (Map.Entry<String, Long> entry : phaseNanos.entrySet()) {
+                sb.append(String.format("- %s: %.2f ms\n", entry.getKey(), entry.getValue() / 1_000_000.0));
+            }
+        }
+        return sb.toString();
+    }
+}
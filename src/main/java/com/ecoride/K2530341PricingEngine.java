@@ -0,0 +1,186 @@
+package com.ecoride;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * The one place the EcoRide Car Rental System prices a rental. K2530341FeeCalculator, K2530341Invoice
+ * and K2530341AdvancedSearch all call it, so estimates, invoices and search ranking use the same rules.
+ * The rates are an immutable Tariff; setTariff() swaps in a new one without locking, and a calculation
+ * that has already read the old tariff finishes with it.
+ * price() keeps the breakdown on the booking and returns it again while the tariff, the booking
+ * (its version), the km driven and the vehicle's category are unchanged.
+ * Demonstrates OOP: immutable value objects; concurrency: copy-on-write through a volatile reference.
+ */
+public final class K2530341PricingEngine {
+    private static final AtomicLong TARIFF_VERSIONS = new AtomicLong();
+    private static final long NO_BOOKING = -1; // Booking version of a quote()
+
+    private static volatile Tariff tariff = Tariff.defaults();
+
+    // Statistics
+    private static final LongAdder hits = new LongAdder();
+    private static final LongAdder misses = new LongAdder();
+    private static final LongAdder quotes = new LongAdder();
+
+    private K2530341PricingEngine() {}
+
+    /**
+     * Rates by vehicle category, the long-term discount and the deposit. The with...() methods
+     * return a changed copy with a new version; a Tariff itself never changes.
+     */
+    public static final class Tariff {
+        private static final int CATEGORIES = K2530341VehicleCategory.values().length;
+
+        // By K2530341VehicleCategory ordinal; OTHER has no tariff and stays zero
+        private final double[] dailyRate;
+        private final int[] freeKm;
+        private final double[] extraKmRate;
+        private final double[] taxRate;
+        private final double discountRate;
+        private final long discountMinDays;
+        private final double deposit;
+        private final long version;
+
+        private Tariff(double[] dailyRate, int[] freeKm, double[] extraKmRate, double[] taxRate,
+                double discountRate, long discountMinDays, double deposit) {
+            this.dailyRate = dailyRate;
+            this.freeKm = freeKm;
+            this.extraKmRate = extraKmRate;
+            this.taxRate = taxRate;
+            this.discountRate = discountRate;
+            this.discountMinDays = discountMinDays;
+            this.deposit = deposit;
+            this.version = TARIFF_VERSIONS.incrementAndGet();
+        }
+
+        /**
+         * The rates of Table 1: LKR 5,000 deposit and 10% off rentals of 7 days or more.
+         */
+        public static Tariff defaults() {
+            return new Tariff(new double[CATEGORIES], new int[CATEGORIES], new double[CATEGORIES],
+                    new double[CATEGORIES], 0.10, 7, 5000.0)
+                .withCategory(K2530341VehicleCategory.COMPACT_PETROL, 5000.0, 100, 50.0, 0.10)
+                .withCategory(K2530341VehicleCategory.HYBRID, 7500.0, 150, 60.0, 0.12)
+                .withCategory(K2530341VehicleCategory.ELECTRIC, 10000.0, 200, 40.0, 0.08)
+                .withCategory(K2530341VehicleCategory.LUXURY_SUV, 15000.0, 250, 75.0, 0.15)
+                .withCategory(K2530341VehicleCategory.RACING, 25000.0, 250, 75.0, 0.15)
+                .withCategory(K2530341VehicleCategory.OFF_ROAD_SUV, 20000.0, 250, 75.0, 0.15)
+                .withCategory(K2530341VehicleCategory.SUPER_LUXURY, 35000.0, 250, 75.0, 0.15);
+        }
+
+        public Tariff withCategory(K2530341VehicleCategory category, double dailyRate, int freeKm,
+                double extraKmRate, double taxRate) {
+            if (category == K2530341VehicleCategory.OTHER) {
+                throw new IllegalArgumentException("OTHER cannot have a tariff");
+            }
+            int i = category.ordinal();
+            double[] daily = Arrays.copyOf(this.dailyRate, CATEGORIES);
+            int[] free = Arrays.copyOf(this.freeKm, CATEGORIES);
+            double[] extra = Arrays.copyOf(this.extraKmRate, CATEGORIES);
+            double[] tax = Arrays.copyOf(this.taxRate, CATEGORIES);
+            daily[i] = dailyRate;
+            free[i] = freeKm;
+            extra[i] = extraKmRate;
+            tax[i] = taxRate;
+            return new Tariff(daily, free, extra, tax, discountRate, discountMinDays, deposit);
+        }
+
+        public Tariff withDiscount(double discountRate, long discountMinDays) {
+            return new Tariff(dailyRate, freeKm, extraKmRate, taxRate, discountRate, discountMinDays, deposit);
+        }
+
+        public Tariff withDeposit(double deposit) {
+            return new Tariff(dailyRate, freeKm, extraKmRate, taxRate, discountRate, discountMinDays, deposit);
+        }
+
+        public double getDailyRate(K2530341VehicleCategory category) { return dailyRate[category.ordinal()]; }
+        public int getFreeKm(K2530341VehicleCategory category) { return freeKm[category.ordinal()]; }
+        public double getExtraKmRate(K2530341VehicleCategory category) { return extraKmRate[category.ordinal()]; }
+        public double getTaxRate(K2530341VehicleCategory category) { return taxRate[category.ordinal()]; }
+        public double getDiscountRate() { return discountRate; }
+        public long getDiscountMinDays() { return discountMinDays; }
+        public double getDeposit() { return deposit; }
+        public long getVersion() { return version; }
+
+        public double discountFor(double basePrice, long days) {
+            return days >= discountMinDays ? basePrice * discountRate : 0.0;
+        }
+    }
+
+    // ------------ Tariff ------------
+    public static Tariff getTariff() {
+        return tariff;
+    }
+
+    /**
+     * Use new rates from now on. Breakdowns cached under the old tariff are recalculated when next asked for.
+     */
+    public static void setTariff(Tariff newTariff) {
+        if (newTariff == null) throw new IllegalArgumentException("Tariff is required");
+        tariff = newTariff;
+    }
+
+    // ------------ Pricing ------------
+    /**
+     * The fees of a booking with this many km driven, cached on the booking.
+     */
+    public static K2530341FeeBreakdown price(K2530341Booking booking, int actualKm) {
+        Tariff current = tariff;
+        long bookingVersion = booking.getVersion(); // Read before the dates, so a concurrent update is not cached as current
+        K2530341VehicleCategory category = booking.getVehicle().getCategoryType();
+        K2530341FeeBreakdown cached = booking.getCachedFees();
+        if (cached != null && cached.getTariffVersion() == current.version && cached.getBookingVersion() == bookingVersion
+                && cached.getActualKm() == actualKm && cached.getCategory() == category) {
+            hits.increment();
+            return cached;
+        }
+        misses.increment();
+        K2530341FeeBreakdown fees = calculate(current, category, booking.getNumberOfDays(), actualKm, bookingVersion);
+        booking.cacheFees(fees);
+        return fees;
+    }
+
+    /**
+     * The fees of a rental that is not booked yet, such as a search result. Not cached.
+     */
+    public static K2530341FeeBreakdown quote(K2530341VehicleCategory category, long days, int actualKm) {
+        quotes.increment();
+        return calculate(tariff, category, days, actualKm, NO_BOOKING);
+    }
+
+    // A rental of no days (end before start) has no charges, only the deposit
+    private static K2530341FeeBreakdown calculate(Tariff t, K2530341VehicleCategory category, long days, int actualKm,
+            long bookingVersion) {
+        int i = category.ordinal();
+        double dailyRate = t.dailyRate[i];
+        int freeKm = t.freeKm[i];
+        double extraKmRate = t.extraKmRate[i];
+        double taxRate = t.taxRate[i];
+        if (days <= 0) {
+            return new K2530341FeeBreakdown(category, days, actualKm, dailyRate, 0, t.discountRate, 0, freeKm, 0,
+                extraKmRate, 0, 0, taxRate, 0, t.deposit, t.version, bookingVersion);
+        }
+        double basePrice = dailyRate * days;
+        double discount = t.discountFor(basePrice, days);
+        int extraKm = Math.max(0, actualKm - freeKm * (int) days);
+        double extraKmCharge = extraKm * extraKmRate;
+        double subtotal = basePrice + extraKmCharge - discount;
+        double tax = subtotal * taxRate;
+        return new K2530341FeeBreakdown(category, days, actualKm, dailyRate, basePrice, t.discountRate, discount, freeKm,
+            extraKm, extraKmRate, extraKmCharge, subtotal, taxRate, tax, t.deposit, t.version, bookingVersion);
+    }
+
+    // ------------ Statistics ------------
+    public static String getStats() {
+        long hit = hits.sum(), miss = misses.sum();
+        StringBuilder sb = new StringBuilder();
+        sb.append("=== PRICING ENGINE ===\n");
+        sb.append(String.format("Tariff version: %d\n", tariff.version));
+        sb.append(String.format("Booking prices: %d cached, %d calculated (%.1f%% hit rate)\n", hit, miss,
+            hit + miss == 0 ? 0.0 : 100.0 * hit / (hit + miss)));
+        sb.append(String.format("Quotes: %d\n", quotes.sum()));
+        return sb.toString();
+    }
+}
@@ -0,0 +1,320 @@
+package com.ecoride;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.Clock;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Sends pickup and return reminders for the EcoRide Car Rental System at the right time.
+ * Each booking has up to two reminders, due at sendTime on the day before its start and end date.
+ * They are kept in buckets by due time (a TreeMap, so all reminders of one morning share a bucket);
+ * K2530341RentalSystem adds, moves and cancels them as bookings are made, updated and deleted.
+ * A single thread sleeps until the first bucket is due and sends only the reminders in it, so the
+ * cost of a run depends on the reminders due, not on the number of bookings.
+ * After every run the time is saved in reminders.state. On start-up the reminders are rebuilt from
+ * the end-date index (bookings ending after today); those due after the saved time are sent, so a
+ * reminder missed while the system was down goes out on start-up and none is sent twice.
+ * If the outbox cannot store a reminder, it and the rest of the run are tried again a minute later,
+ * and the saved time is left alone so a restart sends them too.
+ * Demonstrates data structures: TreeMap of buckets with a HashMap for cancellation; concurrency:
+ * a scheduler thread with wait/notify.
+ */
+public class K2530341ReminderScheduler {
+    public static final LocalTime DEFAULT_SEND_TIME = LocalTime.of(9, 0);
+    private static final long MAX_SLEEP_MILLIS = 60_000; // Wake up now and then in case the clock was changed
+    private static final long RETRY_MILLIS = 60_000; // After the outbox failed to store a reminder
+
+    public enum Kind { PICKUP, RETURN }
+
+    private static final class Reminder {
+        final Kind kind;
+        final K2530341Booking booking;
+        final LocalDate eventDate; // Start date for PICKUP, end date for RETURN
+        final long dueMillis;
+
+        Reminder(Kind kind, K2530341Booking booking, LocalDate eventDate, long dueMillis) {
+            this.kind = kind;
+            this.booking = booking;
+            this.eventDate = eventDate;
+            this.dueMillis = dueMillis;
+        }
+
+        String key() {
+            return key(kind, booking.getBookingId());
+        }
+
+        static String key(Kind kind, String bookingId) {
+            return kind + ":" + bookingId;
+        }
+    }
+
+    private final K2530341RentalSystem rentalSystem;
+    private final Path stateFile;
+    private final Clock clock;
+    private final LocalTime sendTime;
+
+    // All guarded by this
+    private final TreeMap<Long, Map<String, Reminder>> buckets = new TreeMap<>(); // Key: due time in epoch millis
+    private final Map<String, Reminder> byKey = new HashMap<>(); // Key: kind and bookingId
+    private final Map<String, LocalDate> sent = new HashMap<>(); // Reminders sent, with their event date
+    private long lastRunMillis; // Reminders due up to this time have been sent
+    private boolean running;
+    private Thread thread;
+
+    // Statistics
+    private long sentCount, staleCount, runs;
+    private long lastRunNanos, maxRunNanos;
+
+    public K2530341ReminderScheduler(K2530341RentalSystem rentalSystem, Path stateFile, Clock clock) {
+        this(rentalSystem, stateFile, clock, DEFAULT_SEND_TIME);
+    }
+
+    public K2530341ReminderScheduler(K2530341RentalSystem rentalSystem, Path stateFile, Clock clock, LocalTime sendTime) {
+        this.rentalSystem = rentalSystem;
+        this.stateFile = stateFile;
+        this.clock = clock;
+        this.sendTime = sendTime;
+        this.lastRunMillis = readState();
+    }
+
+    // ------------ Lifecycle ------------
+    /**
+     * Rebuild the reminders of the bookings that have not ended yet and start the scheduler thread.
+     */
+    public void start() {
+        LocalDate today = LocalDate.now(clock);
+        int rebuilt = 0;
+        for (K2530341Booking booking : rentalSystem.getBookingsEndingBetween(today.plusDays(1), null)) {
+            rebuilt += add(booking, true);
+        }
+        synchronized (this) {
+            if (running) return;
+            running = true;
+            thread = new Thread(this::run, "ecoride-reminders");
+            thread.setDaemon(true);
+            thread.start();
+        }
+        System.out.println("Reminder scheduler: " + rebuilt + " reminders scheduled.");
+    }
+
+    public void stop() {
+        Thread stopping;
+        synchronized (this) {
+            running = false;
+            stopping = thread;
+            thread = null;
+            notifyAll();
+        }
+        if (stopping != null) {
+            try {
+                stopping.join();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    // ------------ Scheduling ------------
+    /**
+     * Schedule the reminders of a new or updated booking, replacing those it had.
+     */
+    public void schedule(K2530341Booking booking) {
+        synchronized (this) {
+            cancel(booking.getBookingId());
+            add(booking, false);
+        }
+    }
+
+    /**
+     * Cancel the reminders of a deleted booking.
+     */
+    public synchronized void cancel(String bookingId) {
+        for (Kind kind : Kind.values()) {
+            Reminder reminder = byKey.remove(Reminder.key(kind, bookingId));
+            if (reminder == null) continue;
+            Map<String, Reminder> bucket = buckets.get(reminder.dueMillis);
+            bucket.remove(reminder.key());
+            if (bucket.isEmpty()) buckets.remove(reminder.dueMillis);
+        }
+    }
+
+    // Add the reminders that are still to be sent; when rebuilding, keep those already scheduled
+    // and skip those due before the last run, which have been sent
+    private synchronized int add(K2530341Booking booking, boolean rebuilding) {
+        int added = 0;
+        LocalDate today = LocalDate.now(clock);
+        for (Kind kind : Kind.values()) {
+            LocalDate eventDate = kind == Kind.PICKUP ? booking.getStartDate() : booking.getEndDate();
+            if (eventDate == null || !eventDate.isAfter(today)) continue; // Too late for a reminder
+            Reminder existing = byKey.get(Reminder.key(kind, booking.getBookingId()));
+            if (rebuilding && existing != null) continue;
+            if (eventDate.equals(sent.get(Reminder.key(kind, booking.getBookingId())))) continue;
+            long dueMillis = eventDate.minusDays(1).atTime(sendTime).atZone(clock.getZone()).toInstant().toEpochMilli();
+            if (rebuilding && dueMillis <= lastRunMillis) continue;
+            // Due already (booked late, or missed while down): send it on the next run
+            Reminder reminder = new Reminder(kind, booking, eventDate, Math.max(dueMillis, clock.millis()));
+            byKey.put(reminder.key(), reminder);
+            buckets.computeIfAbsent(reminder.dueMillis, t -> new LinkedHashMap<>()).put(reminder.key(), reminder);
+            added++;
+        }
+        if (added > 0) notifyAll(); // The first due time may have moved forward
+        return added;
+    }
+
+    // ------------ Sending ------------
+    private void run() {
+        while (true) {
+            List<Reminder> due;
+            synchronized (this) {
+                while (running) {
+                    long wait = buckets.isEmpty() ? MAX_SLEEP_MILLIS : buckets.firstKey() - clock.millis();
+                    if (wait <= 0) break;
+                    try {
+                        wait(Math.min(wait, MAX_SLEEP_MILLIS));
+                    } catch (InterruptedException e) {
+                        return;
+                    }
+                }
+                if (!running) return;
+                due = takeDue(clock.millis());
+            }
+            send(due);
+        }
+    }
+
+    /**
+     * Send the reminders that are due now, without waiting for the scheduler thread.
+     * @return the number of reminders sent
+     */
+    public int runDue() {
+        List<Reminder> due;
+        synchronized (this) {
+            due = takeDue(clock.millis());
+        }
+        return send(due);
+    }
+
+    // Remove the buckets due by now; called with the lock held
+    private List<Reminder> takeDue(long now) {
+        List<Reminder> due = new ArrayList<>();
+        Iterator<Map<String, Reminder>> it = buckets.headMap(now, true).values().iterator();
+        while (it.hasNext()) {
+            for (Reminder reminder : it.next().values()) {
+                byKey.remove(reminder.key());
+                sent.put(reminder.key(), reminder.eventDate);
+                due.add(reminder);
+            }
+            it.remove();
+        }
+        return due;
+    }
+
+    private int send(List<Reminder> due) {
+        long start = System.nanoTime();
+        int delivered = 0, stale = 0;
+        boolean failed = false;
+        for (int i = 0; i < due.size(); i++) {
+            Reminder reminder = due.get(i);
+            // Skip bookings that were deleted or replaced in between
+            if (rentalSystem.getBooking(reminder.booking.getBookingId()) != reminder.booking) {
+                stale++;
+                continue;
+            }
+            try {
+                if (reminder.kind == Kind.PICKUP) {
+                    K2530341NotificationService.sendPickupReminder(reminder.booking);
+                } else {
+                    K2530341NotificationService.sendReturnReminder(reminder.booking);
+                }
+            } catch (UncheckedIOException e) {
+                System.err.println("Reminder scheduler: " + e.getMessage() + "; retrying " + (due.size() - i)
+                    + " reminders later.");
+                retryLater(due.subList(i, due.size()));
+                failed = true;
+                break;
+            }
+            delivered++;
+        }
+        long elapsed = System.nanoTime() - start;
+        long now = clock.millis();
+        synchronized (this) {
+            sentCount += delivered;
+            staleCount += stale;
+            runs++;
+            lastRunNanos = elapsed;
+            maxRunNanos = Math.max(maxRunNanos, elapsed);
+            if (!failed) lastRunMillis = Math.max(lastRunMillis, now);
+            // Forget reminders whose event has passed; they cannot be scheduled again
+            LocalDate today = LocalDate.now(clock);
+            sent.values().removeIf(date -> !date.isAfter(today));
+        }
+        if (!failed) writeState(now);
+        return delivered;
+    }
+
+    // Put back reminders the outbox could not store, unless their booking was rescheduled meanwhile
+    private synchronized void retryLater(List<Reminder> reminders) {
+        long dueMillis = clock.millis() + RETRY_MILLIS;
+        for (Reminder reminder : reminders) {
+            sent.remove(reminder.key());
+            if (byKey.containsKey(reminder.key())) continue;
+            Reminder retry = new Reminder(reminder.kind, reminder.booking, reminder.eventDate, dueMillis);
+            byKey.put(retry.key(), retry);
+            buckets.computeIfAbsent(dueMillis, t -> new LinkedHashMap<>()).put(retry.key(), retry);
+        }
+        notifyAll();
+    }
+
+    // ------------ State file ------------
+    private long readState() {
+        try {
+            if (Files.exists(stateFile)) {
+                return Long.parseLong(new String(Files.readAllBytes(stateFile), StandardCharsets.US_ASCII).trim());
+            }
+        } catch (IOException | NumberFormatException e) {
+            System.err.println("Error reading reminder state: " + e.getMessage());
+        }
+        return 0; // First start: send everything that is due
+    }
+
+    private void writeState(long millis) {
+        Path temp = stateFile.resolveSibling(stateFile.getFileName() + ".tmp");
+        try {
+            Files.write(temp, Long.toString(millis).getBytes(StandardCharsets.US_ASCII));
+            Files.move(temp, stateFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            System.err.println("Error writing reminder state: " + e.getMessage());
+        }
+    }
+
+    // ------------ Statistics ------------
+    public synchronized int getPendingCount() {
+        return byKey.size();
+    }
+
+    public synchronized String getStats() {
+        StringBuilder sb = new StringBuilder();
+        sb.append("=== REMINDER SCHEDULER ===\n");
+        sb.append(String.format("Pending: %d reminders in %d buckets", byKey.size(), buckets.size()));
+        if (!buckets.isEmpty()) {
+            sb.append(", next at ").append(new java.util.Date(buckets.firstKey()));
+        }
+        sb.append("\n");
+        sb.append(String.format("Sent: %d in %d runs (%d skipped for changed bookings)\n", sentCount, runs, staleCount));
+        sb.append(String.format("Run time: last %.3f ms, max %.3f ms\n", lastRunNanos / 1e6, maxRunNanos / 1e6));
+        return sb.toString();
+    }
+}
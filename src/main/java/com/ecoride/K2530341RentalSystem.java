@@ -1,41 +1,115 @@
 package com.ecoride;
 
 import java.util.ArrayList;
-import java.util.HashMap;
+import java.util.Collections;
 import java.util.List;
-import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.BooleanSupplier;
+import java.util.function.Supplier;
 import java.io.*;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.*;
 import java.time.LocalDate;
-import java.time.format.DateTimeFormatter;
-import java.time.format.DateTimeParseException;
 
 /**
  * Manages the EcoRide Car Rental System.
- * Demonstrates data structures: ArrayList for lists, HashMap for quick lookups.
+ * Demonstrates data structures: ArrayList for lists, ConcurrentHashMap for quick lookups.
  * OOP: Composition, encapsulation.
+ *
+ * Thread safety: lookups by key go through the concurrent maps without locking. The lists,
+ * secondary indexes and change counters are guarded by a read/write lock. Mutations of the same
+ * vehicle (its bookings and status) or the same customer are serialized on a striped lock keyed
+ * by carId or NIC, so bookings for different vehicles proceed in parallel.
  */
 public class K2530341RentalSystem {
-    //Array list collection and HashMap for Fast Lookups
+    //Array list collection and ConcurrentHashMap for Fast Lookups
     private ArrayList<K2530341Vehicle> vehicles; // Usage of a polymorphic collection // Composition
-    private HashMap<String, K2530341Vehicle> vehicleMap; // Key: carId
+    private ConcurrentHashMap<String, K2530341Vehicle> vehicleMap; // Key: carId
     private ArrayList<K2530341Customer> customers; // Usage of a polymorphic collection // Composition
-    private HashMap<String, K2530341Customer> customerMap; // Key: nicOrPassport
+    private ConcurrentHashMap<String, K2530341Customer> customerMap; // Key: nicOrPassport
     private ArrayList<K2530341Booking> bookings; // Usage of a polymorphic collection // Composition
-    private HashMap<String, K2530341Booking> bookingMap; // Key: bookingId
+    private ConcurrentHashMap<String, K2530341Booking> bookingMap; // Key: bookingId
+    // Immutable copies of the lists handed out by getAll*(); set to null when the list changes
+    private volatile List<K2530341Vehicle> vehicleSnapshot;
+    private volatile List<K2530341Customer> customerSnapshot;
+    private volatile List<K2530341Booking> bookingSnapshot;
+    private K2530341BookingIndex bookingIndex; // Date and customer indexes over bookings
+    // Substring indexes for keyword search
+    private K2530341TrigramIndex<K2530341Vehicle> vehicleModelIndex;
+    private K2530341TrigramIndex<K2530341Customer> customerNameIndex;
+    private K2530341TrigramIndex<K2530341Booking> bookingNameIndex;  // Customer name of the booking
+    private K2530341TrigramIndex<K2530341Booking> bookingModelIndex; // Vehicle model of the booking
+    private K2530341TrigramIndex<K2530341Booking> bookingIdIndex;
     private K2530341AuthSystem authSystem; // Composition
+    private K2530341Journal journal; // Write-ahead log of mutations since the last snapshot
+    private final Path dataDir; // Where the CSV files, the snapshot, the journal and reminders.state are kept
+    private volatile K2530341ReminderScheduler reminders; // null until startReminders()
 
-    /** Prevents saveData() from running during load. */
-    private boolean isLoadingData = false;
+    /** Journal size at which the CSV snapshot is rewritten and the journal truncated. */
+    private static final int DEFAULT_COMPACTION_THRESHOLD = 10_000;
+    private int compactionThreshold = DEFAULT_COMPACTION_THRESHOLD;
+
+    // Per-collection change counters; a CSV file is only rewritten when its collection changed since the last save
+    private long vehiclesVersion, customersVersion, bookingsVersion;
+    private long savedVehiclesVersion, savedCustomersVersion, savedBookingsVersion;
+
+    /**
+     * When true (-Decoride.snapshot=binary) the snapshot is kept in ecoride.snap instead of the CSV files.
+     * CSV files are then only used for import (first start) and export (exportToCsv()).
+     */
+    private final boolean binarySnapshot = "binary".equalsIgnoreCase(System.getProperty("ecoride.snapshot", "csv"));
+    private static final String BINARY_SNAPSHOT_FILE = "ecoride.snap";
+
+    // Guards the lists, the secondary indexes and the change counters
+    private final ReentrantReadWriteLock dataLock = new ReentrantReadWriteLock();
+    // Mutations hold the read side while they change memory and journal it; checkpoints take the write side
+    private final ReentrantReadWriteLock checkpointLock = new ReentrantReadWriteLock();
+    // Striped locks keyed by carId (vehicle and booking mutations) or NIC (customer mutations)
+    private static final int LOCK_STRIPES = 64;
+    private final Object[] stripes = new Object[LOCK_STRIPES];
+
+    /** Optimistic booking attempts before makeBooking()/updateBooking() validate under the lock instead. */
+    private static final int MAX_OPTIMISTIC_ATTEMPTS = 8;
+    // Contention counters of the optimistic commits
+    private final LongAdder commits = new LongAdder();
+    private final LongAdder conflicts = new LongAdder();
+    private final ConcurrentHashMap<String, LongAdder> conflictsByVehicle = new ConcurrentHashMap<>(); // Key: carId
+
+    /** Prevents journaling from running during load. */
+    private volatile boolean isLoadingData = false;
+    private String loadReport = ""; // Per-phase timing of the last startup load
 
     public K2530341RentalSystem() {
+        this(Paths.get(""));
+    }
+
+    /**
+     * A system whose data files are in dataDir instead of the working directory.
+     */
+    public K2530341RentalSystem(Path dataDir) {
+        this.dataDir = dataDir;
         vehicles = new ArrayList<>();
-        vehicleMap = new HashMap<>();
+        vehicleMap = new ConcurrentHashMap<>();
         customers = new ArrayList<>();
-        customerMap = new HashMap<>();
+        customerMap = new ConcurrentHashMap<>();
         bookings = new ArrayList<>();
-        bookingMap = new HashMap<>();
+        bookingMap = new ConcurrentHashMap<>();
+        for (int i = 0; i < LOCK_STRIPES; i++) {
+            stripes[i] = new Object();
+        }
+        bookingIndex = new K2530341BookingIndex();
+        vehicleModelIndex = new K2530341TrigramIndex<>();
+        customerNameIndex = new K2530341TrigramIndex<>();
+        bookingNameIndex = new K2530341TrigramIndex<>();
+        bookingModelIndex = new K2530341TrigramIndex<>();
+        bookingIdIndex = new K2530341TrigramIndex<>();
         authSystem = new K2530341AuthSystem();
+        journal = new K2530341Journal(dataDir.resolve("journal.log").toString());
         loadData(); // Load data from files
         if (vehicles.isEmpty()) {
             initializeVehicles(); // Add some sample vehicles if no data loaded
@@ -53,186 +127,628 @@ public class K2530341RentalSystem {
     // ------------ Load / Save orchestration ------------
     private void loadData() {
         isLoadingData = true;
+        K2530341ParallelLoader loader = new K2530341ParallelLoader();
         try {
-            loadVehicles();
-            loadCustomers();
-            loadBookings();
+            long snapshotStart = System.nanoTime();
+            if (binarySnapshot && loadBinarySnapshot()) {
+                loader.recordPhase("binary snapshot", System.nanoTime() - snapshotStart);
+            } else {
+                loadCsvFiles(loader);
+                if (binarySnapshot) {
+                    // First start in binary mode: convert the CSV files once
+                    writeBinarySnapshot();
+                }
+            }
+            markAllSaved(); // Memory now matches the snapshot; only replayed changes are dirty
+            long replayStart = System.nanoTime();
+            replayJournal();
+            loader.recordPhase("journal replay", System.nanoTime() - replayStart);
         } finally {
             isLoadingData = false;
         }
+        loadReport = loader.getTimingReport();
+        if (journal.getRecordCount() >= compactionThreshold) {
+            checkpoint();
+        }
+    }
+
+    // Rewrites only the files whose collection changed; returns false if any write failed
+    private boolean saveData() {
+        if (binarySnapshot) {
+            if (vehiclesVersion == savedVehiclesVersion && customersVersion == savedCustomersVersion
+                    && bookingsVersion == savedBookingsVersion) {
+                return true;
+            }
+            long v = vehiclesVersion, c = customersVersion, b = bookingsVersion;
+            if (!writeBinarySnapshot()) return false;
+            savedVehiclesVersion = v;
+            savedCustomersVersion = c;
+            savedBookingsVersion = b;
+            return true;
+        }
+
+        boolean ok = true;
+        if (vehiclesVersion != savedVehiclesVersion) {
+            long version = vehiclesVersion;
+            if (saveVehicles()) savedVehiclesVersion = version; else ok = false;
+        }
+        if (customersVersion != savedCustomersVersion) {
+            long version = customersVersion;
+            if (saveCustomers()) savedCustomersVersion = version; else ok = false;
+        }
+        if (bookingsVersion != savedBookingsVersion) {
+            long version = bookingsVersion;
+            if (saveBookings()) savedBookingsVersion = version; else ok = false;
+        }
+        return ok;
     }
 
-    private void saveData() {
-        saveVehicles();
-        saveCustomers();
-        saveBookings();
+    // ------------ Binary snapshot ------------
+    private boolean loadBinarySnapshot() {
+        K2530341BinarySnapshot.Contents contents = K2530341BinarySnapshot.read(dataDir.resolve(BINARY_SNAPSHOT_FILE));
+        if (contents == null) return false;
+        for (K2530341Vehicle v : contents.getVehicles()) insertVehicle(v);
+        for (K2530341Customer c : contents.getCustomers()) insertCustomer(c);
+        for (K2530341Booking b : contents.getBookings()) insertBooking(b);
+        return true;
     }
 
-    // ------------ Vehicles ------------
-    private void loadVehicles() {
-        Path path = Paths.get("vehicles.csv");
-        if (!Files.exists(path)) return;
-
-        try (BufferedReader reader = Files.newBufferedReader(path)) {
-            String line;
-            while ((line = reader.readLine()) != null) {
-                if (line.isBlank()) continue;
-                String[] parts = line.split(",");
-                if (parts.length == 5) {
-                    String id = parts[0];
-                    String model = parts[1];
-                    String category = parts[2];
-                    double price = Double.parseDouble(parts[3]);
-                    String status = parts[4];
-
-                    // Directly add to memory (DO NOT call addVehicle here)
-                    K2530341Vehicle v = new K2530341Vehicle(id, model, category, price, status);
-                    vehicles.add(v);
-                    vehicleMap.put(id, v);
+    private boolean writeBinarySnapshot() {
+        List<K2530341Vehicle> vehicleCopy = getAllVehicles();
+        List<K2530341Customer> customerCopy = getAllCustomers();
+        List<K2530341Booking> bookingCopy = getAllBookings();
+        return K2530341BinarySnapshot.write(dataDir.resolve(BINARY_SNAPSHOT_FILE), vehicleCopy, customerCopy, bookingCopy);
+    }
+
+    /**
+     * Write all three CSV files from memory, regardless of the snapshot format in use.
+     */
+    public boolean exportToCsv() {
+        boolean ok = saveVehicles();
+        ok &= saveCustomers();
+        ok &= saveBookings();
+        return ok;
+    }
+
+    private void markAllSaved() {
+        savedVehiclesVersion = vehiclesVersion;
+        savedCustomersVersion = customersVersion;
+        savedBookingsVersion = bookingsVersion;
+    }
+
+    /**
+     * Write all lines to a temporary file and rename it over the target,
+     * so a crash mid-write leaves the previous file intact instead of a truncated one.
+     */
+    private boolean writeAtomically(String fileName, Iterable<String> lines) {
+        Path target = dataDir.resolve(fileName);
+        Path temp = dataDir.resolve(fileName + ".tmp");
+        try {
+            try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.CREATE,
+                    StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+                 BufferedWriter writer = new BufferedWriter(Channels.newWriter(channel, StandardCharsets.UTF_8.newEncoder(), -1))) {
+                for (String line : lines) {
+                    writer.write(line);
+                    writer.newLine();
                 }
+                writer.flush();
+                channel.force(true);
             }
+            try {
+                Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING);
+            }
+            return true;
         } catch (IOException e) {
-            System.err.println("Error loading vehicles: " + e.getMessage());
+            System.err.println("Error saving " + fileName + ": " + e.getMessage());
+            return false;
         }
     }
 
-    private void saveVehicles() {
-        try (PrintWriter writer = new PrintWriter(new FileWriter("vehicles.csv"))) {
-            for (K2530341Vehicle v : vehicles) {
-                writer.println(v.getCarId() + "," + v.getModel() + "," + v.getCategory() + "," + v.getDailyRentalPrice() + "," + v.getAvailabilityStatus());
+    // ------------ Journal ------------
+    // Re-apply mutations that happened after the last snapshot was written.
+    // A crash between saveData() and journal.reset() leaves records that the snapshot already holds,
+    // so an add whose key is already loaded is skipped: the snapshot copy is at least as new.
+    private void replayJournal() {
+        int[] applied = {0};
+        journal.replay((op, key, row) -> {
+            switch (op) {
+                case ADD_VEHICLE:
+                    K2530341Vehicle added = parseVehicle(row);
+                    if (added != null && !vehicleMap.containsKey(added.getCarId())) { insertVehicle(added); applied[0]++; }
+                    break;
+                case UPDATE_VEHICLE:
+                    K2530341Vehicle updated = parseVehicle(row);
+                    if (updated != null && replaceVehicle(key, updated)) applied[0]++;
+                    break;
+                case DELETE_VEHICLE:
+                    if (removeVehicle(key)) applied[0]++;
+                    break;
+                case ADD_CUSTOMER:
+                    K2530341Customer addedCustomer = parseCustomer(row);
+                    if (addedCustomer != null && !customerMap.containsKey(addedCustomer.getNicOrPassport())) {
+                        insertCustomer(addedCustomer);
+                        applied[0]++;
+                    }
+                    break;
+                case UPDATE_CUSTOMER:
+                    K2530341Customer updatedCustomer = parseCustomer(row);
+                    if (updatedCustomer != null && replaceCustomer(key, updatedCustomer)) applied[0]++;
+                    break;
+                case DELETE_CUSTOMER:
+                    if (removeCustomer(key)) applied[0]++;
+                    break;
+                case ADD_BOOKING:
+                    K2530341Booking addedBooking = parseBooking(row);
+                    if (addedBooking != null && insertBooking(addedBooking)) applied[0]++;
+                    break;
+                case UPDATE_BOOKING:
+                    K2530341Booking updatedBooking = parseBooking(row);
+                    if (updatedBooking != null && replaceBooking(key, updatedBooking)) applied[0]++;
+                    break;
+                case DELETE_BOOKING:
+                    if (removeBooking(key)) applied[0]++;
+                    break;
             }
-        } catch (IOException e) {
-            System.err.println("Error saving vehicles: " + e.getMessage());
+        });
+        if (applied[0] > 0) {
+            System.out.println("Replayed " + applied[0] + " journal records.");
         }
     }
 
-    // ------------ Customers ------------
-    private void loadCustomers() {
-        Path path = Paths.get("customers.csv");
-        if (!Files.exists(path)) return;
-
-        try (BufferedReader reader = Files.newBufferedReader(path)) {
-            String line;
-            while ((line = reader.readLine()) != null) {
-                if (line.isBlank()) continue;
-                String[] parts = line.split(",");
-                if (parts.length == 4) {
-                    String nic = parts[0];
-                    String name = parts[1];
-                    String contact = parts[2];
-                    String email = parts[3];
-
-                    // Directly add to memory (DO NOT call registerCustomer here)
-                    K2530341Customer c = new K2530341Customer(nic, name, contact, email);
-                    customers.add(c);
-                    customerMap.put(nic, c);
-                }
+    // Append one mutation to the journal (compaction is triggered by mutate() once the locks are released).
+    private void persist(K2530341Journal.Op op, String key, String payload) {
+        if (isLoadingData) return;
+        journal.append(op, key, payload);
+    }
+
+    /**
+     * Rewrite the changed CSV snapshot files from memory and truncate the journal.
+     * The journal is kept if any file could not be written, so no change is lost.
+     * Waits for in-flight mutations, and blocks new ones until it is done.
+     */
+    public void checkpoint() {
+        checkpointLock.writeLock().lock();
+        try {
+            journal.sync();
+            if (saveData()) {
+                journal.reset();
             }
-        } catch (IOException e) {
-            System.err.println("Error loading customers: " + e.getMessage());
+        } finally {
+            checkpointLock.writeLock().unlock();
         }
     }
 
-    private void saveCustomers() {
-        try (PrintWriter writer = new PrintWriter(new FileWriter("customers.csv"))) {
-            for (K2530341Customer c : customers) {
-                writer.println(c.getNicOrPassport() + "," + c.getName() + "," + c.getContactNumber() + "," + c.getEmail());
+    // Compact into the snapshot when the journal has grown too large
+    private void checkpointIfDue() {
+        if (isLoadingData || journal.getRecordCount() < compactionThreshold) return;
+        checkpointLock.writeLock().lock();
+        try {
+            if (journal.getRecordCount() >= compactionThreshold) { // Another thread may have compacted already
+                checkpoint();
             }
-        } catch (IOException e) {
-            System.err.println("Error saving customers: " + e.getMessage());
+        } finally {
+            checkpointLock.writeLock().unlock();
         }
     }
 
+    public void setCompactionThreshold(int compactionThreshold) {
+        this.compactionThreshold = Math.max(1, compactionThreshold);
+    }
+
+    public long getJournalSize() {
+        return journal.getRecordCount();
+    }
+
+    /**
+     * Choose how journal records are made durable.
+     * In GROUP_SYNC mode makeBooking() and the other mutators block until their batch is fsynced;
+     * in GROUP_ASYNC mode they return as soon as the record is queued.
+     * @param windowMicros batching window of the background flusher (e.g. 5000 for 5 ms)
+     * @param maxBatchOps  flush early once this many records are waiting (e.g. 512)
+     */
+    public void setPersistenceMode(K2530341Journal.DurabilityMode mode, long windowMicros, int maxBatchOps) {
+        journal.configure(mode, windowMicros, maxBatchOps);
+    }
+
+    /**
+     * Block until every mutation made so far is on disk (no-op in IMMEDIATE mode).
+     */
+    public void flush() {
+        journal.sync();
+    }
+
+    // Batch size, queue depth and flush latency counters for tuning group commit
+    public String getPersistenceStats() {
+        return journal.getStatsReport();
+    }
+
+    // Parse all three CSV files concurrently, then resolve booking references against the lookup maps.
+    private void loadCsvFiles(K2530341ParallelLoader loader) {
+        CompletableFuture<List<K2530341Vehicle>> vehiclesLoad =
+            loader.parseAsync("parse vehicles.csv", dataDir.resolve("vehicles.csv"), this::parseVehicle);
+        CompletableFuture<List<K2530341Customer>> customersLoad =
+            loader.parseAsync("parse customers.csv", dataDir.resolve("customers.csv"), this::parseCustomer);
+        CompletableFuture<List<BookingRow>> bookingsLoad =
+            loader.parseAsync("parse bookings.csv", dataDir.resolve("bookings.csv"), this::parseBookingRow);
+
+        // Directly add to memory (DO NOT call addVehicle/registerCustomer here)
+        for (K2530341Vehicle v : vehiclesLoad.join()) insertVehicle(v);
+        for (K2530341Customer c : customersLoad.join()) insertCustomer(c);
+
+        List<BookingRow> rows = bookingsLoad.join();
+        long resolveStart = System.nanoTime();
+        for (BookingRow row : rows) {
+            K2530341Booking b = resolveBooking(row);
+            if (b != null) insertBooking(b);
+        }
+        loader.recordPhase("resolve bookings", System.nanoTime() - resolveStart);
+    }
+
+    public String getLoadReport() {
+        return loadReport;
+    }
+
+    // ------------ Vehicles ------------
+    private K2530341Vehicle parseVehicle(K2530341CsvReader row) {
+        if (row.fieldCount() != 5) return null;
+        String id = row.field(0);
+        String model = row.field(1);
+        String category = row.field(2);
+        double price = row.doubleField(3);
+        String status = row.field(4);
+        return new K2530341Vehicle(id, model, category, price, status);
+    }
+
+    private String toCsv(K2530341Vehicle v) {
+        return K2530341CsvReader.quote(v.getCarId()) + "," + K2530341CsvReader.quote(v.getModel()) + "," +
+               K2530341CsvReader.quote(v.getCategory()) + "," + v.getDailyRentalPrice() + "," +
+               K2530341CsvReader.quote(v.getAvailabilityStatus());
+    }
+
+    private boolean saveVehicles() {
+        List<String> lines = readLocked(() -> {
+            List<String> rows = new ArrayList<>(vehicles.size());
+            for (K2530341Vehicle v : vehicles) {
+                rows.add(toCsv(v));
+            }
+            return rows;
+        });
+        return writeAtomically("vehicles.csv", lines);
+    }
+
+    // ------------ Customers ------------
+    private K2530341Customer parseCustomer(K2530341CsvReader row) {
+        if (row.fieldCount() != 4) return null;
+        String nic = row.field(0);
+        String name = row.field(1);
+        String contact = row.field(2);
+        String email = row.field(3);
+        return new K2530341Customer(nic, name, contact, email);
+    }
+
+    private String toCsv(K2530341Customer c) {
+        return K2530341CsvReader.quote(c.getNicOrPassport()) + "," + K2530341CsvReader.quote(c.getName()) + "," +
+               K2530341CsvReader.quote(c.getContactNumber()) + "," + K2530341CsvReader.quote(c.getEmail());
+    }
+
+    private boolean saveCustomers() {
+        List<String> lines = readLocked(() -> {
+            List<String> rows = new ArrayList<>(customers.size());
+            for (K2530341Customer c : customers) {
+                rows.add(toCsv(c));
+            }
+            return rows;
+        });
+        return writeAtomically("customers.csv", lines);
+    }
+
     // ------------ Bookings ------------
-    // Try multiple common formats; default to ISO-8601 if possible.
-    private LocalDate parseDate(String s) {
-        if (s == null || s.isBlank()) return null;
-        String[] patterns = {
-            "yyyy-MM-dd",     // ISO (recommended)
-            "dd/MM/yyyy",
-            "MM/dd/yyyy"
-        };
-        for (String p : patterns) {
-            try {
-                return LocalDate.parse(s, DateTimeFormatter.ofPattern(p));
-            } catch (DateTimeParseException ignored) {}
+    // A bookings.csv row before its customer and vehicle references are resolved
+    private static class BookingRow {
+        final String bookingId;
+        final String customerNic;
+        final String vehicleId;
+        final LocalDate startDate;
+        final LocalDate endDate;
+        final int totalKm;
+
+        BookingRow(String bookingId, String customerNic, String vehicleId,
+                   LocalDate startDate, LocalDate endDate, int totalKm) {
+            this.bookingId = bookingId;
+            this.customerNic = customerNic;
+            this.vehicleId = vehicleId;
+            this.startDate = startDate;
+            this.endDate = endDate;
+            this.totalKm = totalKm;
         }
-        // last attempt: LocalDate.parse default (works for ISO)
-        try {
-            return LocalDate.parse(s);
-        } catch (DateTimeParseException e) {
-            System.err.println("Could not parse date: " + s);
+    }
+
+    // Parsing only; safe to run on loader threads because it does not touch the lookup maps.
+    private BookingRow parseBookingRow(K2530341CsvReader row) {
+        if (row.fieldCount() != 6) return null;
+        String bookingId   = row.field(0);
+        String customerNic = row.field(1);
+        String vehicleId   = row.field(2);
+        int totalKm        = row.intField(5);
+
+        // Tries ISO-8601 first, then dd/MM/yyyy and MM/dd/yyyy
+        LocalDate startDate = row.dateField(3);
+        LocalDate endDate   = row.dateField(4);
+        if (startDate == null || endDate == null) {
+            System.err.println("Skipping booking " + bookingId + " due to bad dates.");
             return null;
         }
+        return new BookingRow(bookingId, customerNic, vehicleId, startDate, endDate, totalKm);
     }
 
-    private void loadBookings() {
-        Path path = Paths.get("bookings.csv");
-        if (!Files.exists(path)) return;
-
-        try (BufferedReader reader = Files.newBufferedReader(path)) {
-            String line;
-            while ((line = reader.readLine()) != null) {
-                if (line.isBlank()) continue;
-                String[] parts = line.split(",");
-                if (parts.length == 6) {
-                    String bookingId   = parts[0];
-                    String customerNic = parts[1];
-                    String vehicleId   = parts[2];
-                    String startDateStr= parts[3];
-                    String endDateStr  = parts[4];
-                    int totalKm        = Integer.parseInt(parts[5]);
-
-                    K2530341Customer customer = customerMap.get(customerNic);
-                    K2530341Vehicle vehicle   = vehicleMap.get(vehicleId);
-                    if (customer != null && vehicle != null) {
-                        LocalDate startDate = parseDate(startDateStr);
-                        LocalDate endDate   = parseDate(endDateStr);
-                        if (startDate != null && endDate != null) {
-                            // Use the constructor that expects LocalDate
-                            K2530341Booking b = new K2530341Booking(
-                                bookingId, customer, vehicle, startDate, endDate, totalKm
-                            );
-                            bookings.add(b);
-                            bookingMap.put(bookingId, b);
-                            // reflect reserved state
-                            vehicle.setAvailabilityStatus("Reserved");
-                        } else {
-                            System.err.println("Skipping booking " + bookingId + " due to bad dates.");
-                        }
-                    } else {
-                        System.err.println("Skipping booking " + bookingId + " (missing customer/vehicle).");
-                    }
-                }
-            }
-        } catch (IOException e) {
-            System.err.println("Error loading bookings: " + e.getMessage());
+    // Resolves the customer and vehicle references; returns null if the row cannot be used.
+    private K2530341Booking resolveBooking(BookingRow row) {
+        K2530341Customer customer = customerMap.get(row.customerNic);
+        K2530341Vehicle vehicle   = vehicleMap.get(row.vehicleId);
+        if (customer == null || vehicle == null) {
+            System.err.println("Skipping booking " + row.bookingId + " (missing customer/vehicle).");
+            return null;
         }
+        // Use the constructor that expects LocalDate
+        return new K2530341Booking(row.bookingId, customer, vehicle, row.startDate, row.endDate, row.totalKm);
     }
 
-    private void saveBookings() {
-        try (PrintWriter writer = new PrintWriter(new FileWriter("bookings.csv"))) {
+    private K2530341Booking parseBooking(K2530341CsvReader row) {
+        BookingRow parsed = parseBookingRow(row);
+        return parsed == null ? null : resolveBooking(parsed);
+    }
+
+    private String toCsv(K2530341Booking b) {
+        // Assuming getters return LocalDate; toString() => ISO-8601 (yyyy-MM-dd)
+        return K2530341CsvReader.quote(b.getBookingId()) + "," +
+               K2530341CsvReader.quote(b.getCustomer().getNicOrPassport()) + "," +
+               K2530341CsvReader.quote(b.getVehicle().getCarId()) + "," +
+               b.getStartDate() + "," +
+               b.getEndDate() + "," +
+               b.getTotalKm();
+    }
+
+    private boolean saveBookings() {
+        List<String> lines = readLocked(() -> {
+            List<String> rows = new ArrayList<>(bookings.size());
             for (K2530341Booking b : bookings) {
-                // Assuming getters return LocalDate; toString() => ISO-8601 (yyyy-MM-dd)
-                writer.println(
-                    b.getBookingId() + "," +
-                    b.getCustomer().getNicOrPassport() + "," +
-                    b.getVehicle().getCarId() + "," +
-                    b.getStartDate() + "," +
-                    b.getEndDate() + "," +
-                    b.getTotalKm()
-                );
+                rows.add(toCsv(b));
             }
-        } catch (IOException e) {
-            System.err.println("Error saving bookings: " + e.getMessage());
+            return rows;
+        });
+        return writeAtomically("bookings.csv", lines);
+    }
+
+    // ------------ In-memory mutations (shared by CRUD, load and journal replay) ------------
+    // Each one updates the lists, lookup maps and indexes together under the data write lock.
+    private void insertVehicle(K2530341Vehicle vehicle) {
+        dataLock.writeLock().lock();
+        try {
+            vehicles.add(vehicle);
+            vehicleSnapshot = null;
+            vehicleMap.put(vehicle.getCarId(), vehicle);
+            vehicleModelIndex.add(vehicle, vehicle.getModel());
+            vehiclesVersion++;
+        } finally {
+            dataLock.writeLock().unlock();
+        }
+    }
+
+    private boolean replaceVehicle(String carId, K2530341Vehicle updatedVehicle) {
+        dataLock.writeLock().lock();
+        try {
+            K2530341Vehicle existing = vehicleMap.get(carId);
+            if (existing == null) return false;
+            vehicles.remove(existing);
+            vehicles.add(updatedVehicle);
+            vehicleSnapshot = null;
+            updatedVehicle.setVersion(existing.getVersion() + 1); // Snapshots of the old object must not match
+            vehicleMap.put(carId, updatedVehicle);
+            vehicleModelIndex.remove(existing);
+            vehicleModelIndex.add(updatedVehicle, updatedVehicle.getModel());
+            vehiclesVersion++;
+            return true;
+        } finally {
+            dataLock.writeLock().unlock();
+        }
+    }
+
+    private boolean removeVehicle(String carId) {
+        dataLock.writeLock().lock();
+        try {
+            K2530341Vehicle vehicle = vehicleMap.remove(carId);
+            if (vehicle == null) return false;
+            vehicles.remove(vehicle);
+            vehicleSnapshot = null;
+            vehicleModelIndex.remove(vehicle);
+            vehiclesVersion++;
+            return true;
+        } finally {
+            dataLock.writeLock().unlock();
+        }
+    }
+
+    private void insertCustomer(K2530341Customer customer) {
+        dataLock.writeLock().lock();
+        try {
+            customers.add(customer);
+            customerSnapshot = null;
+            customerMap.put(customer.getNicOrPassport(), customer);
+            customerNameIndex.add(customer, customer.getName());
+            customersVersion++;
+        } finally {
+            dataLock.writeLock().unlock();
+        }
+    }
+
+    private boolean replaceCustomer(String nicOrPassport, K2530341Customer updatedCustomer) {
+        dataLock.writeLock().lock();
+        try {
+            K2530341Customer existing = customerMap.get(nicOrPassport);
+            if (existing == null) return false;
+            customers.remove(existing);
+            customers.add(updatedCustomer);
+            customerSnapshot = null;
+            customerMap.put(nicOrPassport, updatedCustomer);
+            customerNameIndex.remove(existing);
+            customerNameIndex.add(updatedCustomer, updatedCustomer.getName());
+            customersVersion++;
+            return true;
+        } finally {
+            dataLock.writeLock().unlock();
+        }
+    }
+
+    private boolean removeCustomer(String nicOrPassport) {
+        dataLock.writeLock().lock();
+        try {
+            K2530341Customer customer = customerMap.remove(nicOrPassport);
+            if (customer == null) return false;
+            customers.remove(customer);
+            customerSnapshot = null;
+            customerNameIndex.remove(customer);
+            customersVersion++;
+            return true;
+        } finally {
+            dataLock.writeLock().unlock();
+        }
+    }
+
+    // Returns false, changing nothing, if a booking with this ID exists
+    private boolean insertBooking(K2530341Booking booking) {
+        dataLock.writeLock().lock();
+        try {
+            if (bookingMap.putIfAbsent(booking.getBookingId(), booking) != null) return false;
+            bookings.add(booking);
+            bookingSnapshot = null;
+            indexBooking(booking);
+            if (reminders != null) reminders.schedule(booking);
+            booking.getVehicle().setAvailabilityStatus("Reserved"); // reflect reserved state
+            touchVehicle(booking.getVehicle());
+            bookingsVersion++;
+            vehiclesVersion++; // Vehicle status is part of vehicles.csv
+            return true;
+        } finally {
+            dataLock.writeLock().unlock();
+        }
+    }
+
+    private boolean replaceBooking(String bookingId, K2530341Booking updatedBooking) {
+        dataLock.writeLock().lock();
+        try {
+            K2530341Booking existing = bookingMap.get(bookingId);
+            if (existing == null) return false;
+            bookings.remove(existing);
+            bookings.add(updatedBooking);
+            bookingSnapshot = null;
+            bookingMap.put(bookingId, updatedBooking);
+            unindexBooking(existing);
+            indexBooking(updatedBooking);
+            if (reminders != null) reminders.schedule(updatedBooking);
+            updatedBooking.setVersion(existing.getVersion() + 1);
+            touchVehicle(existing.getVehicle());
+            touchVehicle(updatedBooking.getVehicle());
+            bookingsVersion++;
+            return true;
+        } finally {
+            dataLock.writeLock().unlock();
+        }
+    }
+
+    private boolean removeBooking(String bookingId) {
+        dataLock.writeLock().lock();
+        try {
+            K2530341Booking booking = bookingMap.remove(bookingId);
+            if (booking == null) return false;
+            bookings.remove(booking);
+            bookingSnapshot = null;
+            unindexBooking(booking);
+            if (reminders != null) reminders.cancel(bookingId);
+            booking.getVehicle().setAvailabilityStatus("Available"); // Free up vehicle
+            touchVehicle(booking.getVehicle());
+            bookingsVersion++;
+            vehiclesVersion++;
+            return true;
+        } finally {
+            dataLock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Bump the version of the registered vehicle with this carId after its bookings changed.
+     * Bookings may still refer to an older object of a replaced vehicle, so the version lives
+     * on the object currently in vehicleMap.
+     */
+    private void touchVehicle(K2530341Vehicle vehicle) {
+        K2530341Vehicle current = currentVehicle(vehicle);
+        current.bumpVersion();
+    }
+
+    private K2530341Vehicle currentVehicle(K2530341Vehicle vehicle) {
+        return vehicleMap.getOrDefault(vehicle.getCarId(), vehicle);
+    }
+
+    private void indexBooking(K2530341Booking booking) {
+        bookingIndex.add(booking);
+        bookingNameIndex.add(booking, booking.getCustomer().getName());
+        bookingModelIndex.add(booking, booking.getVehicle().getModel());
+        bookingIdIndex.add(booking, booking.getBookingId());
+    }
+
+    private void unindexBooking(K2530341Booking booking) {
+        bookingIndex.remove(booking);
+        bookingNameIndex.remove(booking);
+        bookingModelIndex.remove(booking);
+        bookingIdIndex.remove(booking);
+    }
+
+    // ------------ Concurrency helpers ------------
+    private int stripeIndex(String key) {
+        return (key == null ? 0 : key.hashCode() & 0x7fffffff) % LOCK_STRIPES;
+    }
+
+    /**
+     * Run one mutation (check, in-memory change and journal record) holding the stripe locks
+     * of its keys, so it is serialized with every other mutation of the same vehicle or customer.
+     * Stripes are always taken in index order, so two-key mutations cannot deadlock.
+     * Compacts the journal afterwards if it has grown past the threshold.
+     */
+    private boolean mutate(String key, String otherKey, BooleanSupplier change) {
+        int a = stripeIndex(key);
+        int b = otherKey == null ? a : stripeIndex(otherKey);
+        boolean changed;
+        checkpointLock.readLock().lock(); // A checkpoint must not run between the change and its journal record
+        try {
+            synchronized (stripes[Math.min(a, b)]) {
+                synchronized (stripes[Math.max(a, b)]) {
+                    changed = change.getAsBoolean();
+                }
+            }
+        } finally {
+            checkpointLock.readLock().unlock();
+        }
+        if (changed) checkpointIfDue();
+        return changed;
+    }
+
+    private <T> List<T> readLocked(Supplier<List<T>> read) {
+        dataLock.readLock().lock();
+        try {
+            return read.get();
+        } finally {
+            dataLock.readLock().unlock();
         }
     }
 
     // ------------ CRUD for Vehicles ------------
     public void addVehicle(K2530341Vehicle vehicle) {
-        vehicles.add(vehicle);
-        vehicleMap.put(vehicle.getCarId(), vehicle);
-        if (!isLoadingData) saveData(); // After adding, save it also — unless we are loading time.
+        mutate(vehicle.getCarId(), null, () -> {
+            insertVehicle(vehicle);
+            persist(K2530341Journal.Op.ADD_VEHICLE, vehicle.getCarId(), toCsv(vehicle)); // After adding, log it also — unless we are loading time.
+            return true;
+        });
     }
 
     public K2530341Vehicle getVehicle(String carId) {
@@ -240,36 +756,54 @@ public class K2530341RentalSystem {
     }
 
     public boolean updateVehicle(String carId, K2530341Vehicle updatedVehicle) {
-        K2530341Vehicle existing = vehicleMap.get(carId);
-        if (existing != null) {
-            vehicles.remove(existing);
-            vehicles.add(updatedVehicle);
-            vehicleMap.put(carId, updatedVehicle);
-            if (!isLoadingData) saveData();
+        return mutate(carId, null, () -> {
+            if (!replaceVehicle(carId, updatedVehicle)) return false;
+            persist(K2530341Journal.Op.UPDATE_VEHICLE, carId, toCsv(updatedVehicle));
             return true;
-        }
-        return false;
+        });
     }
 
     public boolean deleteVehicle(String carId) {
-        K2530341Vehicle vehicle = vehicleMap.remove(carId);
-        if (vehicle != null) {
-            vehicles.remove(vehicle);
-            if (!isLoadingData) saveData();
+        return mutate(carId, null, () -> {
+            if (!removeVehicle(carId)) return false;
+            persist(K2530341Journal.Op.DELETE_VEHICLE, carId, "");
             return true;
-        }
-        return false;
+        });
     }
 
+    /**
+     * All vehicles as an immutable snapshot. Repeated calls return the same list until a vehicle
+     * is added, replaced or removed, so callers in loops allocate nothing and never block writers.
+     */
     public List<K2530341Vehicle> getAllVehicles() {
-        return new ArrayList<>(vehicles);
+        List<K2530341Vehicle> snapshot = vehicleSnapshot;
+        if (snapshot != null) return snapshot;
+        // Built and published under the read lock, so a writer cannot invalidate in between
+        dataLock.readLock().lock();
+        try {
+            snapshot = vehicleSnapshot;
+            if (snapshot == null) {
+                snapshot = Collections.unmodifiableList(new ArrayList<>(vehicles));
+                vehicleSnapshot = snapshot;
+            }
+            return snapshot;
+        } finally {
+            dataLock.readLock().unlock();
+        }
+    }
+
+    // Vehicles whose model contains the keyword, ignoring case
+    public List<K2530341Vehicle> searchVehiclesByModel(String keyword) {
+        return readLocked(() -> vehicleModelIndex.search(keyword));
     }
 
     // ------------ Customers ------------
     public void registerCustomer(K2530341Customer customer) {
-        customers.add(customer);
-        customerMap.put(customer.getNicOrPassport(), customer);
-        if (!isLoadingData) saveData();
+        mutate(customer.getNicOrPassport(), null, () -> {
+            insertCustomer(customer);
+            persist(K2530341Journal.Op.ADD_CUSTOMER, customer.getNicOrPassport(), toCsv(customer));
+            return true;
+        });
     }
 
     public K2530341Customer getCustomer(String nicOrPassport) {
@@ -277,107 +811,365 @@ public class K2530341RentalSystem {
     }
 
     public boolean updateCustomer(String nicOrPassport, K2530341Customer updatedCustomer) {
-        K2530341Customer existing = customerMap.get(nicOrPassport);
-        if (existing != null) {
-            customers.remove(existing);
-            customers.add(updatedCustomer);
-            customerMap.put(nicOrPassport, updatedCustomer);
-            if (!isLoadingData) saveData();
+        return mutate(nicOrPassport, null, () -> {
+            if (!replaceCustomer(nicOrPassport, updatedCustomer)) return false;
+            persist(K2530341Journal.Op.UPDATE_CUSTOMER, nicOrPassport, toCsv(updatedCustomer));
             return true;
-        }
-        return false;
+        });
     }
 
     public boolean deleteCustomer(String nicOrPassport) {
-        K2530341Customer customer = customerMap.remove(nicOrPassport);
-        if (customer != null) {
-            customers.remove(customer);
-            if (!isLoadingData) saveData();
+        return mutate(nicOrPassport, null, () -> {
+            if (!removeCustomer(nicOrPassport)) return false;
+            persist(K2530341Journal.Op.DELETE_CUSTOMER, nicOrPassport, "");
             return true;
+        });
+    }
+
+    // All customers as an immutable snapshot (see getAllVehicles())
+    public List<K2530341Customer> getAllCustomers() {
+        List<K2530341Customer> snapshot = customerSnapshot;
+        if (snapshot != null) return snapshot;
+        dataLock.readLock().lock();
+        try {
+            snapshot = customerSnapshot;
+            if (snapshot == null) {
+                snapshot = Collections.unmodifiableList(new ArrayList<>(customers));
+                customerSnapshot = snapshot;
+            }
+            return snapshot;
+        } finally {
+            dataLock.readLock().unlock();
         }
-        return false;
     }
 
-    public ArrayList<K2530341Customer> getAllCustomers() {
-        return new ArrayList<>(customers);
+    // Customers whose name contains the text, ignoring case
+    public List<K2530341Customer> searchCustomersByName(String name) {
+        return readLocked(() -> customerNameIndex.search(name));
     }
 
     public int getCustomerCount() {
-        return customers.size();
+        dataLock.readLock().lock();
+        try {
+            return customers.size();
+        } finally {
+            dataLock.readLock().unlock();
+        }
     }
 
     // ------------ Bookings ------------
+    /**
+     * Whether a vehicle is free for a date range, stamped with the vehicle's version.
+     * Pass it to commitBooking(); the commit fails with CONFLICT if the vehicle or its bookings changed since.
+     */
+    public static final class AvailabilitySnapshot {
+        private final String carId;
+        private final long version;
+        private final boolean free;
+
+        AvailabilitySnapshot(String carId, long version, boolean free) {
+            this.carId = carId;
+            this.version = version;
+            this.free = free;
+        }
+
+        public String getCarId() { return carId; }
+        public long getVersion() { return version; }
+        public boolean isFree() { return free; }
+    }
+
+    public enum CommitResult { COMMITTED, CONFLICT, REJECTED, DUPLICATE_ID }
+
+    /**
+     * Read a vehicle's availability without taking the per-vehicle lock.
+     */
+    public AvailabilitySnapshot readAvailability(K2530341Vehicle vehicle, LocalDate startDate, LocalDate endDate) {
+        return readAvailability(vehicle, startDate, endDate, null);
+    }
+
+    // The version is read before the index, so a snapshot never pairs a new version with old bookings
+    private AvailabilitySnapshot readAvailability(K2530341Vehicle vehicle, LocalDate startDate, LocalDate endDate,
+            K2530341Booking ignore) {
+        K2530341Vehicle current = currentVehicle(vehicle);
+        long version = current.getVersion();
+        boolean free = current.isAvailable() || ignore != null; // An update keeps its own reservation
+        if (free) {
+            for (K2530341Booking other : getConflictingBookings(vehicle.getCarId(), startDate, endDate)) {
+                if (other != ignore) { free = false; break; }
+            }
+        }
+        return new AvailabilitySnapshot(vehicle.getCarId(), version, free);
+    }
+
+    /**
+     * Commit a booking computed from a snapshot. Only the version check, the in-memory insert and
+     * the journal record run under the vehicle's lock.
+     * @return COMMITTED, CONFLICT if the vehicle changed since the snapshot (read again and retry),
+     *         REJECTED if the snapshot shows the vehicle is not free,
+     *         or DUPLICATE_ID if a booking with the same ID exists (checked under the data lock)
+     */
+    public CommitResult commitBooking(K2530341Booking booking, AvailabilitySnapshot snapshot) {
+        if (!snapshot.isFree()) return CommitResult.REJECTED;
+        CommitResult[] result = {CommitResult.CONFLICT};
+        mutate(snapshot.getCarId(), null, () -> {
+            if (currentVehicle(booking.getVehicle()).getVersion() != snapshot.getVersion()) return false;
+            if (!insertBooking(booking)) {
+                result[0] = CommitResult.DUPLICATE_ID;
+                return false;
+            }
+            persist(K2530341Journal.Op.ADD_BOOKING, booking.getBookingId(), toCsv(booking));
+            result[0] = CommitResult.COMMITTED;
+            return true;
+        });
+        countCommit(snapshot.getCarId(), result[0]);
+        return result[0];
+    }
+
+    /**
+     * Make a booking if it is valid and the vehicle has no overlapping booking.
+     * Validation runs on an optimistic snapshot and the commit retries if the vehicle changed
+     * in between, so two concurrent requests for the same vehicle cannot both succeed.
+     * After MAX_OPTIMISTIC_ATTEMPTS conflicts the check is done under the vehicle's lock.
+     */
     public boolean makeBooking(K2530341Booking booking) {
-        if (booking.isValidBooking()) {
-            bookings.add(booking);
-            bookingMap.put(booking.getBookingId(), booking);
-            booking.getVehicle().setAvailabilityStatus("Reserved");
-            if (!isLoadingData) saveData();
+        return placeBooking(booking) == CommitResult.COMMITTED;
+    }
+
+    /**
+     * makeBooking() with the reason a booking was not made.
+     * @return COMMITTED, REJECTED if the booking is invalid or the vehicle is taken,
+     *         or DUPLICATE_ID if a booking with the same ID exists
+     */
+    public CommitResult placeBooking(K2530341Booking booking) {
+        String carId = booking.getVehicle().getCarId();
+        for (int attempt = 1; attempt < MAX_OPTIMISTIC_ATTEMPTS; attempt++) {
+            if (!booking.isValidBooking()) return CommitResult.REJECTED;
+            AvailabilitySnapshot snapshot = readAvailability(booking.getVehicle(), booking.getStartDate(), booking.getEndDate());
+            CommitResult result = commitBooking(booking, snapshot);
+            if (result != CommitResult.CONFLICT) return result;
+        }
+        CommitResult[] result = {CommitResult.REJECTED};
+        mutate(carId, null, () -> {
+            if (!booking.isValidBooking() ||
+                hasConflictingBooking(carId, booking.getStartDate(), booking.getEndDate())) {
+                return false;
+            }
+            if (!insertBooking(booking)) {
+                result[0] = CommitResult.DUPLICATE_ID;
+                return false;
+            }
+            persist(K2530341Journal.Op.ADD_BOOKING, booking.getBookingId(), toCsv(booking));
+            result[0] = CommitResult.COMMITTED;
             return true;
+        });
+        return result[0];
+    }
+
+    private void countCommit(String carId, CommitResult result) {
+        if (result == CommitResult.COMMITTED) {
+            commits.increment();
+        } else if (result == CommitResult.CONFLICT) {
+            conflicts.increment();
+            conflictsByVehicle.computeIfAbsent(carId, id -> new LongAdder()).increment();
+        }
+    }
+
+    public long getCommitCount() {
+        return commits.sum();
+    }
+
+    public long getConflictCount() {
+        return conflicts.sum();
+    }
+
+    /**
+     * Optimistic commit statistics with the vehicles that had the most version conflicts.
+     */
+    public String getContentionReport() {
+        StringBuilder sb = new StringBuilder();
+        long committed = commits.sum();
+        long conflicted = conflicts.sum();
+        sb.append(String.format("Optimistic commits: %d committed, %d conflicts (retried), %.2f%% conflict rate\n",
+            committed, conflicted, committed + conflicted > 0 ? 100.0 * conflicted / (committed + conflicted) : 0));
+        List<java.util.Map.Entry<String, LongAdder>> hotSpots = new ArrayList<>(conflictsByVehicle.entrySet());
+        hotSpots.sort((a, b) -> Long.compare(b.getValue().sum(), a.getValue().sum()));
+        for (int i = 0; i < Math.min(10, hotSpots.size()); i++) {
+            String carId = hotSpots.get(i).getKey();
+            K2530341Vehicle v = vehicleMap.get(carId);
+            sb.append(String.format("- %s (%s): %d conflicts\n", carId, v == null ? "deleted" : v.getModel(),
+                hotSpots.get(i).getValue().sum()));
         }
-        return false;
+        return sb.toString();
     }
 
     public K2530341Booking getBooking(String bookingId) {
         return bookingMap.get(bookingId);
     }
 
+    // Bookings whose customer name contains the text, ignoring case (trigram index lookup)
     public List<K2530341Booking> searchBookingsByName(String name) {
-        List<K2530341Booking> results = new ArrayList<>();
-        for (K2530341Booking booking : bookings) {
-            if (booking.getCustomer().getName().toLowerCase().contains(name.toLowerCase())) {
-                results.add(booking);
-            }
-        }
-        return results;
+        return readLocked(() -> bookingNameIndex.search(name));
     }
 
+    // Bookings whose vehicle model contains the keyword, ignoring case
+    public List<K2530341Booking> searchBookingsByModel(String keyword) {
+        return readLocked(() -> bookingModelIndex.search(keyword));
+    }
+
+    // Bookings whose ID contains the text, ignoring case
+    public List<K2530341Booking> searchBookingsById(String bookingId) {
+        return readLocked(() -> bookingIdIndex.search(bookingId));
+    }
+
+    // Bookings active on the date (start <= date <= end), found through the date index
     public List<K2530341Booking> searchBookingsByDate(LocalDate date) {
-        List<K2530341Booking> results = new ArrayList<>();
-        for (K2530341Booking booking : bookings) {
-            if ((booking.getStartDate().isBefore(date) || booking.getStartDate().isEqual(date)) &&
-                (booking.getEndDate().isAfter(date) || booking.getEndDate().isEqual(date))) {
-                results.add(booking);
-            }
+        return readLocked(() -> bookingIndex.findActiveOn(date));
+    }
+
+    /**
+     * Bookings starting in [from, to], both inclusive; a null bound is open.
+     */
+    public List<K2530341Booking> getBookingsStartingBetween(LocalDate from, LocalDate to) {
+        return readLocked(() -> bookingIndex.findStartingBetween(from, to));
+    }
+
+    /**
+     * Start sending pickup and return reminders in the background (see K2530341ReminderScheduler).
+     * Booking changes from now on move the reminders; the existing ones are rebuilt from the indexes.
+     */
+    public synchronized K2530341ReminderScheduler startReminders() {
+        if (reminders == null) {
+            K2530341ReminderScheduler scheduler = new K2530341ReminderScheduler(this,
+                dataDir.resolve("reminders.state"), java.time.Clock.systemDefaultZone());
+            reminders = scheduler; // Before the rebuild, so no change made during it is missed
+            scheduler.start();
+        }
+        return reminders;
+    }
+
+    public K2530341ReminderScheduler getReminders() {
+        return reminders;
+    }
+
+    /**
+     * Bookings ending in [from, to], both inclusive; a null bound is open.
+     */
+    public List<K2530341Booking> getBookingsEndingBetween(LocalDate from, LocalDate to) {
+        return readLocked(() -> bookingIndex.findEndingBetween(from, to));
+    }
+
+    /**
+     * Bookings with start >= from and end <= to; a null bound is open.
+     */
+    public List<K2530341Booking> getBookingsWithin(LocalDate from, LocalDate to) {
+        return readLocked(() -> bookingIndex.findWithin(from, to));
+    }
+
+    /**
+     * True if the vehicle has a booking overlapping [startDate, endDate] (both inclusive).
+     * Uses the per-vehicle date index instead of scanning all bookings.
+     */
+    public boolean hasConflictingBooking(String carId, LocalDate startDate, LocalDate endDate) {
+        dataLock.readLock().lock();
+        try {
+            return bookingIndex.hasOverlap(carId, startDate, endDate);
+        } finally {
+            dataLock.readLock().unlock();
         }
-        return results;
     }
 
     public K2530341Invoice generateInvoice(K2530341Booking booking) {
         return new K2530341Invoice(booking);
     }
 
-    public ArrayList<K2530341Booking> getAllBookings() {
-        return new ArrayList<>(bookings);
+    // All bookings as an immutable snapshot (see getAllVehicles())
+    public List<K2530341Booking> getAllBookings() {
+        List<K2530341Booking> snapshot = bookingSnapshot;
+        if (snapshot != null) return snapshot;
+        dataLock.readLock().lock();
+        try {
+            snapshot = bookingSnapshot;
+            if (snapshot == null) {
+                snapshot = Collections.unmodifiableList(new ArrayList<>(bookings));
+                bookingSnapshot = snapshot;
+            }
+            return snapshot;
+        } finally {
+            dataLock.readLock().unlock();
+        }
     }
 
     public int getBookingCount() {
-        return bookings.size();
+        dataLock.readLock().lock();
+        try {
+            return bookings.size();
+        } finally {
+            dataLock.readLock().unlock();
+        }
     }
 
-    // Update booking
+    /**
+     * Update booking. Rejected if the new dates overlap another booking of the vehicle.
+     * Validated optimistically like makeBooking(); the commit holds the locks of both the old
+     * and the new vehicle and checks that neither the booking nor the new vehicle changed.
+     */
     public boolean updateBooking(String bookingId, K2530341Booking updatedBooking) {
-        K2530341Booking existing = bookingMap.get(bookingId);
-        if (existing != null) {
-            bookings.remove(existing);
-            bookings.add(updatedBooking);
-            bookingMap.put(bookingId, updatedBooking);
-            if (!isLoadingData) saveData(); // Persist after update
-            return true;
+        String carId = updatedBooking.getVehicle().getCarId();
+        for (int attempt = 1; ; attempt++) {
+            K2530341Booking existing = bookingMap.get(bookingId);
+            if (existing == null) return false;
+            long bookingVersion = existing.getVersion();
+            boolean optimistic = attempt < MAX_OPTIMISTIC_ATTEMPTS;
+            AvailabilitySnapshot snapshot = optimistic ? readAvailability(updatedBooking.getVehicle(),
+                updatedBooking.getStartDate(), updatedBooking.getEndDate(), existing) : null;
+            if (snapshot != null && !snapshot.isFree()) return false;
+
+            CommitResult[] result = {CommitResult.CONFLICT};
+            mutate(existing.getVehicle().getCarId(), carId, () -> {
+                if (bookingMap.get(bookingId) != existing || existing.getVersion() != bookingVersion) {
+                    return false; // Changed by someone else; look it up again
+                }
+                if (snapshot != null) {
+                    if (currentVehicle(updatedBooking.getVehicle()).getVersion() != snapshot.getVersion()) return false;
+                } else {
+                    for (K2530341Booking other : getConflictingBookings(carId, updatedBooking.getStartDate(), updatedBooking.getEndDate())) {
+                        if (other != existing) {
+                            result[0] = CommitResult.REJECTED;
+                            return false;
+                        }
+                    }
+                }
+                replaceBooking(bookingId, updatedBooking);
+                persist(K2530341Journal.Op.UPDATE_BOOKING, bookingId, toCsv(updatedBooking)); // Persist after update
+                result[0] = CommitResult.COMMITTED;
+                return true;
+            });
+            countCommit(carId, result[0]);
+            if (result[0] != CommitResult.CONFLICT) return result[0] == CommitResult.COMMITTED;
         }
-        return false;
+    }
+
+    private List<K2530341Booking> getConflictingBookings(String carId, LocalDate startDate, LocalDate endDate) {
+        return readLocked(() -> bookingIndex.findOverlapping(carId, startDate, endDate));
     }
 
     // Delete booking
     public boolean deleteBooking(String bookingId) {
-        K2530341Booking booking = bookingMap.remove(bookingId);
-        if (booking != null) {
-            bookings.remove(booking);
-            booking.getVehicle().setAvailabilityStatus("Available"); // Free up vehicle
-            if (!isLoadingData) saveData(); // Persist after delete
-            return true;
+        while (true) {
+            K2530341Booking existing = bookingMap.get(bookingId);
+            if (existing == null) return false;
+            boolean[] retry = {false};
+            boolean deleted = mutate(existing.getVehicle().getCarId(), null, () -> {
+                if (bookingMap.get(bookingId) != existing) {
+                    retry[0] = true;
+                    return false;
+                }
+                removeBooking(bookingId);
+                persist(K2530341Journal.Op.DELETE_BOOKING, bookingId, ""); // Persist after delete
+                return true;
+            });
+            if (!retry[0]) return deleted;
         }
-        return false;
     }
 
     // ------------ Authentication ------------
@@ -412,28 +1204,41 @@ public class K2530341RentalSystem {
         return authSystem.getCurrentUser();
     }
 
-    // Get bookings for current user (customer only)
+    // Get bookings for current user (customer only); read-only
     public List<K2530341Booking> getMyBookings() {
-        K2530341User user = getCurrentUser();
-        if (user == null || user.isAdmin()) return new ArrayList<>();
-        List<K2530341Booking> myBookings = new ArrayList<>();
-        for (K2530341Booking b : bookings) {
-            if (b.getCustomer().getNicOrPassport().equals(user.getNicOrPassport())) {
-                myBookings.add(b);
-            }
-        }
-        return myBookings;
+        return bookingsOfUser(getCurrentUser());
+    }
+
+    /** Log in with a new session; returns the session token, or null if the credentials are wrong. */
+    public String loginSession(String username, String password) {
+        return authSystem.loginSession(username, password);
+    }
+
+    public boolean logoutSession(String token) {
+        return authSystem.logoutSession(token);
     }
 
-    // Get bookings for a specific customer by NIC
+    // The user of a session, or null if the token is unknown or expired
+    public K2530341User getCurrentUser(String sessionToken) {
+        return authSystem.getSessionUser(sessionToken);
+    }
+
+    // Get bookings of a session's user (customer only); read-only
+    public List<K2530341Booking> getMyBookings(String sessionToken) {
+        return bookingsOfUser(getCurrentUser(sessionToken));
+    }
+
+    private List<K2530341Booking> bookingsOfUser(K2530341User user) {
+        if (user == null || user.isAdmin()) return Collections.emptyList();
+        return getBookingsByCustomerNic(user.getNicOrPassport());
+    }
+
+    /**
+     * Get bookings for a specific customer by NIC.
+     * Returns the customer index's immutable list (no copy, no scan); later changes do not affect it.
+     */
     public List<K2530341Booking> getBookingsByCustomerNic(String nic) {
-        List<K2530341Booking> customerBookings = new ArrayList<>();
-        for (K2530341Booking b : bookings) {
-            if (b.getCustomer().getNicOrPassport().equals(nic)) {
-                customerBookings.add(b);
-            }
-        }
-        return customerBookings;
+        return readLocked(() -> bookingIndex.findByCustomer(nic));
     }
 
     // ------------ Load Test ------------
@@ -12,28 +12,24 @@ public class K2530341ReportGenerator {
 
     // Creates a revenue report for bookings within a date range
     public static String generateRevenueReport(K2530341RentalSystem rentalSystem, LocalDate startDate, LocalDate endDate) {
-        List<K2530341Booking> allBookings = rentalSystem.getAllBookings();
+        // Range lookup on the start date index instead of a scan of all bookings
+        List<K2530341Booking> periodBookings = rentalSystem.getBookingsStartingBetween(startDate, endDate);
         Map<String, Double> revenueByCategory = new HashMap<>();
         Map<String, Integer> bookingsByCategory = new HashMap<>();
         double totalRevenue = 0.0;
         int totalBookings = 0;
 
-        // Go through each booking and check if it's in our date range
-        for (K2530341Booking booking : allBookings) {
-            LocalDate bookingDate = booking.getStartDate();
-            if ((bookingDate.isEqual(startDate) || bookingDate.isAfter(startDate)) &&
-                (bookingDate.isEqual(endDate) || bookingDate.isBefore(endDate))) {
+        // Go through each booking that starts in our date range
+        for (K2530341Booking booking : periodBookings) {
+            String category = booking.getVehicle().getCategory();
+            double revenue = K2530341FeeCalculator.calculateEstimatedFee(booking);
 
-                String category = booking.getVehicle().getCategory();
-                double revenue = K2530341FeeCalculator.calculateEstimatedFee(booking);
+            // Add up revenue and booking count for each category
+            revenueByCategory.put(category, revenueByCategory.getOrDefault(category, 0.0) + revenue);
+            bookingsByCategory.put(category, bookingsByCategory.getOrDefault(category, 0) + 1);
 
-                // Add up revenue and booking count for each category
-                revenueByCategory.put(category, revenueByCategory.getOrDefault(category, 0.0) + revenue);
-                bookingsByCategory.put(category, bookingsByCategory.getOrDefault(category, 0) + 1);
-
-                totalRevenue += revenue;
-                totalBookings++;
-            }
+            totalRevenue += revenue;
+            totalBookings++;
         }
 
         // Build the report text
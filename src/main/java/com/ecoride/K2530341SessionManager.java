@@ -0,0 +1,130 @@
+package com.ecoride;
+
+import java.security.SecureRandom;
+import java.util.Base64;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Login sessions for the EcoRide Car Rental System, so many users can be logged in at once.
+ * Each login gets an opaque random token that maps to the user in a ConcurrentHashMap.
+ * A session expires once it has been idle for longer than the timeout: lookups drop it
+ * straight away, and expired sessions of clients that never return are swept out
+ * while new sessions are created.
+ * Thread-safe.
+ * Demonstrates data structures: ConcurrentHashMap.
+ */
+public class K2530341SessionManager {
+    private static final long DEFAULT_IDLE_TIMEOUT_MILLIS = TimeUnit.MINUTES.toMillis(30);
+    private static final int TOKEN_BYTES = 32;
+
+    private static class Session {
+        final K2530341User user;
+        volatile long lastAccessNanos;
+
+        Session(K2530341User user, long now) {
+            this.user = user;
+            this.lastAccessNanos = now;
+        }
+    }
+
+    private final Map<String, Session> sessions = new ConcurrentHashMap<>(); // Key: token
+    private final SecureRandom random = new SecureRandom();
+    private final Base64.Encoder encoder = Base64.getUrlEncoder().withoutPadding();
+    private volatile long idleTimeoutNanos;
+    private final AtomicLong nextSweepNanos;
+
+    public K2530341SessionManager() {
+        this(DEFAULT_IDLE_TIMEOUT_MILLIS);
+    }
+
+    public K2530341SessionManager(long idleTimeoutMillis) {
+        setIdleTimeout(idleTimeoutMillis);
+        nextSweepNanos = new AtomicLong(System.nanoTime() + idleTimeoutNanos);
+    }
+
+    public void setIdleTimeout(long idleTimeoutMillis) {
+        idleTimeoutNanos = TimeUnit.MILLISECONDS.toNanos(Math.max(1, idleTimeoutMillis));
+    }
+
+    /**
+     * Starts a session for an authenticated user and returns its token.
+     */
+    public String createSession(K2530341User user) {
+        long now = System.nanoTime();
+        sweepIfDue(now);
+        byte[] bytes = new byte[TOKEN_BYTES];
+        String token;
+        do {
+            random.nextBytes(bytes);
+            token = encoder.encodeToString(bytes);
+        } while (sessions.putIfAbsent(token, new Session(user, now)) != null);
+        return token;
+    }
+
+    /**
+     * The user of a live session, or null if the token is unknown or has expired.
+     * Every successful lookup resets the session's idle time.
+     */
+    public K2530341User getUser(String token) {
+        if (token == null) return null;
+        Session session = sessions.get(token);
+        if (session == null) return null;
+        long now = System.nanoTime();
+        if (now - session.lastAccessNanos > idleTimeoutNanos) {
+            sessions.remove(token, session);
+            return null;
+        }
+        session.lastAccessNanos = now;
+        return session.user;
+    }
+
+    /**
+     * Ends a session. Returns false if it did not exist or had already expired.
+     */
+    public boolean invalidate(String token) {
+        return token != null && sessions.remove(token) != null;
+    }
+
+    // Ends every session of a user, e.g. when the account changes
+    public int invalidateUser(String username) {
+        int removed = 0;
+        for (Iterator<Session> it = sessions.values().iterator(); it.hasNext(); ) {
+            if (it.next().user.getUsername().equals(username)) {
+                it.remove();
+                removed++;
+            }
+        }
+        return removed;
+    }
+
+    /**
+     * Removes all sessions idle for longer than the timeout and returns how many were removed.
+     */
+    public int evictExpired() {
+        long now = System.nanoTime();
+        int removed = 0;
+        for (Iterator<Session> it = sessions.values().iterator(); it.hasNext(); ) {
+            if (now - it.next().lastAccessNanos > idleTimeoutNanos) {
+                it.remove();
+                removed++;
+            }
+        }
+        return removed;
+    }
+
+    public int getActiveSessionCount() {
+        return sessions.size();
+    }
+
+    // At most one sweep per timeout period, run by whichever thread claims it
+    private void sweepIfDue(long now) {
+        long due = nextSweepNanos.get();
+        if (now - due >= 0 && nextSweepNanos.compareAndSet(due, now + idleTimeoutNanos)) {
+            evictExpired();
+        }
+    }
+}
@@ -0,0 +1,252 @@
+package com.ecoride;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Concurrency stress test for K2530341RentalSystem.
+ * Phase 1: all threads try to book the same vehicle for the same dates at the same moment;
+ * exactly one may succeed. Phase 2: threads book a small pool of vehicles for a few overlapping
+ * date ranges and cancel every booking they win at once, so the vehicles stay Available and most
+ * attempts race through the overlap check and the optimistic commit rather than being turned away
+ * because the vehicle is Reserved. No vehicle may ever have overlapping bookings, the booking
+ * counts must add up and at least half of the attempts must have found the vehicle Available.
+ * run() uses a new system in a temporary directory, so the real data files are not touched.
+ */
+public class K2530341StressTest {
+
+    private static final int VEHICLES = 16;
+    private static final int START_DAYS = 7; // Phase 2 bookings start within this many days, so they overlap
+    private static final double MIN_CONTENDED_SHARE = 0.5;
+
+    /**
+     * Run the test on an empty system whose data files are in a temporary directory, deleted afterwards.
+     */
+    public static boolean run(int threads, int opsPerThread, K2530341Journal.DurabilityMode mode) {
+        Path dir;
+        try {
+            dir = Files.createTempDirectory("ecoride-stress");
+        } catch (IOException e) {
+            System.err.println("Stress test failed: " + e.getMessage());
+            return false;
+        }
+        try {
+            K2530341RentalSystem system = new K2530341RentalSystem(dir);
+            system.setPersistenceMode(mode, 5_000, 512);
+            return runStressTest(system, threads, opsPerThread);
+        } finally {
+            File[] files = dir.toFile().listFiles();
+            if (files != null) for (File f : files) f.delete();
+            dir.toFile().delete();
+        }
+    }
+
+    public static boolean runStressTest(K2530341RentalSystem system, int threads, int opsPerThread) {
+        System.out.println("=== Starting Concurrency Stress Test ===");
+        System.out.println(threads + " threads, " + VEHICLES + " vehicles, " + opsPerThread + " operations per thread");
+
+        String runId = "ST" + Long.toString(System.currentTimeMillis(), 36).toUpperCase();
+        List<K2530341Vehicle> vehicles = new ArrayList<>();
+        for (int i = 0; i < VEHICLES; i++) {
+            K2530341Vehicle v = new K2530341Vehicle(runId + "-V" + i, "Stress Test Car", "Hybrid", 7500.0, "Available");
+            system.addVehicle(v);
+            vehicles.add(v);
+        }
+        List<K2530341Customer> customers = new ArrayList<>();
+        for (int t = 0; t < threads; t++) {
+            K2530341Customer c = new K2530341Customer(runId + "-C" + t, "Stress Tester " + t, "0710000000", "stress@example.com");
+            system.registerCustomer(c);
+            customers.add(c);
+        }
+        int bookingsBefore = system.getBookingCount();
+        boolean passed = true;
+
+        try {
+            passed &= raceForSameSlot(system, runId, threads, vehicles, customers);
+            passed &= randomBookAndCancel(system, runId, threads, opsPerThread, vehicles, customers, bookingsBefore);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            System.err.println("Stress test interrupted.");
+            passed = false;
+        } finally {
+            cleanUp(system, vehicles, customers);
+        }
+
+        System.out.println("\n=== Contention ===");
+        System.out.print(system.getContentionReport());
+
+        System.out.println(passed ? "\nRESULT: PASS - no double bookings" : "\nRESULT: FAIL");
+        return passed;
+    }
+
+    // Every thread books every vehicle for the same dates at once; exactly one must win each round
+    private static boolean raceForSameSlot(K2530341RentalSystem system, String runId, int threads,
+            List<K2530341Vehicle> vehicles, List<K2530341Customer> customers) throws InterruptedException {
+        System.out.println("\n=== Phase 1: same vehicle, same dates ===");
+        LocalDate start = LocalDate.now().plusDays(10);
+        LocalDate end = start.plusDays(3);
+        AtomicInteger[] winners = new AtomicInteger[vehicles.size()];
+        for (int i = 0; i < winners.length; i++) winners[i] = new AtomicInteger();
+
+        CyclicBarrier barrier = new CyclicBarrier(threads);
+        Thread[] workers = new Thread[threads];
+        for (int t = 0; t < threads; t++) {
+            int thread = t;
+            workers[t] = new Thread(() -> {
+                try {
+                    for (int i = 0; i < vehicles.size(); i++) {
+                        K2530341Booking booking = new K2530341Booking(runId + "-R" + i + "-T" + thread,
+                            customers.get(thread), vehicles.get(i), start, end, 100);
+                        barrier.await(); // Release all threads for this vehicle together
+                        if (system.makeBooking(booking)) winners[i].incrementAndGet();
+                    }
+                } catch (Exception e) {
+                    System.err.println("Worker failed: " + e);
+                }
+            });
+            workers[t].start();
+        }
+        for (Thread worker : workers) worker.join();
+
+        boolean ok = true;
+        for (int i = 0; i < winners.length; i++) {
+            if (winners[i].get() != 1) {
+                System.out.println("Vehicle " + vehicles.get(i).getCarId() + ": " + winners[i].get() + " successful bookings (expected 1)");
+                ok = false;
+            }
+        }
+        ok &= checkNoOverlaps(system, vehicles);
+        System.out.println(ok ? "Each vehicle was booked exactly once." : "Double booking detected!");
+
+        // Free the vehicles for phase 2
+        for (K2530341Vehicle v : vehicles) {
+            for (K2530341Booking b : bookingsOf(system, v)) system.deleteBooking(b.getBookingId());
+        }
+        return ok;
+    }
+
+    // Threads book random vehicles for overlapping dates and cancel what they win straight away
+    private static boolean randomBookAndCancel(K2530341RentalSystem system, String runId, int threads, int opsPerThread,
+            List<K2530341Vehicle> vehicles, List<K2530341Customer> customers, int bookingsBefore) throws InterruptedException {
+        System.out.println("\n=== Phase 2: overlapping bookings and cancellations ===");
+        AtomicInteger made = new AtomicInteger();
+        AtomicInteger rejected = new AtomicInteger();
+        AtomicInteger cancelled = new AtomicInteger();
+        AtomicInteger contended = new AtomicInteger(); // Attempts that found the vehicle Available
+        AtomicBoolean overlapSeen = new AtomicBoolean();
+        long conflictsBefore = system.getConflictCount();
+        CountDownLatch startSignal = new CountDownLatch(1);
+        LocalDate today = LocalDate.now();
+
+        Thread[] workers = new Thread[threads];
+        for (int t = 0; t < threads; t++) {
+            int thread = t;
+            workers[t] = new Thread(() -> {
+                Random random = new Random(thread);
+                try {
+                    startSignal.await();
+                } catch (InterruptedException e) {
+                    return;
+                }
+                for (int op = 0; op < opsPerThread; op++) {
+                    K2530341Vehicle vehicle = vehicles.get(random.nextInt(vehicles.size()));
+                    LocalDate start = today.plusDays(3 + random.nextInt(START_DAYS));
+                    K2530341Booking booking = new K2530341Booking(runId + "-B" + thread + "-" + op, customers.get(thread),
+                        vehicle, start, start.plusDays(random.nextInt(4)), 100);
+                    if (vehicle.isAvailable()) contended.incrementAndGet();
+                    if (system.makeBooking(booking)) {
+                        made.incrementAndGet();
+                        // Checked while the booking is still there
+                        if (!checkNoOverlaps(system, Collections.singletonList(vehicle))) overlapSeen.set(true);
+                        if (system.deleteBooking(booking.getBookingId())) cancelled.incrementAndGet();
+                    } else {
+                        rejected.incrementAndGet();
+                    }
+                }
+            });
+            workers[t].start();
+        }
+
+        long startTime = System.nanoTime();
+        startSignal.countDown();
+        for (Thread worker : workers) worker.join();
+        long elapsed = System.nanoTime() - startTime;
+
+        int totalOps = made.get() + rejected.get() + cancelled.get();
+        System.out.printf("%d operations in %.2f ms (%.0f ops/s): %d booked, %d rejected, %d cancelled\n",
+            totalOps, elapsed / 1_000_000.0, totalOps / (elapsed / 1_000_000_000.0),
+            made.get(), rejected.get(), cancelled.get());
+        int attempts = made.get() + rejected.get();
+        System.out.printf("%d of %d booking attempts found the vehicle Available (%d optimistic conflicts)\n",
+            contended.get(), attempts, system.getConflictCount() - conflictsBefore);
+
+        boolean ok = !overlapSeen.get() & checkNoOverlaps(system, vehicles);
+        if (contended.get() < attempts * MIN_CONTENDED_SHARE) {
+            System.out.println("Too few contended attempts: expected at least " + (int) Math.ceil(attempts * MIN_CONTENDED_SHARE));
+            ok = false;
+        }
+        int expected = bookingsBefore + made.get() - cancelled.get();
+        int actual = system.getBookingCount();
+        if (actual != expected) {
+            System.out.println("Booking count mismatch: expected " + expected + ", found " + actual);
+            ok = false;
+        }
+        for (K2530341Vehicle v : vehicles) {
+            boolean booked = !bookingsOf(system, v).isEmpty();
+            if (booked != "Reserved".equals(v.getAvailabilityStatus())) {
+                System.out.println("Vehicle " + v.getCarId() + " status " + v.getAvailabilityStatus()
+                    + " does not match its bookings");
+                ok = false;
+            }
+        }
+        System.out.println(ok ? "No overlapping bookings; counts are consistent." : "Inconsistent state detected!");
+        return ok;
+    }
+
+    private static boolean checkNoOverlaps(K2530341RentalSystem system, List<K2530341Vehicle> vehicles) {
+        boolean ok = true;
+        for (K2530341Vehicle v : vehicles) {
+            List<K2530341Booking> list = bookingsOf(system, v);
+            list.sort(Comparator.comparing(K2530341Booking::getStartDate));
+            for (int i = 1; i < list.size(); i++) {
+                if (!list.get(i).getStartDate().isAfter(list.get(i - 1).getEndDate())) {
+                    System.out.println("Overlap on " + v.getCarId() + ": " + list.get(i - 1).getBookingId()
+                        + " and " + list.get(i).getBookingId());
+                    ok = false;
+                }
+            }
+        }
+        return ok;
+    }
+
+    private static List<K2530341Booking> bookingsOf(K2530341RentalSystem system, K2530341Vehicle vehicle) {
+        List<K2530341Booking> result = new ArrayList<>();
+        for (K2530341Booking b : system.getAllBookings()) {
+            if (b.getVehicle().getCarId().equals(vehicle.getCarId())) result.add(b);
+        }
+        return result;
+    }
+
+    private static void cleanUp(K2530341RentalSystem system, List<K2530341Vehicle> vehicles, List<K2530341Customer> customers) {
+        for (K2530341Vehicle v : vehicles) {
+            for (K2530341Booking b : bookingsOf(system, v)) system.deleteBooking(b.getBookingId());
+            system.deleteVehicle(v.getCarId());
+        }
+        for (K2530341Customer c : customers) {
+            system.deleteCustomer(c.getNicOrPassport());
+        }
+        system.flush();
+    }
+}
@@ -63,7 +63,7 @@ public class K2530341SystemHealthMonitor {
     private HealthStatus checkDataFiles() {
         String[] requiredFiles = {
             "vehicles.csv", "customers.csv", "bookings.csv",
-            "users.csv", "employees.csv", "audit.log"
+            "users.csv", "employees.csv", K2530341AuditLogger.getInstance().getLogFile().toString()
         };
 
         for (String filename : requiredFiles) {
@@ -234,9 +234,13 @@ public class K2530341SystemHealthMonitor {
         report.append("- Bookings: ").append(rentalSystem.getAllBookings().size()).append("\n");
         report.append("- Users: ").append("N/A (authentication system)").append("\n\n");
 
+        // Startup timing
+        report.append(rentalSystem.getLoadReport()).append("\n");
+
         // File information
         report.append("File Information:\n");
-        String[] files = {"vehicles.csv", "customers.csv", "bookings.csv", "users.csv", "audit.log"};
+        String[] files = {"vehicles.csv", "customers.csv", "bookings.csv", "journal.log", "users.csv",
+            K2530341AuditLogger.getInstance().getLogFile().toString()};
         for (String filename : files) {
             File file = new File(filename);
             if (file.exists()) {
@@ -0,0 +1,155 @@
+package com.ecoride;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Case-insensitive substring index over one text key per item (a name, model or ID).
+ * Every item gets an ordinal, and every three-character sequence (trigram) of its
+ * lower-cased key maps to a sorted list of ordinals. A query of three or more characters
+ * intersects the posting lists of its trigrams and only checks the few remaining keys;
+ * shorter queries scan the precomputed lower-case keys.
+ * Removed items leave holes that are compacted once they outnumber the live items.
+ * Not thread-safe: K2530341RentalSystem guards it with its data lock.
+ * Demonstrates algorithms: inverted index, sorted list intersection.
+ */
+public class K2530341TrigramIndex<T> {
+    private static final int MIN_COMPACT = 1024;
+
+    // Sorted ordinals of the items containing one trigram
+    private static class Postings {
+        int[] ids = new int[4];
+        int count;
+
+        void add(int id) {
+            if (count == ids.length) ids = Arrays.copyOf(ids, count * 2);
+            ids[count++] = id;
+        }
+
+        boolean contains(int id) {
+            return Arrays.binarySearch(ids, 0, count, id) >= 0;
+        }
+    }
+
+    private Object[] items = new Object[16]; // By ordinal; null once removed
+    private String[] keys = new String[16];  // Lower-cased key by ordinal
+    private int nextOrdinal;
+    private int liveCount;
+    private final Map<T, Integer> ordinals = new IdentityHashMap<>();
+    private Map<Long, Postings> postings = new HashMap<>();
+
+    public void add(T item, String text) {
+        if (ordinals.containsKey(item)) remove(item);
+        if (nextOrdinal == items.length) {
+            items = Arrays.copyOf(items, nextOrdinal * 2);
+            keys = Arrays.copyOf(keys, nextOrdinal * 2);
+        }
+        int ordinal = nextOrdinal++;
+        String key = text == null ? "" : text.toLowerCase();
+        items[ordinal] = item;
+        keys[ordinal] = key;
+        ordinals.put(item, ordinal);
+        liveCount++;
+        indexKey(ordinal, key);
+    }
+
+    public boolean remove(T item) {
+        Integer ordinal = ordinals.remove(item);
+        if (ordinal == null) return false;
+        // Posting lists keep the stale ordinal; searches skip it until the next compaction
+        items[ordinal] = null;
+        keys[ordinal] = null;
+        liveCount--;
+        int dead = nextOrdinal - liveCount;
+        if (dead > MIN_COMPACT && dead > liveCount) compact();
+        return true;
+    }
+
+    public int size() {
+        return liveCount;
+    }
+
+    /**
+     * Items whose key contains the query, ignoring case, in the order they were added.
+     */
+    @SuppressWarnings("unchecked")
+    public List<T> search(String query) {
+        String q = query == null ? "" : query.toLowerCase();
+        List<T> results = new ArrayList<>();
+
+        if (q.length() < 3) {
+            // Too short for trigrams: scan the precomputed keys
+            for (int i = 0; i < nextOrdinal; i++) {
+                if (items[i] != null && keys[i].contains(q)) results.add((T) items[i]);
+            }
+            return results;
+        }
+
+        long[] trigrams = distinctTrigrams(q);
+        Postings[] lists = new Postings[trigrams.length];
+        for (int i = 0; i < trigrams.length; i++) {
+            lists[i] = postings.get(trigrams[i]);
+            if (lists[i] == null) return results; // Some trigram occurs in no key
+        }
+        Arrays.sort(lists, (a, b) -> Integer.compare(a.count, b.count));
+
+        // Walk the shortest list and probe the others
+        Postings shortest = lists[0];
+        for (int n = 0; n < shortest.count; n++) {
+            int id = shortest.ids[n];
+            if (items[id] == null) continue;
+            boolean inAll = true;
+            for (int i = 1; i < lists.length && inAll; i++) {
+                inAll = lists[i].contains(id);
+            }
+            // The trigrams may occur in another order, so confirm the substring
+            if (inAll && keys[id].contains(q)) results.add((T) items[id]);
+        }
+        return results;
+    }
+
+    private void indexKey(int ordinal, String key) {
+        for (long trigram : distinctTrigrams(key)) {
+            postings.computeIfAbsent(trigram, t -> new Postings()).add(ordinal);
+        }
+    }
+
+    // Renumber the live items and rebuild the posting lists without the removed ones
+    @SuppressWarnings("unchecked")
+    private void compact() {
+        Object[] oldItems = items;
+        String[] oldKeys = keys;
+        int oldCount = nextOrdinal;
+        int capacity = Math.max(16, Integer.highestOneBit(Math.max(1, liveCount)) * 2);
+        items = new Object[capacity];
+        keys = new String[capacity];
+        postings = new HashMap<>();
+        nextOrdinal = 0;
+        for (int i = 0; i < oldCount; i++) {
+            if (oldItems[i] == null) continue;
+            int ordinal = nextOrdinal++;
+            items[ordinal] = oldItems[i];
+            keys[ordinal] = oldKeys[i];
+            ordinals.put((T) oldItems[i], ordinal);
+            indexKey(ordinal, oldKeys[i]);
+        }
+    }
+
+    private static long[] distinctTrigrams(String s) {
+        if (s.length() < 3) return new long[0];
+        long[] trigrams = new long[s.length() - 2];
+        for (int i = 0; i < trigrams.length; i++) {
+            trigrams[i] = ((long) s.charAt(i) << 32) | ((long) s.charAt(i + 1) << 16) | s.charAt(i + 2);
+        }
+        Arrays.sort(trigrams);
+        int distinct = 0;
+        for (int i = 0; i < trigrams.length; i++) {
+            if (i == 0 || trigrams[i] != trigrams[i - 1]) trigrams[distinct++] = trigrams[i];
+        }
+        return Arrays.copyOf(trigrams, distinct);
+    }
+}
@@ -1,5 +1,7 @@
 package com.ecoride;
 
+import java.util.concurrent.atomic.AtomicLong;
+
 /**
  * Represents a vehicle in the EcoRide Car Rental System.
  * Demonstrates OOP: Encapsulation with private fields and public getters/setters.
@@ -8,35 +10,49 @@ public class K2530341Vehicle {
     private String carId;
     private String model;
     private String category; // Compact Petrol, Hybrid, Electric, Luxury SUV
+    private K2530341VehicleCategory categoryType; // Resolved from category whenever it is set
     private double dailyRentalPrice;
-    private String availabilityStatus; // Available, Reserved, Under Maintenance
+    private volatile String availabilityStatus; // Available, Reserved, Under Maintenance (read without locks)
+    private final AtomicLong version = new AtomicLong(); // Bumped on every change, including changes to the vehicle's bookings
 
     // Constructor
     public K2530341Vehicle(String carId, String model, String category, double dailyRentalPrice, String availabilityStatus) {
         this.carId = carId;
         this.model = model;
         this.category = category;
+        this.categoryType = K2530341VehicleCategory.of(category);
         this.dailyRentalPrice = dailyRentalPrice;
         this.availabilityStatus = availabilityStatus;
     }
 
     // Getters and Setters
     public String getCarId() { return carId; }
-    public void setCarId(String carId) { this.carId = carId; }
+    public void setCarId(String carId) { this.carId = carId; version.incrementAndGet(); }
 
     public String getModel() { return model; }
-    public void setModel(String model) { this.model = model; }
+    public void setModel(String model) { this.model = model; version.incrementAndGet(); }
 
     public String getCategory() { return category; }
-    public void setCategory(String category) { this.category = category; }
+    public void setCategory(String category) {
+        this.category = category;
+        this.categoryType = K2530341VehicleCategory.of(category);
+        version.incrementAndGet();
+    }
+
+    public K2530341VehicleCategory getCategoryType() { return categoryType; }
 
     public double getDailyRentalPrice() { return dailyRentalPrice; }
-    public void setDailyRentalPrice(double dailyRentalPrice) { this.dailyRentalPrice = dailyRentalPrice; }
+    public void setDailyRentalPrice(double dailyRentalPrice) { this.dailyRentalPrice = dailyRentalPrice; version.incrementAndGet(); }
 
     public String getAvailabilityStatus() { return availabilityStatus; }
-    public void setAvailabilityStatus(String availabilityStatus) { this.availabilityStatus = availabilityStatus; }
+    public void setAvailabilityStatus(String availabilityStatus) { this.availabilityStatus = availabilityStatus; version.incrementAndGet(); }
     // Private fields, controlled access through getters/setters
 
+    // Version stamp for optimistic commits (see K2530341RentalSystem.commitBooking)
+    public long getVersion() { return version.get(); }
+    void setVersion(long version) { this.version.set(version); }
+    void bumpVersion() { version.incrementAndGet(); }
+
     // Method to check if available for booking
     public boolean isAvailable() {
         return "Available".equals(availabilityStatus);
@@ -0,0 +1,44 @@
+package com.ecoride;
+
+/**
+ * Vehicle categories of the EcoRide Car Rental System, with the label used in the CSV files and the GUI.
+ * A vehicle resolves its category text once, when it is created or its category is changed;
+ * K2530341PricingEngine then looks up the tariff by ordinal instead of comparing strings.
+ * Text that matches no label (ignoring case and surrounding spaces) is OTHER, which has no tariff.
+ * Demonstrates OOP: enum with fields.
+ */
+public enum K2530341VehicleCategory {
+    COMPACT_PETROL("Compact Petrol"),
+    HYBRID("Hybrid"),
+    ELECTRIC("Electric"),
+    LUXURY_SUV("Luxury SUV"),
+    RACING("Racing"),
+    OFF_ROAD_SUV("Off road SUV"),
+    SUPER_LUXURY("Super luxury"),
+    OTHER("");
+
+    private static final K2530341VehicleCategory[] VALUES = values(); // values() copies the array on every call
+
+    private final String label;
+
+    K2530341VehicleCategory(String label) {
+        this.label = label;
+    }
+
+    public String getLabel() {
+        return label;
+    }
+
+    /**
+     * The category with this label, ignoring case and surrounding spaces; OTHER if there is none.
+     * Only text with surrounding spaces is copied.
+     */
+    public static K2530341VehicleCategory of(String text) {
+        if (text == null) return OTHER;
+        for (K2530341VehicleCategory category : VALUES) {
+            if (category != OTHER && category.label.equalsIgnoreCase(text)) return category;
+        }
+        String trimmed = text.trim();
+        return trimmed.length() == text.length() ? OTHER : of(trimmed);
+    }
+}